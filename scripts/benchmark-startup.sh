@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# Compare time to first frame with and without the archive from scripts/build-cds.sh.
+#
+#   JAVAFX_HOME=... scripts/benchmark-startup.sh [runs]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+: "${JAVAFX_HOME:?Set JAVAFX_HOME to the JavaFX SDK directory}"
+RUNS=${1:-10}
+
+if [ -f build/knightstour.aot ]; then
+    ARCHIVE=-XX:AOTCache=build/knightstour.aot
+elif [ -f build/knightstour.jsa ]; then
+    ARCHIVE=-XX:SharedArchiveFile=build/knightstour.jsa
+else
+    echo "No archive found, run scripts/build-cds.sh first" >&2
+    exit 1
+fi
+
+BENCH=(java --module-path "$JAVAFX_HOME/lib" --add-modules javafx.controls,javafx.media
+       -cp build/knightstour.jar knightstour.game.StartupBenchmark "$RUNS")
+
+echo "== default CDS only =="
+"${BENCH[@]}"
+echo
+echo "== with $ARCHIVE =="
+"${BENCH[@]}" -- "$ARCHIVE"
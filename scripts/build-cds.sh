@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Build a class-loading archive from a scripted training run (menu, high scores, a game, a replay).
+#
+#   JDK 25+     -> AOT cache      build/knightstour.aot   (-XX:AOTCacheOutput)
+#   JDK 24      -> AOT cache      build/knightstour.aot   (record + create)
+#   JDK 13..23  -> AppCDS archive build/knightstour.jsa   (-XX:ArchiveClassesAtExit)
+#
+# The training run opens a window for a few seconds and exits by itself.
+# scripts/run.sh picks up whichever archive exists.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+: "${JAVAFX_HOME:?Set JAVAFX_HOME to the JavaFX SDK directory}"
+
+[ -f build/knightstour.jar ] || scripts/build.sh
+
+JAVA_OPTS=(--module-path "$JAVAFX_HOME/lib" --add-modules javafx.controls,javafx.media
+           -cp build/knightstour.jar -Dknightstour.training=true)
+MAIN=knightstour.game.ChessBoardKnight
+FEATURE=$(java -XshowSettings:properties -version 2>&1 | sed -n 's/.*java.specification.version = //p')
+
+rm -f build/knightstour.aot build/knightstour.aotconf build/knightstour.jsa
+if [ "$FEATURE" -ge 25 ]; then
+    java -XX:AOTCacheOutput=build/knightstour.aot "${JAVA_OPTS[@]}" "$MAIN"
+    echo "Built build/knightstour.aot"
+elif [ "$FEATURE" -ge 24 ]; then
+    java -XX:AOTMode=record -XX:AOTConfiguration=build/knightstour.aotconf "${JAVA_OPTS[@]}" "$MAIN"
+    java -XX:AOTMode=create -XX:AOTConfiguration=build/knightstour.aotconf \
+         -XX:AOTCache=build/knightstour.aot "${JAVA_OPTS[@]}" "$MAIN"
+    echo "Built build/knightstour.aot"
+else
+    java -XX:ArchiveClassesAtExit=build/knightstour.jsa "${JAVA_OPTS[@]}" "$MAIN"
+    echo "Built build/knightstour.jsa"
+fi
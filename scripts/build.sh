@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# Compile the game into build/knightstour.jar (CDS/AOT archives need a jar, not a class directory).
+#
+#   JAVAFX_HOME=/path/to/javafx-sdk-25.0.1 scripts/build.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+: "${JAVAFX_HOME:?Set JAVAFX_HOME to the JavaFX SDK directory}"
+
+rm -rf build/classes
+mkdir -p build/classes
+javac -encoding UTF-8 -d build/classes \
+      --module-path "$JAVAFX_HOME/lib" \
+      --add-modules javafx.controls,javafx.media \
+      $(find src -name '*.java')
+cp -r src/resources build/classes/
+jar --create --file build/knightstour.jar \
+    --main-class knightstour.game.ChessBoardKnight \
+    -C build/classes .
+
+echo "Built build/knightstour.jar"
@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+# Launch the game, using the archive from scripts/build-cds.sh when there is one.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+: "${JAVAFX_HOME:?Set JAVAFX_HOME to the JavaFX SDK directory}"
+
+[ -f build/knightstour.jar ] || scripts/build.sh
+
+ARCHIVE=()
+if [ -f build/knightstour.aot ]; then
+    ARCHIVE=(-XX:AOTCache=build/knightstour.aot)
+elif [ -f build/knightstour.jsa ]; then
+    ARCHIVE=(-XX:SharedArchiveFile=build/knightstour.jsa)
+fi
+
+exec java ${ARCHIVE[@]+"${ARCHIVE[@]}"} \
+     --module-path "$JAVAFX_HOME/lib" --add-modules javafx.controls,javafx.media \
+     -cp build/knightstour.jar knightstour.game.ChessBoardKnight "$@"
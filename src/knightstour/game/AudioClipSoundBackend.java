@@ -0,0 +1,67 @@
+package knightstour.game;
+
+import javafx.scene.media.AudioClip;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SoundBackend} playing sounds through JavaFX {@link AudioClip}s.
+ *
+ * Every voice of an effect shares one clip, so a sound is decoded once however many
+ * voices it has; {@link AudioClip#play()} already overlaps instances. An AudioClip
+ * cannot tell or stop its instances one by one, so each voice counts as playing for
+ * the clip's length after it starts, and stopping a voice only frees it: the old
+ * instance plays out under the new one ({@link AudioClip#stop()} would cut them all).
+ */
+public class AudioClipSoundBackend implements SoundBackend {
+    private static final long DEFAULT_LENGTH_NANOS = 500_000_000L; // when the file's length can't be read
+
+    /**
+     * Decoded clip of one sound resource and its length
+     */
+    private static final class SharedClip {
+        final AudioClip clip;
+        final long lengthNanos;
+
+        SharedClip(URL resource) {
+            this.clip = new AudioClip(resource.toExternalForm());
+            this.lengthNanos = lengthNanos(resource);
+        }
+    }
+
+    private final Map<String, SharedClip> clips = new ConcurrentHashMap<>();
+
+    @Override
+    public Voice load(URL resource) {
+        SharedClip shared = clips.computeIfAbsent(resource.toExternalForm(), url -> new SharedClip(resource));
+        return new Voice() {
+            private long endsAt = System.nanoTime();
+
+            @Override public void play() {
+                shared.clip.play();
+                endsAt = System.nanoTime() + shared.lengthNanos;
+            }
+            @Override public void stop() { endsAt = System.nanoTime(); }
+            @Override public boolean isPlaying() { return System.nanoTime() - endsAt < 0; }
+        };
+    }
+
+    /**
+     * Playing time of a sound file, read from its header
+     */
+    private static long lengthNanos(URL resource) {
+        try {
+            AudioFileFormat format = AudioSystem.getAudioFileFormat(resource);
+            long frames = format.getFrameLength();
+            float rate = format.getFormat().getFrameRate();
+            if (frames > 0 && rate > 0) return (long) (frames / rate * 1_000_000_000L);
+        } catch (Exception e) {
+            // not a format javax.sound reads; fall back to the default length
+        }
+        return DEFAULT_LENGTH_NANOS;
+    }
+}
@@ -0,0 +1,243 @@
+package knightstour.game;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Every board animation on one {@link AnimationTimer}, drawn on a transparent layer
+ * above the board: the pieces slide between squares, the targets they leave fade
+ * out and a short trail follows each piece.
+ *
+ * Nothing is queued per move. Each frame compares the shown engine with what is on
+ * screen; when a piece's square has changed, its slide restarts from wherever the
+ * piece is drawn at that moment. Moves that arrive faster than a slide (quick play,
+ * fast replays) therefore collapse into one motion towards the latest square, and a
+ * frame draws at most k glyphs, k trails of {@link #TRAIL_MOVES} segments and one
+ * set of fading targets however many moves came in. The timer stops once everything
+ * has settled and starts again on {@link #changed()}.
+ */
+public final class BoardAnimator {
+    private static final long SLIDE_NANOS = 140_000_000L;
+    private static final long FADE_NANOS = 200_000_000L;
+    private static final int TRAIL_MOVES = 6;          // segments of trail behind each piece
+    private static final int MAX_FADING = 64;
+
+    /**
+     * Where the board is on the layer: square size and the board pixel at the layer's corner
+     */
+    public interface View {
+        double scale();
+        double offsetX();
+        double offsetY();
+    }
+
+    private final Supplier<TourEngine> shown;
+    private final Canvas layer;
+    private final View view;
+    private final Color trailColor, fadeColor;
+    private final AnimationTimer timer;
+    private boolean running;
+
+    // Per piece: square it is heading to (-1 = off the board) and where its slide began
+    private int[] toSquare = new int[0];
+    private double[] fromRow = new double[0], fromCol = new double[0];
+    private long[] slideStart = new long[0];
+
+    // Targets of the squares pieces just left, fading out together
+    private final int[] fading = new int[MAX_FADING];
+    private int fadingCount;
+    private long fadeStart;
+
+    private Font glyphFont;
+    private double fontScale = -1;
+
+    public BoardAnimator(Supplier<TourEngine> shown, Canvas layer, View view, Color trailColor, Color fadeColor) {
+        this.shown = shown;
+        this.layer = layer;
+        this.view = view;
+        this.trailColor = trailColor;
+        this.fadeColor = fadeColor;
+        layer.setMouseTransparent(true);
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                frame(now);
+            }
+        };
+    }
+
+    /**
+     * The shown position changed (a move, an undo, a replay step): animate towards it
+     */
+    public void changed() {
+        if (running) return;
+        running = true;
+        timer.start();
+    }
+
+    /**
+     * Forget what is on screen and draw the shown position without sliding (new game, replay start)
+     */
+    public void jump() {
+        toSquare = new int[0];
+        fadingCount = 0;
+        changed();
+    }
+
+    /**
+     * The view moved (pan, zoom, resize): redraw the layer at once
+     */
+    public void repaint() {
+        paint(System.nanoTime());
+    }
+
+    public void stop() {
+        timer.stop();
+        running = false;
+    }
+
+    // =========================================================
+    // Frames
+    // =========================================================
+    private void frame(long now) {
+        boolean busy = sync(now);
+        paint(now);
+        busy |= fadingCount > 0 && now - fadeStart < FADE_NANOS;
+        if (!busy) stop();
+    }
+
+    /**
+     * Start slides for the pieces whose square changed
+     * @return whether any piece is still sliding
+     */
+    private boolean sync(long now) {
+        TourEngine engine = shown.get();
+        int knights = engine.getKnightCount();
+        if (toSquare.length != knights) {
+            toSquare = new int[knights];
+            fromRow = new double[knights];
+            fromCol = new double[knights];
+            slideStart = new long[knights];
+            Arrays.fill(toSquare, -1);
+        }
+        int n = engine.getBoardSize();
+        boolean sliding = false;
+        boolean faded = false;
+        for (int k = 0; k < knights; k++) {
+            int sq = engine.getKnightSquare(k);
+            if (sq != toSquare[k]) {
+                int old = toSquare[k];
+                boolean slide = old >= 0 && sq >= 0
+                        // a leap across a joined edge would slide over the whole board: jump instead
+                        && engine.getPiece().isMove(sq / n - old / n, sq % n - old % n);
+                if (slide) {
+                    fromRow[k] = drawnRow(k, now, n);
+                    fromCol[k] = drawnCol(k, now, n);
+                    slideStart[k] = now;
+                } else {
+                    slideStart[k] = Long.MIN_VALUE;
+                }
+                if (old >= 0) {
+                    if (!faded) fadingCount = 0;
+                    faded = true;
+                    for (int t : engine.targets(old)) if (fadingCount < MAX_FADING) fading[fadingCount++] = t;
+                }
+                toSquare[k] = sq;
+            }
+            sliding |= slideStart[k] != Long.MIN_VALUE && now - slideStart[k] < SLIDE_NANOS;
+        }
+        if (faded) fadeStart = now;
+        return sliding;
+    }
+
+    private double progress(int k, long now) {
+        if (slideStart[k] == Long.MIN_VALUE) return 1;
+        double t = Math.min(1, (now - slideStart[k]) / (double) SLIDE_NANOS);
+        return 1 - (1 - t) * (1 - t) * (1 - t); // ease out
+    }
+
+    private double drawnRow(int k, long now, int n) {
+        double t = progress(k, now);
+        return fromRow[k] + (toSquare[k] / n - fromRow[k]) * t;
+    }
+
+    private double drawnCol(int k, long now, int n) {
+        double t = progress(k, now);
+        return fromCol[k] + (toSquare[k] % n - fromCol[k]) * t;
+    }
+
+    // =========================================================
+    // Drawing
+    // =========================================================
+    private void paint(long now) {
+        GraphicsContext g = layer.getGraphicsContext2D();
+        g.clearRect(0, 0, layer.getWidth(), layer.getHeight());
+        TourEngine engine = shown.get();
+        if (toSquare.length != engine.getKnightCount()) return;
+        int n = engine.getBoardSize();
+        double s = view.scale(), ox = view.offsetX(), oy = view.offsetY();
+
+        // Targets that were just left, fading out
+        if (fadingCount > 0 && now - fadeStart < FADE_NANOS) {
+            g.setGlobalAlpha(0.6 * (1 - (now - fadeStart) / (double) FADE_NANOS));
+            g.setFill(fadeColor);
+            for (int i = 0; i < fadingCount; i++) {
+                int t = fading[i];
+                if (!engine.canMoveTo(t / n, t % n)) g.fillRect((t % n) * s - ox, (t / n) * s - oy, s, s);
+            }
+            g.setGlobalAlpha(1);
+        }
+
+        // Trails: the last moves of each piece, fainter with age, ending at the glyph
+        g.setStroke(trailColor);
+        g.setLineWidth(Math.max(1.5, s * 0.08));
+        g.setLineCap(StrokeLineCap.ROUND);
+        int knights = toSquare.length;
+        for (int k = 0; k < knights; k++) {
+            if (toSquare[k] < 0) continue;
+            double headRow = drawnRow(k, now, n), headCol = drawnCol(k, now, n);
+            int seen = 0, prev = toSquare[k];
+            double x1 = headCol * s - ox + s / 2, y1 = headRow * s - oy + s / 2;
+            for (int i = engine.historySize() - 1, scanned = 0;
+                 i >= 0 && seen < TRAIL_MOVES && scanned < TRAIL_MOVES * knights; i--, scanned++) {
+                if (engine.moverAt(i) != k) continue;
+                int sq = engine.historyAt(i);
+                if (sq == prev && seen == 0) continue; // the square being slid to
+                if (!engine.getPiece().isMove(prev / n - sq / n, prev % n - sq % n)) break;
+                double x0 = (sq % n) * s - ox + s / 2, y0 = (sq / n) * s - oy + s / 2;
+                g.setGlobalAlpha(0.55 * (1 - seen / (double) TRAIL_MOVES));
+                g.strokeLine(x0, y0, x1, y1);
+                x1 = x0;
+                y1 = y0;
+                prev = sq;
+                seen++;
+            }
+        }
+        g.setGlobalAlpha(1);
+
+        // Pieces
+        if (fontScale != s) {
+            fontScale = s;
+            glyphFont = Font.font("System", FontWeight.BOLD, s * 0.6);
+        }
+        g.setFont(glyphFont);
+        g.setFill(Color.WHITE);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        String symbol = engine.getPiece().symbol;
+        for (int k = 0; k < knights; k++) {
+            if (toSquare[k] < 0) continue;
+            g.fillText(symbol, drawnCol(k, now, n) * s - ox + s / 2, drawnRow(k, now, n) * s - oy + s / 2);
+        }
+    }
+}
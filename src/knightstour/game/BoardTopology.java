@@ -0,0 +1,266 @@
+package knightstour.game;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shape of a board: a boardSize x boardSize grid, optionally with blocked squares
+ * (holes and obstacles no piece may enter) and with its edges joined:
+ *   NONE     - the usual flat board;
+ *   CYLINDER - the left and right edges are joined (columns wrap);
+ *   TORUS    - both pairs of edges are joined (rows and columns wrap).
+ *
+ * Like {@link Leaper}, a topology answers everything from tables built once per
+ * piece: the targets of every square, and how many active squares each square can
+ * reach (the length of a complete tour from there). Engine, highlighting and solvers
+ * only ever read those tables, so an irregular board costs the same per move as a
+ * square one. Plain boards share the piece's own tables.
+ */
+public final class BoardTopology {
+
+    public enum Wrap { NONE, CYLINDER, TORUS }
+
+    private static final ConcurrentHashMap<Integer, BoardTopology> PLAIN = new ConcurrentHashMap<>();
+
+    public final int boardSize;
+    public final Wrap wrap;
+    private final boolean[] blocked;
+    private final int activeSquares;
+    private final String key;      // identifies the topology, e.g. for solver caches
+
+    private final ConcurrentHashMap<Leaper, int[][]> tables = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Leaper, Components> components = new ConcurrentHashMap<>();
+
+    /**
+     * Connected parts of a piece's move graph: each square's part (named by its lowest
+     * square) and the part's size; blocked squares are in none (-1, size 0)
+     */
+    private static final class Components {
+        final int[] root;
+        final int[] size;
+
+        Components(int[] root, int[] size) {
+            this.root = root;
+            this.size = size;
+        }
+    }
+
+    private BoardTopology(int boardSize, Wrap wrap, boolean[] blocked) {
+        this.boardSize = boardSize;
+        this.wrap = wrap;
+        this.blocked = blocked;
+        int active = 0;
+        StringBuilder sb = new StringBuilder().append(boardSize).append(wrap.name().charAt(0));
+        for (int sq = 0; sq < blocked.length; sq++) {
+            if (blocked[sq]) sb.append(',').append(sq);
+            else active++;
+        }
+        this.activeSquares = active;
+        this.key = sb.toString();
+    }
+
+    /**
+     * The plain square board of a size
+     */
+    public static BoardTopology plain(int boardSize) {
+        return PLAIN.computeIfAbsent(boardSize, n -> new BoardTopology(n, Wrap.NONE, new boolean[n * n]));
+    }
+
+    /**
+     * A board with wraparound and blocked squares (indices row * boardSize + col)
+     */
+    public static BoardTopology of(int boardSize, Wrap wrap, int... blockedSquares) {
+        boolean[] blocked = new boolean[boardSize * boardSize];
+        for (int sq : blockedSquares) {
+            if (sq < 0 || sq >= blocked.length) {
+                throw new IllegalArgumentException("Blocked square " + sq + " is off a " + boardSize + "x" + boardSize + " board");
+            }
+            blocked[sq] = true;
+        }
+        if (wrap == Wrap.NONE && blockedSquares.length == 0) return plain(boardSize);
+        return new BoardTopology(boardSize, wrap, blocked);
+    }
+
+    /**
+     * Parse a level's board spec: ';'-separated parts, each "plane", "cylinder",
+     * "torus" or "blocked=r:c,r:c,...". An empty spec is the plain board.
+     * @throws IllegalArgumentException if the spec is malformed
+     */
+    public static BoardTopology parse(int boardSize, String spec) {
+        Wrap wrap = Wrap.NONE;
+        int[] blocked = new int[0];
+        for (String part : spec.split(";")) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+            if (part.equals("plane")) {
+                wrap = Wrap.NONE;
+            } else if (part.equals("cylinder")) {
+                wrap = Wrap.CYLINDER;
+            } else if (part.equals("torus")) {
+                wrap = Wrap.TORUS;
+            } else if (part.startsWith("blocked=")) {
+                String[] cells = part.substring("blocked=".length()).split(",");
+                blocked = new int[cells.length];
+                for (int i = 0; i < cells.length; i++) {
+                    String[] rc = cells[i].trim().split(":");
+                    if (rc.length != 2) throw new IllegalArgumentException("Expected row:col, got " + cells[i]);
+                    try {
+                        int r = Integer.parseInt(rc[0].trim()), c = Integer.parseInt(rc[1].trim());
+                        if (r < 0 || r >= boardSize || c < 0 || c >= boardSize) {
+                            throw new IllegalArgumentException("Blocked square " + cells[i].trim() + " is off the board");
+                        }
+                        blocked[i] = r * boardSize + c;
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Expected row:col, got " + cells[i], e);
+                    }
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown board spec part: " + part);
+            }
+        }
+        return of(boardSize, wrap, blocked);
+    }
+
+    public boolean isPlain() {
+        return wrap == Wrap.NONE && activeSquares == blocked.length;
+    }
+
+    public boolean isActive(int square) {
+        return !blocked[square];
+    }
+
+    public int activeSquares() {
+        return activeSquares;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Square a leap of (dr, dc) from a square lands on, or -1 if it leaves the board or is blocked
+     */
+    public int target(int square, int dr, int dc) {
+        int r = square / boardSize + dr, c = square % boardSize + dc;
+        if (wrap != Wrap.NONE) c = Math.floorMod(c, boardSize);
+        if (wrap == Wrap.TORUS) r = Math.floorMod(r, boardSize);
+        if (r < 0 || r >= boardSize || c < 0 || c >= boardSize) return -1;
+        int t = r * boardSize + c;
+        return blocked[t] ? -1 : t;
+    }
+
+    /**
+     * Targets of every square for a piece (shared; do not modify). Blocked squares have none.
+     */
+    public int[][] moveTable(Leaper piece) {
+        if (isPlain()) return piece.moveTable(boardSize);
+        int[][] table = tables.get(piece);
+        return table != null ? table : tables.computeIfAbsent(piece, this::buildTable);
+    }
+
+    private int[][] buildTable(Leaper piece) {
+        int squares = boardSize * boardSize;
+        int[][] deltas = piece.deltas();
+        int[][] table = new int[squares][];
+        int[] buf = new int[deltas.length];
+        for (int sq = 0; sq < squares; sq++) {
+            int n = 0;
+            if (!blocked[sq]) {
+                for (int[] d : deltas) {
+                    int t = target(sq, d[0], d[1]);
+                    // On small wrapped boards two leaps can land on the same square
+                    if (t >= 0 && t != sq && !contains(buf, n, t)) buf[n++] = t;
+                }
+            }
+            table[sq] = Arrays.copyOf(buf, n);
+        }
+        return table;
+    }
+
+    /**
+     * Whether the piece can go from one square to the other in one move
+     */
+    public boolean isMove(Leaper piece, int from, int to) {
+        if (isPlain()) {
+            return piece.isMove(to / boardSize - from / boardSize, to % boardSize - from % boardSize);
+        }
+        int[] targets = moveTable(piece)[from];
+        return contains(targets, targets.length, to);
+    }
+
+    /**
+     * Active squares the piece can reach from a square, itself included (0 for a blocked square)
+     */
+    public int reachable(Leaper piece, int square) {
+        return components(piece).size[square];
+    }
+
+    /**
+     * Which part of the board a square is in for a piece: two squares have the same
+     * component exactly when the piece can get from one to the other (-1 for a blocked square)
+     */
+    public int component(Leaper piece, int square) {
+        return components(piece).root[square];
+    }
+
+    private Components components(Leaper piece) {
+        Components known = components.get(piece); // plain get first: computeIfAbsent allocates its lambda
+        return known != null ? known : components.computeIfAbsent(piece, this::buildComponents);
+    }
+
+    /**
+     * Whether the piece can reach every active square from every other
+     */
+    public boolean isConnected(Leaper piece) {
+        for (int sq = 0; sq < blocked.length; sq++) {
+            if (!blocked[sq]) return reachable(piece, sq) == activeSquares;
+        }
+        return false;
+    }
+
+    private Components buildComponents(Leaper piece) {
+        int[][] table = moveTable(piece);
+        int squares = boardSize * boardSize;
+        int[] root = new int[squares];
+        int[] size = new int[squares];
+        Arrays.fill(root, -1);
+        int[] queue = new int[squares];
+        for (int s = 0; s < squares; s++) {
+            if (root[s] >= 0 || blocked[s]) continue;
+            int head = 0, tail = 0;
+            queue[tail++] = s;
+            root[s] = s;
+            while (head < tail) {
+                for (int t : table[queue[head++]]) {
+                    if (root[t] < 0) {
+                        root[t] = s;
+                        queue[tail++] = t;
+                    }
+                }
+            }
+            size[s] = tail;
+        }
+        int[] sizes = new int[squares];
+        for (int s = 0; s < squares; s++) sizes[s] = blocked[s] ? 0 : size[root[s]];
+        return new Components(root, sizes);
+    }
+
+    private static boolean contains(int[] a, int length, int v) {
+        for (int i = 0; i < length; i++) if (a[i] == v) return true;
+        return false;
+    }
+
+    /**
+     * Short description for the menu, e.g. "torus, 4 blocked"
+     */
+    public String describe() {
+        String shape = wrap == Wrap.NONE ? "flat" : wrap.name().toLowerCase();
+        int holes = blocked.length - activeSquares;
+        return holes == 0 ? shape : shape + ", " + holes + " blocked";
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
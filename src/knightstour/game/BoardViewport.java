@@ -0,0 +1,354 @@
+package knightstour.game;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.input.ZoomEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.function.Supplier;
+
+/**
+ * Board view for boards too large for the button grid: one canvas the size of the
+ * viewport that draws only the squares in view, with zoom (Ctrl+wheel, pinch),
+ * pan (drag, wheel) and a minimap of the whole board in the corner.
+ *
+ * Nothing is created per square: the canvas and the minimap image have a fixed size,
+ * so memory and drawing time follow the viewport, not the board. The minimap is kept
+ * up to date per move ({@link #moved}) and only rebuilt on {@link #refresh()}.
+ * The pieces are drawn by a {@link BoardAnimator} on a layer above the squares.
+ */
+public final class BoardViewport extends Region implements BoardAnimator.View {
+    private static final double MIN_SCALE = 6;     // pixels per square
+    private static final double MAX_SCALE = 96;
+    private static final int MINIMAP_PIXELS = 128; // minimap image side (at most one pixel per square)
+    private static final double MINIMAP_SIZE = 140;
+    private static final double MINIMAP_MARGIN = 10;
+    private static final double DRAG_SLOP = 4;     // pointer travel that turns a click into a pan
+    private static final Color CURSOR_COLOR = Color.web("#38BDF8");
+    private static final Color BLOCKED_COLOR = Color.web("#1F2937"); // holes and obstacles
+    private static final Color DEGREE_COLOR = Color.web("#111827");
+
+    private final int boardSize;
+    private final Supplier<TourEngine> shown;
+    private final InputPipeline input;
+    private final Color light, dark, target, current;
+
+    private final Canvas canvas = new Canvas();
+    private final Canvas animationLayer = new Canvas(); // pieces, slides and trails, above the squares
+    private final BoardAnimator animator;
+    private final Canvas minimap = new Canvas(MINIMAP_SIZE, MINIMAP_SIZE);
+    private final WritableImage minimapImage;
+    private final int blockSize;                   // board squares per minimap pixel (per side)
+
+    private double scale;
+    private Font dotFont;                          // sized for fontScale
+    private double fontScale = -1;
+    private double offsetX, offsetY;               // board pixel at the viewport's top-left corner
+    private int cursorRow = -1, cursorCol = -1;
+    private int followedSquare = -1;               // knight square the view last scrolled to
+    private boolean showDegrees;                   // onward degree on each unvisited square
+    private final CountText degreeText = new CountText("", 0, 16);
+
+    private double pressX, pressY, lastX, lastY;
+    private boolean dragging;
+
+    public BoardViewport(int boardSize, Supplier<TourEngine> shown, InputPipeline input,
+                         Color light, Color dark, Color target, Color current) {
+        this.boardSize = boardSize;
+        this.shown = shown;
+        this.input = input;
+        this.light = light;
+        this.dark = dark;
+        this.target = target;
+        this.current = current;
+        this.blockSize = (boardSize + MINIMAP_PIXELS - 1) / MINIMAP_PIXELS;
+        int pixels = (boardSize + blockSize - 1) / blockSize;
+        this.minimapImage = new WritableImage(pixels, pixels);
+
+        this.animator = new BoardAnimator(shown, animationLayer, this, current, target);
+        getChildren().addAll(canvas, animationLayer, minimap);
+        setPrefSize(640, 600);
+        setMinSize(200, 200);
+        scale = Math.max(24, Math.min(60, 600.0 / boardSize));
+
+        canvas.setOnMousePressed(this::pressed);
+        canvas.setOnMouseDragged(this::dragged);
+        canvas.setOnMouseReleased(this::released);
+        canvas.setOnScroll(this::scrolled);
+        canvas.setOnZoom(this::zoomed);
+        minimap.setOnMousePressed(this::minimapPointer);
+        minimap.setOnMouseDragged(this::minimapPointer);
+    }
+
+    // =========================================================
+    // Updates from the game
+    // =========================================================
+
+    /**
+     * The knight moved onto a square: patch the minimap and redraw the view
+     */
+    public void moved() {
+        TourEngine engine = shown.get();
+        if (engine.hasStarted()) markVisited(engine.getCurrentRow(), engine.getCurrentCol());
+        draw();
+        animator.changed();
+    }
+
+    /**
+     * The position changed in some other way (undo, replay seek, new game): rebuild everything
+     */
+    public void refresh() {
+        rebuildMinimap();
+        draw();
+        animator.changed();
+    }
+
+    /**
+     * Show or hide the onward degree of every unvisited square
+     */
+    public void setShowDegrees(boolean show) {
+        showDegrees = show;
+        draw();
+    }
+
+    /**
+     * Animations of this view's pieces (driven by the game like the button grid's)
+     */
+    public BoardAnimator animator() {
+        return animator;
+    }
+
+    @Override public double scale() { return scale; }
+    @Override public double offsetX() { return offsetX; }
+    @Override public double offsetY() { return offsetY; }
+
+    /**
+     * Keyboard cursor square, or (-1, -1) to hide it
+     */
+    public void setCursor(int row, int col) {
+        cursorRow = row;
+        cursorCol = col;
+        if (row >= 0) scrollIntoView(row, col);
+        draw();
+    }
+
+    // =========================================================
+    // Drawing
+    // =========================================================
+    @Override
+    protected void layoutChildren() {
+        double w = getWidth(), h = getHeight();
+        if (canvas.getWidth() != w || canvas.getHeight() != h) {
+            canvas.setWidth(w);
+            canvas.setHeight(h);
+            animationLayer.setWidth(w);
+            animationLayer.setHeight(h);
+            followedSquare = -1; // bring the knight back into view at the new size
+            clampOffset();
+            draw();
+        }
+        minimap.relocate(w - MINIMAP_SIZE - MINIMAP_MARGIN, h - MINIMAP_SIZE - MINIMAP_MARGIN);
+    }
+
+    private void draw() {
+        long t0 = PerfStats.start();
+        TourEngine engine = shown.get();
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        double w = canvas.getWidth(), h = canvas.getHeight();
+        g.clearRect(0, 0, w, h);
+
+        int kr = engine.getCurrentRow(), kc = engine.getCurrentCol();
+        if (kr >= 0 && kr * boardSize + kc != followedSquare) {
+            followedSquare = kr * boardSize + kc;
+            scrollIntoView(kr, kc);
+        }
+
+        // Only the squares that intersect the viewport
+        int r0 = Math.max(0, (int) (offsetY / scale)), r1 = Math.min(boardSize - 1, (int) ((offsetY + h) / scale));
+        int c0 = Math.max(0, (int) (offsetX / scale)), c1 = Math.min(boardSize - 1, (int) ((offsetX + w) / scale));
+        boolean marks = scale >= 12;
+        if (fontScale != scale) {
+            fontScale = scale;
+            dotFont = Font.font(scale * 0.3);
+        }
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        g.setFont(dotFont);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                double x = c * scale - offsetX, y = r * scale - offsetY;
+                if (!engine.isActive(r, c)) {
+                    g.setFill(BLOCKED_COLOR);
+                    g.fillRect(x, y, scale, scale);
+                    continue;
+                }
+                boolean isCurrent = engine.isKnightAt(r, c);
+                boolean isTarget = engine.canMoveTo(r, c);
+                g.setFill(isCurrent ? current : isTarget ? target : (r + c) % 2 == 0 ? light : dark);
+                g.fillRect(x, y, scale, scale);
+                if (marks && engine.isVisited(r, c) && !isCurrent) {
+                    g.setFill(Color.WHITE);
+                    g.fillText("•", x + scale / 2, y + scale / 2);
+                } else if (marks && showDegrees && !isCurrent) {
+                    g.setFill(DEGREE_COLOR);
+                    g.fillText(degreeText.of(engine.onwardDegree(r * boardSize + c)), x + scale / 2, y + scale / 2);
+                }
+            }
+        }
+        if (cursorRow >= 0) {
+            g.setStroke(CURSOR_COLOR);
+            g.setLineWidth(3);
+            g.strokeRect(cursorCol * scale - offsetX + 3, cursorRow * scale - offsetY + 3, scale - 6, scale - 6);
+        }
+        drawMinimap();
+        animator.repaint(); // the view may have moved under the pieces
+        PerfStats.stop(PerfStats.Section.REFRESH_HIGHLIGHTS, t0);
+    }
+
+    private void drawMinimap() {
+        double w = canvas.getWidth(), h = canvas.getHeight();
+        boolean fits = boardSize * scale <= w && boardSize * scale <= h;
+        minimap.setVisible(!fits);
+        if (fits) return;
+
+        GraphicsContext g = minimap.getGraphicsContext2D();
+        g.setImageSmoothing(false);
+        g.clearRect(0, 0, MINIMAP_SIZE, MINIMAP_SIZE);
+        g.setGlobalAlpha(0.85);
+        g.drawImage(minimapImage, 0, 0, MINIMAP_SIZE, MINIMAP_SIZE);
+        g.setGlobalAlpha(1);
+
+        double k = MINIMAP_SIZE / (boardSize * scale);
+        g.setStroke(CURSOR_COLOR);
+        g.setLineWidth(1.5);
+        g.strokeRect(offsetX * k, offsetY * k, Math.min(w, boardSize * scale) * k, Math.min(h, boardSize * scale) * k);
+
+        TourEngine engine = shown.get();
+        double cell = MINIMAP_SIZE / boardSize;
+        g.setFill(current);
+        for (int i = 0; i < engine.getKnightCount(); i++) {
+            int sq = engine.getKnightSquare(i);
+            if (sq >= 0) g.fillOval((sq % boardSize + 0.5) * cell - 3, (sq / boardSize + 0.5) * cell - 3, 6, 6);
+        }
+    }
+
+    private void rebuildMinimap() {
+        TourEngine engine = shown.get();
+        PixelWriter pw = minimapImage.getPixelWriter();
+        int pixels = (int) minimapImage.getWidth();
+        for (int py = 0; py < pixels; py++) {
+            for (int px = 0; px < pixels; px++) {
+                boolean visited = false;
+                for (int r = py * blockSize; r < Math.min(boardSize, (py + 1) * blockSize) && !visited; r++) {
+                    for (int c = px * blockSize; c < Math.min(boardSize, (px + 1) * blockSize) && !visited; c++) {
+                        visited = engine.isVisited(r, c);
+                    }
+                }
+                pw.setColor(px, py, visited ? target : (px + py) % 2 == 0 ? light : dark);
+            }
+        }
+    }
+
+    private void markVisited(int row, int col) {
+        minimapImage.getPixelWriter().setColor(col / blockSize, row / blockSize, target);
+    }
+
+    // =========================================================
+    // Zoom and pan
+    // =========================================================
+    private void zoomAt(double factor, double x, double y) {
+        double next = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        // Keep the board point under the pointer where it is
+        offsetX = (offsetX + x) * next / scale - x;
+        offsetY = (offsetY + y) * next / scale - y;
+        scale = next;
+        clampOffset();
+        draw();
+    }
+
+    private void panBy(double dx, double dy) {
+        offsetX -= dx;
+        offsetY -= dy;
+        clampOffset();
+        draw();
+    }
+
+    private void clampOffset() {
+        double extent = boardSize * scale;
+        double w = canvas.getWidth(), h = canvas.getHeight();
+        // A board smaller than the view is centred; a larger one can't be dragged off screen
+        offsetX = extent <= w ? (extent - w) / 2 : Math.max(0, Math.min(extent - w, offsetX));
+        offsetY = extent <= h ? (extent - h) / 2 : Math.max(0, Math.min(extent - h, offsetY));
+    }
+
+    private void scrollIntoView(int row, int col) {
+        double x = col * scale - offsetX, y = row * scale - offsetY;
+        double w = canvas.getWidth(), h = canvas.getHeight();
+        if (x >= 0 && y >= 0 && x + scale <= w && y + scale <= h) return;
+        offsetX = (col + 0.5) * scale - w / 2;
+        offsetY = (row + 0.5) * scale - h / 2;
+        clampOffset();
+    }
+
+    // =========================================================
+    // Pointer input
+    // =========================================================
+    private void pressed(MouseEvent e) {
+        pressX = lastX = e.getX();
+        pressY = lastY = e.getY();
+        dragging = false;
+    }
+
+    private void dragged(MouseEvent e) {
+        if (!dragging && Math.hypot(e.getX() - pressX, e.getY() - pressY) > DRAG_SLOP) dragging = true;
+        if (dragging) panBy(e.getX() - lastX, e.getY() - lastY);
+        lastX = e.getX();
+        lastY = e.getY();
+    }
+
+    private void released(MouseEvent e) {
+        if (dragging || e.getButton() != MouseButton.PRIMARY) return;
+        double bx = e.getX() + offsetX, by = e.getY() + offsetY;
+        if (e.isSynthesized()) {
+            // A tap: let the pipeline forgive a near miss
+            input.touch(bx, by, scale);
+        } else {
+            int row = (int) Math.floor(by / scale), col = (int) Math.floor(bx / scale);
+            if (row >= 0 && row < boardSize && col >= 0 && col < boardSize) {
+                input.square(InputPipeline.Source.MOUSE, row, col);
+            }
+        }
+    }
+
+    private void scrolled(ScrollEvent e) {
+        if (e.getTouchCount() == 0 && e.isShortcutDown()) {
+            zoomAt(e.getDeltaY() > 0 ? 1.15 : 1 / 1.15, e.getX(), e.getY());
+        } else {
+            panBy(e.getDeltaX(), e.getDeltaY());
+        }
+        e.consume();
+    }
+
+    private void zoomed(ZoomEvent e) {
+        zoomAt(e.getZoomFactor(), e.getX(), e.getY());
+        e.consume();
+    }
+
+    private void minimapPointer(MouseEvent e) {
+        double k = boardSize * scale / MINIMAP_SIZE;
+        offsetX = e.getX() * k - canvas.getWidth() / 2;
+        offsetY = e.getY() * k - canvas.getHeight() / 2;
+        clampOffset();
+        draw();
+        e.consume();
+    }
+}
@@ -0,0 +1,351 @@
+package knightstour.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Pits move-choosing policies against each other to pick a hint strategy. Every
+ * policy plays the same seeded start squares on every level, scored by the level's
+ * own rules; a bot plays fresh squares until it is stuck (a revisit only costs points).
+ *
+ * Each start square is a round: every pair of policies that played it is a match,
+ * won by the one that completed the tour, or else scored more. Matches update
+ * Elo-style ratings. Games run in parallel on all cores; ratings are applied
+ * afterwards in a fixed order, so a seed always gives the same table.
+ *
+ * Usage: java -cp out knightstour.game.BotTournament [startsPerLevel] [seed] [policy,policy,...]
+ */
+public final class BotTournament {
+    private static final double START_RATING = 1500;
+    private static final double K_FACTOR = 16;
+    private static final long SEARCH_BUDGET = 200_000; // nodes for the search policy's plan
+
+    /**
+     * One game's worth of move choices
+     */
+    public interface Bot {
+        /** @return the square to play next, or -1 to stop */
+        int next(TourEngine engine);
+    }
+
+    /**
+     * A way of choosing moves; makes a fresh {@link Bot} for every game
+     */
+    public interface Policy {
+        String name();
+        Bot start(Level level, Random rnd);
+    }
+
+    // =========================================================
+    // Policies
+    // =========================================================
+
+    /**
+     * Any fresh square at random
+     */
+    public static Policy random() {
+        return policy("random", (level, rnd) -> engine -> {
+            int[] fresh = freshTargets(engine);
+            return fresh.length == 0 ? -1 : fresh[rnd.nextInt(fresh.length)];
+        });
+    }
+
+    /**
+     * Warnsdorff: the fresh square with the fewest onward moves; ties go to the first
+     * in move order, to a random one, or to the one farthest from the centre
+     */
+    public static Policy warnsdorff(String tieBreak) {
+        return policy("warnsdorff-" + tieBreak, (level, rnd) -> engine -> {
+            int n = engine.getBoardSize();
+            int best = -1;
+            double bestKey = Double.MAX_VALUE;
+            for (int t : freshTargets(engine)) {
+                double tie;
+                switch (tieBreak) {
+                    case "first": tie = 0; break;
+                    case "random": tie = rnd.nextDouble(); break;
+                    case "edge": tie = 1 - centreDistance(t, n) / n; break;
+                    default: throw new IllegalArgumentException("Unknown tie-break " + tieBreak);
+                }
+                double key = engine.onwardDegree(t) + tie * 0.5;
+                if (key < bestKey) {
+                    bestKey = key;
+                    best = t;
+                }
+            }
+            return best;
+        });
+    }
+
+    /**
+     * Looks k moves ahead: prefers squares from which k more fresh moves can still be
+     * made, then Warnsdorff order with random ties
+     */
+    public static Policy lookahead(int depth) {
+        return policy("lookahead-" + depth, (level, rnd) -> engine -> {
+            int squares = engine.getBoardSize() * engine.getBoardSize();
+            boolean[] visited = new boolean[squares];
+            for (int sq = 0; sq < squares; sq++) {
+                visited[sq] = !engine.getTopology().isActive(sq) || engine.isVisited(sq / engine.getBoardSize(), sq % engine.getBoardSize());
+            }
+            int best = -1;
+            double bestKey = Double.MAX_VALUE;
+            for (int t : freshTargets(engine)) {
+                visited[t] = true;
+                int reach = deepest(engine, visited, t, depth);
+                visited[t] = false;
+                double key = (depth - reach) * 100 + engine.onwardDegree(t) + rnd.nextDouble() * 0.5;
+                if (key < bestKey) {
+                    bestKey = key;
+                    best = t;
+                }
+            }
+            return best;
+        });
+    }
+
+    /**
+     * Plans a whole tour with {@link TourSolver} once the piece is placed and follows
+     * it; plays Warnsdorff if no tour turns up within the budget
+     */
+    public static Policy search() {
+        Policy fallback = warnsdorff("random");
+        return policy("search", (level, rnd) -> {
+            Bot warnsdorff = fallback.start(level, rnd);
+            return new Bot() {
+                int[] plan;
+                int step;
+
+                @Override
+                public int next(TourEngine engine) {
+                    if (plan == null) {
+                        int[] start = {engine.getMoverSquare()};
+                        plan = TourSolver.forTopology(level.topology, level.piece).completion(start, 1, SEARCH_BUDGET);
+                        if (plan == null) plan = new int[0];
+                    }
+                    return step < plan.length ? plan[step++] : warnsdorff.next(engine);
+                }
+            };
+        });
+    }
+
+    public static List<Policy> defaultPolicies() {
+        return List.of(random(), warnsdorff("first"), warnsdorff("random"), warnsdorff("edge"),
+                lookahead(2), lookahead(4), search());
+    }
+
+    public static Policy byName(String name) {
+        if (name.equals("random")) return random();
+        if (name.equals("search")) return search();
+        if (name.startsWith("warnsdorff-")) return warnsdorff(name.substring("warnsdorff-".length()));
+        if (name.startsWith("lookahead-")) return lookahead(Integer.parseInt(name.substring("lookahead-".length())));
+        throw new IllegalArgumentException("Unknown policy: " + name);
+    }
+
+    private interface Starter {
+        Bot start(Level level, Random rnd);
+    }
+
+    private static Policy policy(String name, Starter starter) {
+        return new Policy() {
+            @Override public String name() { return name; }
+            @Override public Bot start(Level level, Random rnd) { return starter.start(level, rnd); }
+        };
+    }
+
+    private static int[] freshTargets(TourEngine engine) {
+        int n = engine.getBoardSize();
+        int[] targets = engine.targets(engine.getMoverSquare());
+        int[] fresh = new int[targets.length];
+        int count = 0;
+        for (int t : targets) if (!engine.isVisited(t / n, t % n)) fresh[count++] = t;
+        return Arrays.copyOf(fresh, count);
+    }
+
+    private static double centreDistance(int square, int n) {
+        double c = (n - 1) / 2.0;
+        return Math.hypot(square / n - c, square % n - c);
+    }
+
+    /** Longest run of fresh moves from a square, up to a depth */
+    private static int deepest(TourEngine engine, boolean[] visited, int from, int depth) {
+        if (depth == 0) return 0;
+        int best = 0;
+        for (int t : engine.targets(from)) {
+            if (visited[t]) continue;
+            visited[t] = true;
+            best = Math.max(best, 1 + deepest(engine, visited, t, depth - 1));
+            visited[t] = false;
+            if (best == depth) break;
+        }
+        return best;
+    }
+
+    // =========================================================
+    // Tournament
+    // =========================================================
+
+    /**
+     * Outcome of one game
+     */
+    static final class Game {
+        final int score;
+        final int squares;       // squares visited
+        final boolean complete;
+        final long nanos;
+
+        Game(int score, int squares, boolean complete, long nanos) {
+            this.score = score;
+            this.squares = squares;
+            this.complete = complete;
+            this.nanos = nanos;
+        }
+
+        /** 1 if this game beats the other, 0.5 for a draw, 0 if it loses */
+        double against(Game other) {
+            if (complete != other.complete) return complete ? 1 : 0;
+            if (score != other.score) return score > other.score ? 1 : 0;
+            return 0.5;
+        }
+    }
+
+    /**
+     * Per-policy results: totals over all levels and per level
+     */
+    public static final class Standing {
+        public final String policy;
+        public double rating = START_RATING;
+        public int wins, draws, losses;
+        final int[] games, completed;
+        final long[] score;
+        long nanos;
+
+        Standing(String policy, int levels) {
+            this.policy = policy;
+            this.games = new int[levels];
+            this.completed = new int[levels];
+            this.score = new long[levels];
+        }
+
+        public double completionRate(int level) {
+            return games[level] == 0 ? 0 : completed[level] / (double) games[level];
+        }
+
+        public double meanScore(int level) {
+            return games[level] == 0 ? 0 : score[level] / (double) games[level];
+        }
+    }
+
+    private final Level[] levels;
+    private final List<Policy> policies;
+
+    public BotTournament(Level[] levels, List<Policy> policies) {
+        this.levels = levels;
+        this.policies = policies;
+    }
+
+    /**
+     * Play every policy from startsPerLevel seeded start squares on every level
+     * @return standings, best rating first
+     */
+    public List<Standing> run(int startsPerLevel, long seed) {
+        int p = policies.size();
+        int rounds = levels.length * startsPerLevel;
+        Game[] games = IntStream.range(0, rounds * p).parallel()
+                .mapToObj(g -> play(g / p / startsPerLevel, g / p, g % p, seed))
+                .toArray(Game[]::new);
+
+        List<Standing> standings = new ArrayList<>();
+        for (Policy policy : policies) standings.add(new Standing(policy.name(), levels.length));
+        for (int round = 0; round < rounds; round++) {
+            int level = round / startsPerLevel;
+            for (int i = 0; i < p; i++) {
+                Game g = games[round * p + i];
+                Standing s = standings.get(i);
+                s.games[level]++;
+                if (g.complete) s.completed[level]++;
+                s.score[level] += g.score;
+                s.nanos += g.nanos;
+            }
+            for (int i = 0; i < p; i++) {
+                for (int j = i + 1; j < p; j++) {
+                    rate(standings.get(i), standings.get(j), games[round * p + i].against(games[round * p + j]));
+                }
+            }
+        }
+        standings.sort((a, b) -> Double.compare(b.rating, a.rating));
+        return standings;
+    }
+
+    private Game play(int levelIndex, int round, int policyIndex, long seed) {
+        Level level = levels[levelIndex];
+        int n = level.boardSize;
+        // Same start square for every policy in a round; each policy its own random stream
+        Random startRnd = new Random(seed * 1_000_003L + round);
+        int start;
+        do {
+            start = startRnd.nextInt(n * n);
+        } while (!level.topology.isActive(start));
+        Random rnd = new Random(seed * 1_000_003L + round * 31L + policyIndex);
+
+        long t0 = System.nanoTime();
+        TourEngine engine = new TourEngine(level);
+        engine.play(start / n, start % n);
+        Bot bot = policies.get(policyIndex).start(level, rnd);
+        for (int sq; (sq = bot.next(engine)) >= 0; ) {
+            if (engine.play(sq / n, sq % n) == TourEngine.MoveResult.ILLEGAL) {
+                throw new IllegalStateException(policies.get(policyIndex).name() + " played an illegal move");
+            }
+        }
+        return new Game(engine.getScore(), engine.visitedCount(), engine.isTourComplete(), System.nanoTime() - t0);
+    }
+
+    private static void rate(Standing a, Standing b, double resultA) {
+        double expectedA = 1 / (1 + Math.pow(10, (b.rating - a.rating) / 400));
+        a.rating += K_FACTOR * (resultA - expectedA);
+        b.rating -= K_FACTOR * (resultA - expectedA);
+        if (resultA == 1) {
+            a.wins++;
+            b.losses++;
+        } else if (resultA == 0) {
+            a.losses++;
+            b.wins++;
+        } else {
+            a.draws++;
+            b.draws++;
+        }
+    }
+
+    public static void main(String[] args) {
+        int starts = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        List<Policy> policies = defaultPolicies();
+        if (args.length > 2) {
+            policies = new ArrayList<>();
+            for (String name : args[2].split(",")) policies.add(byName(name.trim()));
+        }
+        Level[] levels = Level.defaults();
+
+        long t0 = System.nanoTime();
+        List<Standing> standings = new BotTournament(levels, policies).run(starts, seed);
+        System.out.printf("%d policies, %d start squares on each of %d levels, %d ms%n%n",
+                policies.size(), starts, levels.length, (System.nanoTime() - t0) / 1_000_000);
+
+        StringBuilder header = new StringBuilder(String.format("%-18s %6s %11s", "policy", "Elo", "W/D/L"));
+        for (Level level : levels) header.append(String.format("  %-22s", level.name + " done/score"));
+        System.out.println(header.append("  ms/game"));
+        for (Standing s : standings) {
+            StringBuilder row = new StringBuilder(String.format("%-18s %6.0f %11s", s.policy, s.rating,
+                    s.wins + "/" + s.draws + "/" + s.losses));
+            int games = 0;
+            for (int l = 0; l < levels.length; l++) {
+                row.append(String.format("  %5.1f%% %-15.1f", 100 * s.completionRate(l), s.meanScore(l)));
+                games += s.games[l];
+            }
+            System.out.println(row.append(String.format("  %.2f", s.nanos / 1e6 / Math.max(1, games))));
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package knightstour.game;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -9,15 +13,24 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
+import javafx.scene.control.Slider;
+import javafx.scene.control.TextInputDialog;
 import javafx.scene.control.Tooltip;
 import javafx.scene.effect.BoxBlur;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.TouchEvent;
+import javafx.scene.input.TouchPoint;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.CycleMethod;
@@ -27,9 +40,15 @@ import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.TextAlignment;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
-import java.util.Stack;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Knight's Tour Game (JavaFX)
@@ -49,22 +68,41 @@ public class ChessBoardKnight extends Application {
     // -------------------------
     // Levels (unchanged model)
     // -------------------------
-    private final Level[] levels = {
-            new Level("Easy (6x6)", 6, 10, 10, 5),
-            new Level("Classic (8x8)", 8, 10, 10, 5),
-            new Level("Hard (10x10)", 10, 15, 15, 10)
-    };
+    private final Level[] levels = Level.defaults();
     private Level currentLevel = levels[1]; // default Classic
 
     // -------------------------
     // Game configuration
     // -------------------------
     private static final int SQUARE_SIZE = 60;
+    private static final int MAX_GRID_BOARD = 11;   // larger boards use the virtualized BoardViewport
+    private static final int MIN_CUSTOM_BOARD = 5;  // smallest size with a knight's tour
+    private static final int MAX_CUSTOM_BOARD = 180; // 32,400 squares
     private static final int KNIGHT_ICON_SIZE = 50; // Font size for knight piece
     private static final Color LIGHT_COLOR = Color.web("#E5E7EB"); // light gray
     private static final Color DARK_COLOR  = Color.web("#9CA3AF"); // darker gray
     private static final Color MOVE_HIGHLIGHT = Color.web("#34D399"); // green
     private static final Color START_COLOR    = Color.web("#F59E0B"); // amber
+    private static final Color FATAL_COLOR    = Color.web("#EF4444"); // red
+    private static final Color UNKNOWN_COLOR  = Color.web("#6B7280"); // slate
+    private static final Color BLOCKED_COLOR  = Color.web("#1F2937"); // holes and obstacles
+    private static final Color DEGREE_COLOR   = Color.web("#111827"); // onward-degree overlay text
+    private static final int REVIEW_SQUARE_SIZE = 34;
+    private static final long DEAD_END_BUDGET = 200_000; // solver nodes for the live dead-end check
+
+    // Square styles and status texts are built once, so a move doesn't allocate strings
+    private static final int SQUARE_PLAIN = 0;
+    private static final int SQUARE_TARGET = 1;   // legal next move
+    private static final int SQUARE_CURRENT = 2;  // knight's square
+    private static final int SQUARE_BLOCKED = 3;  // hole or obstacle
+    private static final String[] SQUARE_STYLES = buildSquareStyles();
+    // Ranges cover a tour of the largest custom board (Classic scoring) with revisits and undos to spare
+    private static final int MAX_CUSTOM_SQUARES = MAX_CUSTOM_BOARD * MAX_CUSTOM_BOARD;
+    private static final CountText SCORE_TEXT = new CountText("Score: ", -16 * MAX_CUSTOM_SQUARES, 16 * MAX_CUSTOM_SQUARES);
+    private static final CountText MOVES_TEXT = new CountText("Moves: ", 0, 4 * MAX_CUSTOM_SQUARES);
+    private static final double REPLAY_STEP_MS = 400; // one move per step at 1x
+    private static final Double[] REPLAY_SPEEDS = {0.5, 1.0, 2.0, 4.0, 8.0};
+    static final String FIRST_FRAME_MARKER = "knightstour.firstFrameMs=";
 
     // -------------------------
     // UI fields
@@ -74,19 +112,61 @@ public class ChessBoardKnight extends Application {
     private Scene gameScene;
 
     private VBox gameRoot;         // contains controls + board
-    private GridPane boardPane;    // the board grid
+    private Region boardPane;      // the board grid, or the viewport for large boards
     private StackPane boardFrame;  // NEW: wrapper for the board (lets us style a card over the pattern)
 
-    private Button[][] squares;    // buttons per square
+    private Button[][] squares;    // buttons per square (null when the viewport is used)
+    private BoardViewport viewport; // large boards: canvas view with zoom, pan and minimap
+    private BoardAnimator animator; // knight slides, target fades and trails on the board
 
     private Label scoreLabel;
     private Label moveCountLabel;
     private Label winLabel;
+    private Label puzzleLabel;             // daily challenge instructions
+    private Label deadEndLabel;            // shown with the Degrees overlay once no full tour is left
     private Button undoButton;
+    private InputPipeline input;      // mouse / keyboard / touch moves, applied in order once per pulse
+    private Rectangle cursorMarker;   // keyboard selection on the board
+    private MoveClock clock;          // think time per move and total time of the live game
+    private boolean timedMode;        // show the clock and keep fastest-tour records
+    private int knightCount = 1;      // pieces sharing the board (cooperative mode when > 1)
+    private boolean freeTurns;        // cooperative pieces move in any order
+    private Label timeLabel;
+    private Timeline clockTimeline;   // refreshes timeLabel while a timed game runs
+    private long shownClockTenths = -1;
+    private Button replayButton;
+    private HBox gameControls;
+    private PerfOverlay perfOverlay;
+    private boolean showDegrees;      // onward degree printed on every unvisited square
+    private final CountText degreeText = new CountText("", 0, 16);
+    private RenderProfile renderProfile = RenderProfile.fromSystemProperty();
+    private Rectangle menuGradient;   // menu effects, restyled when the render profile changes
+    private Rectangle menuGlass;
+    private StackPane menuCardHolder;
+    private ImageView menuBackground;
+    private Region frameCard;         // board frame's card and shadow (own node so it can be cached)
+
+    // Replay fields
+    private HBox replayControls;
+    private Button replayPlayButton;
+    private Slider replaySlider;
+    private ComboBox<Double> replaySpeedSelector;
+    private Label replayPositionLabel;
+    private ReplayPlayer replayPlayer;      // non-null while a replay is showing
+    private Timeline replayTimeline;
+    private boolean replayFromMenu;
+    private String liveWinText = "";        // win banner of the live game, restored after a replay
+    private boolean updatingReplaySlider;   // suppresses seeks while we move the slider ourselves
+    private MoveRecording lastRecording;    // last game left via "Back to Menu"
 
     // Menu fields
     private ComboBox<Level> menuLevelSelector;
     private Label levelDetails;
+    private Button menuReplayButton;
+
+    // Daily challenge
+    private PuzzlePack puzzlePack;          // loaded on first use
+    private Puzzle activePuzzle;            // non-null while playing a daily challenge
 
     // High score management
     private HighScoreManager highScoreManager;
@@ -94,25 +174,22 @@ public class ChessBoardKnight extends Application {
     // Sound effects
     private SoundManager soundManager;
 
+    // Moves, undos and game ends, for the sound, score and telemetry subscribers
+    private final GameEventBus events = new GameEventBus();
+    private int gameId;                     // bumped for every new game, carried by its events
+    private boolean gameEnded;              // the live game has published COMPLETED or ABANDONED
+
+    // Pattern images by board size (filled in the background at startup)
+    private final Map<Integer, Image> patternCache = new ConcurrentHashMap<>();
+
+    // Background work (analysis, saves, image loading)
+    private ComputeScheduler scheduler;
+
     // -------------------------
     // Game state
     // -------------------------
-    private int score = 0;
-    private int moveCount = 0;
-
+    private TourEngine engine;           // live game (rules, score, history), set up by resetGame
     private int boardSize;               // convenience from currentLevel
-    private boolean[][] visited;         // visited squares
-    private int currentRow = -1;         // knight position
-    private int currentCol = -1;
-    private final Stack<int[]> moveStack = new Stack<>(); // history of moves
-
-    // Knight move deltas
-    private static final int[][] KNIGHT_DELTAS = {
-            {-2, -1}, {-2, 1},
-            {-1, -2}, {-1, 2},
-            {1, -2},  {1, 2},
-            {2, -1},  {2, 1}
-    };
 
     // =========================================================
     // App start
@@ -120,18 +197,124 @@ public class ChessBoardKnight extends Application {
     @Override
     public void start(Stage primaryStage) {
         this.mainStage = primaryStage;
-        this.highScoreManager = new HighScoreManager();
-        this.soundManager = new SoundManager();
+        this.scheduler = new ComputeScheduler(ComputeScheduler.defaultThreads(), Platform::runLater);
+        this.highScoreManager = new HighScoreManager(); // menu shows records, so load now
+        highScoreManager.setSaveExecutor(r -> scheduler.submitSave("high-scores", r));
+        this.soundManager = new SoundManager();          // clips are decoded after the first frame
+        subscribeToGameEvents();
         buildMenuScene(mainStage);          // redesigned menu
-        setupGameScene();                   // game scene scaffold (board created on reset)
-        // Apply background based on default level
-        applyPatternBackground(currentLevel.boardSize);
 
         mainStage.setTitle("Knight's Tour");
         mainStage.setScene(menuScene);
+        onFirstFrame(menuScene, this::finishStartup);
         mainStage.show();
     }
 
+    @Override
+    public void stop() {
+        // Closing the window abandons the game too; let its events and any pending
+        // high score writes finish before the JVM goes
+        if (engine != null) endGame();
+        events.drain(1000);
+        if (scheduler != null) scheduler.shutdown(2000);
+    }
+
+    // =========================================================
+    // Game events
+    // =========================================================
+    private void subscribeToGameEvents() {
+        events.subscribe("sound", e -> {
+            switch (e.kind) {
+                case MOVED: soundManager.playMoveSound(); break;
+                case UNDONE: soundManager.playUndoSound(); break;
+                case COMPLETED: soundManager.playCompleteSound(); break;
+                default: break;
+            }
+        });
+        events.subscribe("telemetry", e -> PerfStats.stopSingleWriter(PerfStats.Section.EVENT_DELIVERY, e.publishedNanos));
+    }
+
+    /**
+     * Publish an event of the live game (primitives only, nothing allocated)
+     */
+    private void publish(GameEventBus.Kind kind, int square) {
+        events.publish(kind, gameId, boardSize, square, engine.getScore(), engine.getMoveCount(),
+                engine.visitedCount(), elapsedMillis());
+    }
+
+    /**
+     * Game clock of a timed game in milliseconds, -1 for an untimed one
+     */
+    private long elapsedMillis() {
+        return timedMode ? clock.elapsedNanos(System.nanoTime()) / 1_000_000 : -1;
+    }
+
+    /**
+     * Daily challenges and cooperative games (records are per single-knight board) don't count,
+     * nor does the scripted CDS/AOT training run
+     */
+    private boolean countsTowardsRecords() {
+        return activePuzzle == null && currentLevel.knights == 1 && !Boolean.getBoolean("knightstour.training");
+    }
+
+    /**
+     * Publish ABANDONED for a started, unfinished game, once, and keep its attempt records
+     * @return whether it was published
+     */
+    private boolean endGame() {
+        if (gameEnded || engine.getMoveCount() == 0 || !engine.hasStarted() || engine.isTourComplete()) return false;
+        gameEnded = true;
+        publish(GameEventBus.Kind.ABANDONED, -1);
+        if (countsTowardsRecords()) {
+            // Records are checked here rather than by an event subscriber, which may miss
+            // events; the file itself is written by the scheduler's save queue
+            highScoreManager.checkAndUpdateAttemptScore(currentLevel.recordKey, engine.getScore());
+            highScoreManager.checkAndUpdateSquaresVisited(currentLevel.recordKey, engine.visitedCount());
+        }
+        return true;
+    }
+
+    /**
+     * Everything not needed for the first frame: sounds and pattern images are
+     * loaded on a background thread, the game scene is built on the next FX pulse.
+     */
+    private void finishStartup() {
+        long firstFrameMs = ProcessHandle.current().info().startInstant()
+                .map(t -> System.currentTimeMillis() - t.toEpochMilli())
+                .orElse(-1L);
+        if (Boolean.getBoolean("knightstour.startupProfile")) {
+            System.out.println(FIRST_FRAME_MARKER + firstFrameMs);
+        }
+        if (Boolean.getBoolean("knightstour.exitAfterFirstFrame")) {
+            Platform.exit();
+            return;
+        }
+        if (Boolean.getBoolean("knightstour.training")) {
+            Platform.runLater(this::runTrainingScript);
+        }
+
+        scheduler.submit(soundManager::preload);
+        for (Level lvl : levels) scheduler.submit(() -> loadKnightPattern(lvl.boardSize), null);
+
+        Platform.runLater(this::ensureGameScene);
+    }
+
+    /** Run an action once, right after the scene's first layout pass (just before it is rendered). */
+    private static void onFirstFrame(Scene scene, Runnable action) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            // Let the pulse finish rendering before doing anything else
+            Platform.runLater(action);
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    /** Build the game scene scaffold if it does not exist yet (board is created on reset). */
+    private void ensureGameScene() {
+        if (gameScene == null) setupGameScene();
+    }
+
     // =========================================================
     // MENU (Redesigned UX)
     // =========================================================
@@ -170,17 +353,16 @@ public class ChessBoardKnight extends Application {
         glass.heightProperty().bind(card.heightProperty().add(32));
         glass.setFill(Color.rgb(255,255,255,0.12));
         glass.setStroke(Color.rgb(255,255,255,0.24));
-        glass.setEffect(new BoxBlur(12, 12, 3));
-
-        DropShadow shadow = new DropShadow();
-        shadow.setRadius(24);
-        shadow.setSpread(0.06);
-        shadow.setColor(Color.rgb(0,0,0,0.45));
 
         StackPane cardHolder = new StackPane(glass, card);
-        cardHolder.setEffect(shadow);
         cardHolder.setPickOnBounds(false);
 
+        menuBackground = bgView;
+        menuGradient = gradient;
+        menuGlass = glass;
+        menuCardHolder = cardHolder;
+        applyMenuEffects();
+
         // Title & subtitle
         Label title = new Label("Knight’s Tour");
         title.setFont(Font.font("Cinzel", FontWeight.EXTRA_BOLD, 42)); // falls back if not present
@@ -215,12 +397,19 @@ public class ChessBoardKnight extends Application {
                 setText(empty || item == null ? null : item.name);
             }
         });
-        menuLevelSelector.getSelectionModel().select(currentLevel);
+        menuLevelSelector.getSelectionModel().select(currentLevel.solo());
 
         Tooltip.install(menuLevelSelector, new Tooltip(
                 "Pick a board size and scoring rules. You can change this before starting."
         ));
 
+        Button customBtn = secondaryButton("Custom…");
+        customBtn.setOnAction(e -> chooseCustomBoard());
+        Tooltip.install(customBtn, new Tooltip("Play on a board of any size (large boards zoom and pan)."));
+        HBox.setHgrow(menuLevelSelector, Priority.ALWAYS);
+        HBox levelRow = new HBox(8, menuLevelSelector, customBtn);
+        levelRow.setAlignment(Pos.CENTER);
+
         levelDetails = new Label();
         levelDetails.setFont(Font.font("Verdana", 12));
         levelDetails.setTextFill(Color.web("#F3F4F6"));
@@ -230,6 +419,44 @@ public class ChessBoardKnight extends Application {
         updateLevelDetails(menuLevelSelector.getValue());
         menuLevelSelector.valueProperty().addListener((obs, oldV, newV) -> updateLevelDetails(newV));
 
+        CheckBox timedBox = new CheckBox("Timed mode");
+        timedBox.setFont(Font.font("Verdana", FontWeight.BOLD, 13));
+        timedBox.setTextFill(Color.web("#E5E7EB"));
+        timedBox.setSelected(timedMode);
+        timedBox.selectedProperty().addListener((obs, oldV, newV) -> timedMode = newV);
+        Tooltip.install(timedBox, new Tooltip("Show a clock and chase the fastest complete tour."));
+
+        ComboBox<Integer> knightsBox = new ComboBox<>(FXCollections.observableArrayList(1, 2, 3, 4));
+        knightsBox.setValue(knightCount);
+        knightsBox.setConverter(new javafx.util.StringConverter<>() {
+            @Override public String toString(Integer k) { return k == null ? "" : k == 1 ? "1 knight" : k + " knights"; }
+            @Override public Integer fromString(String s) { return Integer.valueOf(s.split(" ")[0]); }
+        });
+        CheckBox freeTurnsBox = new CheckBox("Free turns");
+        freeTurnsBox.setFont(Font.font("Verdana", FontWeight.BOLD, 13));
+        freeTurnsBox.setTextFill(Color.web("#E5E7EB"));
+        freeTurnsBox.setSelected(freeTurns);
+        freeTurnsBox.setDisable(knightCount == 1);
+        freeTurnsBox.selectedProperty().addListener((obs, oldV, newV) -> freeTurns = newV);
+        knightsBox.valueProperty().addListener((obs, oldV, newV) -> {
+            knightCount = newV == null ? 1 : newV;
+            freeTurnsBox.setDisable(knightCount == 1);
+        });
+        Tooltip.install(knightsBox, new Tooltip("Several knights share the board and together must visit every square.\n"
+                + "Place them one by one, then they take turns (or move in any order with free turns).\n"
+                + "Cooperative games don't count towards records."));
+        HBox modeRow = new HBox(14, timedBox, knightsBox, freeTurnsBox);
+        modeRow.setAlignment(Pos.CENTER);
+
+        CheckBox lowPowerBox = new CheckBox("Low-power rendering");
+        lowPowerBox.setFont(Font.font("Verdana", 12));
+        lowPowerBox.setTextFill(Color.web("#E5E7EB"));
+        lowPowerBox.setSelected(renderProfile.isLowPower());
+        lowPowerBox.selectedProperty().addListener((obs, oldV, newV) ->
+                setRenderProfile(newV ? RenderProfile.LOW_POWER : RenderProfile.STANDARD));
+        Tooltip.install(lowPowerBox, new Tooltip("Draw blur and shadows once as cached bitmaps.\n"
+                + "Smoother on slow graphics hardware; the effects look a little flatter."));
+
         Separator sep = new Separator();
         sep.setOpacity(0.65);
 
@@ -237,7 +464,8 @@ public class ChessBoardKnight extends Application {
         Button startBtn = primaryButton("Start Game");
         startBtn.setOnAction(e -> {
             Level sel = menuLevelSelector.getValue();
-            if (sel != null) currentLevel = sel;
+            if (sel != null) currentLevel = sel.withKnights(knightCount, freeTurns);
+            ensureGameScene();
             resetGame();
             mainStage.setScene(gameScene);
         });
@@ -251,10 +479,19 @@ public class ChessBoardKnight extends Application {
         highScoresBtn.setOnAction(e -> showHighScoresDialog());
         Tooltip.install(highScoresBtn, new Tooltip("View all high scores and records."));
 
+        Button dailyBtn = secondaryButton("Daily");
+        dailyBtn.setOnAction(e -> startDailyChallenge());
+        Tooltip.install(dailyBtn, new Tooltip("Today's puzzle on the selected board."));
+
+        menuReplayButton = secondaryButton("Replay");
+        menuReplayButton.setDisable(lastRecording == null);
+        menuReplayButton.setOnAction(e -> enterReplay(lastRecording, true));
+        Tooltip.install(menuReplayButton, new Tooltip("Watch your last game again."));
+
         Button quitBtn = ghostButton("Quit");
         quitBtn.setOnAction(e -> mainStage.close());
 
-        HBox buttons = new HBox(12, startBtn, tutorialBtn, highScoresBtn, quitBtn);
+        HBox buttons = new HBox(12, startBtn, dailyBtn, tutorialBtn, highScoresBtn, menuReplayButton, quitBtn);
         buttons.setAlignment(Pos.CENTER);
 
         // Keyboard shortcuts
@@ -266,13 +503,15 @@ public class ChessBoardKnight extends Application {
         // Assemble
         card.getChildren().setAll(
                 title, subtitle, spacer1,
-                selectLabel, menuLevelSelector, levelDetails, sep, buttons
+                selectLabel, levelRow, modeRow, levelDetails, sep, buttons, lowPowerBox
         );
 
         root.getChildren().addAll(bgView, gradient, cardHolder);
         StackPane.setAlignment(cardHolder, Pos.CENTER);
 
         menuScene = new Scene(root, 960, 600);
+        var buttonStyles = getClass().getResource("/resources/css/buttons.css");
+        if (buttonStyles != null) menuScene.getStylesheets().add(buttonStyles.toExternalForm());
         // Keep background fitting viewport
         menuScene.widthProperty().addListener((o, a, b) -> bgView.setFitWidth(b.doubleValue()));
         menuScene.heightProperty().addListener((o, a, b) -> bgView.setFitHeight(b.doubleValue()));
@@ -297,7 +536,7 @@ public class ChessBoardKnight extends Application {
         for (String p : paths) {
             try {
                 var url = getClass().getResource(p);
-                if (url != null) return new Image(url.toExternalForm());
+                if (url != null) return new Image(url.toExternalForm(), true); // decoded off the FX thread
             } catch (Exception ignored) { }
         }
         // Dev fallback (your uploaded path)
@@ -314,28 +553,57 @@ public class ChessBoardKnight extends Application {
         return c.snapshot(null, null);
     }
 
+    /** Ask for a board size and add it to the level choices. */
+    private void chooseCustomBoard() {
+        TextInputDialog d = new TextInputDialog("16");
+        d.setTitle("Custom Board");
+        d.setHeaderText("Board size (" + MIN_CUSTOM_BOARD + " to " + MAX_CUSTOM_BOARD + ")");
+        d.setContentText("Squares per side:");
+        d.showAndWait().ifPresent(text -> {
+            int size;
+            try {
+                size = Integer.parseInt(text.trim());
+            } catch (NumberFormatException ex) {
+                return;
+            }
+            if (size < MIN_CUSTOM_BOARD || size > MAX_CUSTOM_BOARD) return;
+            for (Level l : menuLevelSelector.getItems()) {
+                if (l.boardSize == size) {
+                    menuLevelSelector.getSelectionModel().select(l);
+                    return;
+                }
+            }
+            Level custom = Level.custom(size);
+            menuLevelSelector.getItems().add(custom);
+            menuLevelSelector.getSelectionModel().select(custom);
+        });
+    }
+
     private void updateLevelDetails(Level lvl) {
         if (lvl == null) { levelDetails.setText(""); return; }
 
         // Completed tour records
-        int bestScore = highScoreManager.getBestScore(lvl.boardSize);
-        int fewestMoves = highScoreManager.getFewestMoves(lvl.boardSize);
+        int bestScore = highScoreManager.getBestScore(lvl.recordKey);
+        int fewestMoves = highScoreManager.getFewestMoves(lvl.recordKey);
 
         // Incomplete attempt records
-        int bestAttemptScore = highScoreManager.getBestAttemptScore(lvl.boardSize);
-        int mostSquares = highScoreManager.getMostSquaresVisited(lvl.boardSize);
+        int bestAttemptScore = highScoreManager.getBestAttemptScore(lvl.recordKey);
+        int mostSquares = highScoreManager.getMostSquaresVisited(lvl.recordKey);
 
         String scoreTxt = bestScore > 0 ? String.valueOf(bestScore) : "—";
-        String movesTxt = fewestMoves < 999 ? String.valueOf(fewestMoves) : "—";
+        String movesTxt = fewestMoves != HighScoreManager.NO_MOVES_RECORD ? String.valueOf(fewestMoves) : "—";
         String attemptScoreTxt = bestAttemptScore > 0 ? String.valueOf(bestAttemptScore) : "—";
         String squaresTxt = mostSquares > 0 ? mostSquares + "/" + (lvl.boardSize * lvl.boardSize) : "—";
 
+        long fastest = highScoreManager.getFastestTourMillis(lvl.recordKey);
+        String fastestTxt = fastest > 0 ? MoveClock.format(fastest * 1_000_000) : "—";
+
         String txt = String.format(
-                "Board: %dx%d • Points/Move: %d • Revisit: -%d • Undo: -%d\n" +
-                "✅ Completed: Score %s • Moves %s\n" +
+                "Board: %dx%d • Scoring: %s\n" +
+                "✅ Completed: Score %s • Moves %s • Time %s\n" +
                 "🎯 Best Attempt: Score %s • Squares %s",
-                lvl.boardSize, lvl.boardSize, lvl.pointsPerMove, lvl.revisitPenalty, lvl.undoPenalty,
-                scoreTxt, movesTxt,
+                lvl.boardSize, lvl.boardSize, lvl.scoring.describe(),
+                scoreTxt, movesTxt, fastestTxt,
                 attemptScoreTxt, squaresTxt
         );
         levelDetails.setText(txt);
@@ -345,18 +613,7 @@ public class ChessBoardKnight extends Application {
         Button b = new Button(text);
         b.setFont(Font.font("Verdana", FontWeight.BOLD, 16));
         b.setMinWidth(140);
-        b.setStyle(
-                "-fx-background-color: linear-gradient(#22c55e, #16a34a);"+
-                        "-fx-text-fill: white; -fx-background-radius: 12; -fx-padding: 12 18 12 18;"
-        );
-        b.setOnMouseEntered(e -> b.setStyle(
-                "-fx-background-color: linear-gradient(#34d399, #16a34a);"+
-                        "-fx-text-fill: white; -fx-background-radius: 12; -fx-padding: 12 18 12 18;"
-        ));
-        b.setOnMouseExited(e -> b.setStyle(
-                "-fx-background-color: linear-gradient(#22c55e, #16a34a);"+
-                        "-fx-text-fill: white; -fx-background-radius: 12; -fx-padding: 12 18 12 18;"
-        ));
+        b.getStyleClass().add("primary-button"); // colours and hover in buttons.css
         return b;
     }
 
@@ -364,21 +621,7 @@ public class ChessBoardKnight extends Application {
         Button b = new Button(text);
         b.setFont(Font.font("Verdana", FontWeight.SEMI_BOLD, 15));
         b.setMinWidth(120);
-        b.setStyle(
-                "-fx-background-color: rgba(255,255,255,0.18); -fx-text-fill: #F3F4F6;"+
-                        "-fx-background-radius: 12; -fx-padding: 10 16 10 16;"+
-                        "-fx-border-color: rgba(255,255,255,0.35); -fx-border-radius: 12;"
-        );
-        b.setOnMouseEntered(e -> b.setStyle(
-                "-fx-background-color: rgba(255,255,255,0.25); -fx-text-fill: white;"+
-                        "-fx-background-radius: 12; -fx-padding: 10 16 10 16;"+
-                        "-fx-border-color: rgba(255,255,255,0.55); -fx-border-radius: 12;"
-        ));
-        b.setOnMouseExited(e -> b.setStyle(
-                "-fx-background-color: rgba(255,255,255,0.18); -fx-text-fill: #F3F4F6;"+
-                        "-fx-background-radius: 12; -fx-padding: 10 16 10 16;"+
-                        "-fx-border-color: rgba(255,255,255,0.35); -fx-border-radius: 12;"
-        ));
+        b.getStyleClass().add("secondary-button");
         return b;
     }
 
@@ -386,9 +629,7 @@ public class ChessBoardKnight extends Application {
         Button b = new Button(text);
         b.setFont(Font.font("Verdana", 14));
         b.setMinWidth(90);
-        b.setStyle("-fx-background-color: transparent; -fx-text-fill: #E5E7EB; -fx-padding: 8 12 8 12;");
-        b.setOnMouseEntered(e -> b.setStyle("-fx-background-color: rgba(255,255,255,0.08); -fx-text-fill: white; -fx-padding: 8 12 8 12; -fx-background-radius: 10;"));
-        b.setOnMouseExited(e -> b.setStyle("-fx-background-color: transparent; -fx-text-fill: #E5E7EB; -fx-padding: 8 12 8 12;"));
+        b.getStyleClass().add("ghost-button");
         return b;
     }
 
@@ -399,28 +640,59 @@ public class ChessBoardKnight extends Application {
         a.setContentText(
                 "• The knight moves in an L-shape: 2 in one direction, 1 perpendicular.\n" +
                         "• Visit each square exactly once.\n" +
-                        "• Score: +" + currentLevel.pointsPerMove + " new square, " +
-                        "-" + currentLevel.revisitPenalty + " revisit, " +
-                        "-" + currentLevel.undoPenalty + " per undo.\n\n" +
+                        "• Score: " + currentLevel.scoring.describe() + ".\n\n" +
                         "Tip: Look ahead for dead ends. Corner traps are common!"
         );
         a.showAndWait();
     }
 
     private void showHighScoresDialog() {
+        Alert a = createHighScoresAlert();
+        ButtonType importType = new ButtonType("Import…", ButtonBar.ButtonData.LEFT);
+        a.getButtonTypes().add(importType);
+        if (a.showAndWait().orElse(null) == importType) importHighScores();
+    }
+
+    /** Merge in the score files of other machines, copied into one folder. */
+    private void importHighScores() {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Folder with other machines' high score files");
+        java.io.File dir = chooser.showDialog(mainStage);
+        if (dir == null) return;
+        try {
+            int improved = highScoreManager.importScores(dir.toPath());
+            updateLevelDetails(menuLevelSelector.getValue());
+            Alert done = new Alert(Alert.AlertType.INFORMATION);
+            done.setTitle("High Scores");
+            done.setHeaderText(improved == 0 ? "No records beaten" : improved + (improved == 1 ? " record" : " records") + " updated");
+            done.setContentText("Imported the .properties files in " + dir + ".");
+            done.showAndWait();
+            showHighScoresDialog();
+        } catch (IOException e) {
+            Alert err = new Alert(Alert.AlertType.ERROR);
+            err.setTitle("High Scores");
+            err.setHeaderText("Couldn't import high scores");
+            err.setContentText(e.getMessage());
+            err.showAndWait();
+        }
+    }
+
+    private Alert createHighScoresAlert() {
         StringBuilder content = new StringBuilder();
 
         for (Level lvl : levels) {
             // Completed tour records
-            int bestScore = highScoreManager.getBestScore(lvl.boardSize);
-            int fewestMoves = highScoreManager.getFewestMoves(lvl.boardSize);
+            int bestScore = highScoreManager.getBestScore(lvl.recordKey);
+            int fewestMoves = highScoreManager.getFewestMoves(lvl.recordKey);
+            long fastest = highScoreManager.getFastestTourMillis(lvl.recordKey);
 
             // Incomplete attempt records
-            int bestAttemptScore = highScoreManager.getBestAttemptScore(lvl.boardSize);
-            int mostSquares = highScoreManager.getMostSquaresVisited(lvl.boardSize);
+            int bestAttemptScore = highScoreManager.getBestAttemptScore(lvl.recordKey);
+            int mostSquares = highScoreManager.getMostSquaresVisited(lvl.recordKey);
 
             String scoreTxt = bestScore > 0 ? String.valueOf(bestScore) : "—";
-            String movesTxt = fewestMoves < 999 ? String.valueOf(fewestMoves) + " moves" : "—";
+            String movesTxt = fewestMoves != HighScoreManager.NO_MOVES_RECORD ? String.valueOf(fewestMoves) + " moves" : "—";
+            String fastestTxt = fastest > 0 ? MoveClock.format(fastest * 1_000_000) : "—";
             String attemptScoreTxt = bestAttemptScore > 0 ? String.valueOf(bestAttemptScore) : "—";
             String squaresTxt = mostSquares > 0 ? mostSquares + "/" + (lvl.boardSize * lvl.boardSize) : "—";
 
@@ -428,6 +700,7 @@ public class ChessBoardKnight extends Application {
             content.append(String.format("✅ Completed Tour:\n"));
             content.append(String.format("   🏆 Best Score: %s\n", scoreTxt));
             content.append(String.format("   ⭐ Fewest Moves: %s\n", movesTxt));
+            content.append(String.format("   ⏱ Fastest Tour: %s\n", fastestTxt));
             content.append(String.format("🎯 Best Attempt:\n"));
             content.append(String.format("   💰 Score: %s\n", attemptScoreTxt));
             content.append(String.format("   📍 Squares: %s\n\n", squaresTxt));
@@ -437,7 +710,7 @@ public class ChessBoardKnight extends Application {
         a.setTitle("High Scores");
         a.setHeaderText("Knight's Tour Records");
         a.setContentText(content.toString().trim());
-        a.showAndWait();
+        return a;
     }
 
     // =========================================================
@@ -453,38 +726,179 @@ public class ChessBoardKnight extends Application {
         winLabel = new Label("");
         winLabel.setFont(Font.font("Impact", FontWeight.BOLD, 28));
         winLabel.setStyle("-fx-text-fill: #06D6A0;");
+        puzzleLabel = new Label("");
+        puzzleLabel.setFont(Font.font("Verdana", FontWeight.BOLD, 14));
+        puzzleLabel.setTextFill(Color.WHITE);
+        puzzleLabel.setManaged(false);
+        puzzleLabel.setVisible(false);
+        deadEndLabel = new Label("⚠ Dead end: no full tour is possible from here");
+        deadEndLabel.setFont(Font.font("Verdana", FontWeight.BOLD, 14));
+        deadEndLabel.setTextFill(START_COLOR);
+        showDeadEnd(false);
 
         undoButton = new Button("Undo");
         undoButton.setFont(Font.font(16));
         undoButton.setDisable(true);
-        undoButton.setOnAction(e -> undoMove());
+        undoButton.setOnAction(e -> input.undo());
+
+        replayButton = new Button("Replay");
+        replayButton.setFont(Font.font(16));
+        replayButton.setDisable(true);
+        replayButton.setOnAction(e -> enterReplay(engine.getRecording(), false));
 
         Button backButton = new Button("Back to Menu");
         backButton.setFont(Font.font(16));
         backButton.setOnAction(e -> {
             checkIncompleteAttempt();
+            clockTimeline.stop();
             mainStage.setScene(menuScene);
         });
 
-        HBox controls = new HBox(12, scoreLabel, moveCountLabel, undoButton, backButton);
-        controls.setAlignment(Pos.CENTER);
-        controls.setPadding(new Insets(8));
+        timeLabel = new Label();
+        timeLabel.setFont(Font.font("Verdana", FontWeight.BOLD, 16));
+        timeLabel.setTextFill(Color.WHITE);
+        timeLabel.setMinWidth(Region.USE_PREF_SIZE);
+        clockTimeline = new Timeline(new KeyFrame(Duration.millis(100), e -> updateClockLabel()));
+        clockTimeline.setCycleCount(Animation.INDEFINITE);
+
+        CheckBox degreesBox = new CheckBox("Degrees");
+        degreesBox.setFont(Font.font("Verdana", FontWeight.BOLD, 13));
+        degreesBox.setTextFill(Color.WHITE);
+        degreesBox.setFocusTraversable(false);
+        degreesBox.selectedProperty().addListener((obs, oldV, newV) -> {
+            showDegrees = newV;
+            if (viewport != null) viewport.setShowDegrees(newV);
+            else refreshHighlights();
+            checkDeadEnd();
+        });
+        Tooltip.install(degreesBox, new Tooltip("Show how many unvisited squares each square still leads to.\n"
+                + "Going to the lowest number first (Warnsdorff's rule) usually finishes the tour.\n"
+                + "You are also warned once the tour can no longer be finished."));
+
+        gameControls = new HBox(12, scoreLabel, moveCountLabel, timeLabel, undoButton, replayButton, degreesBox, backButton);
+        gameControls.setAlignment(Pos.CENTER);
+        gameControls.setPadding(new Insets(8));
+
+        replayControls = createReplayControls();
+        replayControls.setVisible(false);
+        replayControls.setManaged(false);
+
+        input = createInputPipeline();
 
         // Build board first so we can wrap it in a frame
         boardPane = createBoard();
         boardFrame = new StackPane(boardPane); // NEW
         boardFrame.setPickOnBounds(false);
 
-        VBox root = new VBox(8, controls, winLabel, boardFrame);
+        VBox root = new VBox(8, gameControls, replayControls, puzzleLabel, deadEndLabel, winLabel, boardFrame);
         root.setAlignment(Pos.CENTER);
         root.setPadding(new Insets(10));
 
         gameRoot = root;
-        gameScene = new Scene(gameRoot, 700, 720);
+
+        // Performance overlay floats over the board, F3 toggles it
+        perfOverlay = new PerfOverlay();
+        perfOverlay.setRenderProfile(renderProfile);
+        StackPane layers = new StackPane(gameRoot, perfOverlay);
+        StackPane.setAlignment(perfOverlay, Pos.TOP_LEFT);
+        StackPane.setMargin(perfOverlay, new Insets(8));
+
+        gameScene = new Scene(layers, 700, 720);
+        gameScene.addEventFilter(KeyEvent.KEY_PRESSED, ke -> {
+            if (ke.getCode() == KeyCode.F3) perfOverlay.toggle();
+        });
+        // Filter, so the arrow keys and Space drive the board rather than the focused button
+        gameScene.addEventFilter(KeyEvent.KEY_PRESSED, ke -> {
+            InputPipeline.Key key = inputKey(ke);
+            if (key != null && input.key(key)) ke.consume();
+        });
     }
 
-    private GridPane createBoard() {
+    private InputPipeline createInputPipeline() {
+        return new InputPipeline(new InputPipeline.Sink() {
+            private int batchMoves;
+            private boolean batchUndone;
+
+            @Override
+            public TourEngine engine() {
+                return replayPlayer != null ? null : engine;
+            }
+
+            @Override
+            public void playMove(int row, int col, InputPipeline.Source source, long inputNanos) {
+                long t0 = PerfStats.start();
+                if (applyMove(row, col, inputNanos)) batchMoves++;
+                PerfStats.stop(PerfStats.Section.SQUARE_CLICK, t0);
+            }
+
+            @Override
+            public void rejectMove(int row, int col, InputPipeline.Source source) {
+                soundManager.playInvalidSound();
+            }
+
+            @Override
+            public void undoMove(long inputNanos) {
+                long t0 = PerfStats.start();
+                applyUndo(inputNanos);
+                batchUndone = true;
+                PerfStats.stop(PerfStats.Section.UNDO_MOVE, t0);
+            }
+
+            @Override
+            public void inputBatchDone() {
+                // Moves and undos above are timed without the board; it is redrawn once per batch
+                // (a single move only patches the viewport's minimap)
+                long t0 = PerfStats.start();
+                if (viewport != null && batchMoves == 1 && !batchUndone) viewport.moved();
+                else redrawBoard();
+                batchMoves = 0;
+                batchUndone = false;
+                updateUIStatus();
+                PerfStats.stop(PerfStats.Section.INPUT_BATCH, t0);
+            }
+
+            @Override
+            public void moveCursor(int row, int col) {
+                if (viewport != null) {
+                    viewport.setCursor(row, col);
+                    return;
+                }
+                cursorMarker.setVisible(row >= 0);
+                if (row >= 0) GridPane.setConstraints(cursorMarker, col, row);
+            }
+        }, Platform::runLater);
+    }
+
+    private static InputPipeline.Key inputKey(KeyEvent ke) {
+        switch (ke.getCode()) {
+            case TAB: return ke.isShiftDown() ? InputPipeline.Key.PREVIOUS : InputPipeline.Key.NEXT;
+            case UP: return InputPipeline.Key.UP;
+            case DOWN: return InputPipeline.Key.DOWN;
+            case LEFT: return InputPipeline.Key.LEFT;
+            case RIGHT: return InputPipeline.Key.RIGHT;
+            case ENTER: case SPACE: return InputPipeline.Key.PLAY;
+            case BACK_SPACE: case U: return InputPipeline.Key.UNDO;
+            case Z: return ke.isShortcutDown() ? InputPipeline.Key.UNDO : null;
+            default: return null;
+        }
+    }
+
+    private Region createBoard() {
         boardSize = currentLevel.boardSize;
+        if (input != null) input.reset();
+        if (animator != null) animator.stop();
+        if (boardSize > MAX_GRID_BOARD) {
+            // Too big for a node per square: draw only what is in view
+            squares = null;
+            viewport = new BoardViewport(boardSize, this::displayedEngine, input,
+                    LIGHT_COLOR, DARK_COLOR, MOVE_HIGHLIGHT, START_COLOR);
+            animator = viewport.animator();
+            viewport.setShowDegrees(showDegrees);
+            viewport.refresh();
+            return viewport;
+        }
+        viewport = null;
+
         GridPane board = new GridPane();
         board.setHgap(0);
         board.setVgap(0);
@@ -498,6 +912,39 @@ public class ChessBoardKnight extends Application {
                 board.add(square, c, r);
             }
         }
+
+        cursorMarker = new Rectangle(SQUARE_SIZE - 6, SQUARE_SIZE - 6, Color.TRANSPARENT);
+        cursorMarker.setStroke(Color.web("#38BDF8"));
+        cursorMarker.setStrokeWidth(3);
+        cursorMarker.setMouseTransparent(true);
+        cursorMarker.setVisible(false);
+        GridPane.setHalignment(cursorMarker, javafx.geometry.HPos.CENTER);
+        GridPane.setValignment(cursorMarker, javafx.geometry.VPos.CENTER);
+        board.add(cursorMarker, 0, 0);
+
+        // The pieces are drawn on a layer above the squares, which also carries the animations
+        Canvas animationLayer = new Canvas(boardSize * SQUARE_SIZE, boardSize * SQUARE_SIZE);
+        GridPane.setHalignment(animationLayer, javafx.geometry.HPos.LEFT);
+        GridPane.setValignment(animationLayer, javafx.geometry.VPos.TOP);
+        board.add(animationLayer, 0, 0, boardSize, boardSize);
+        animator = new BoardAnimator(this::displayedEngine, animationLayer, new BoardAnimator.View() {
+            @Override public double scale() { return SQUARE_SIZE; }
+            @Override public double offsetX() { return 0; }
+            @Override public double offsetY() { return 0; }
+        }, START_COLOR, MOVE_HIGHLIGHT);
+        animator.jump();
+
+        // Taps go through the pipeline's touch path (it forgives near misses); the
+        // mouse events synthesized from them are dropped so a tap isn't played twice
+        board.addEventFilter(TouchEvent.TOUCH_RELEASED, te -> {
+            TouchPoint tp = te.getTouchPoint();
+            var p = squares[0][0].sceneToLocal(tp.getSceneX(), tp.getSceneY());
+            input.touch(p.getX(), p.getY(), SQUARE_SIZE);
+            te.consume();
+        });
+        board.addEventFilter(MouseEvent.ANY, me -> {
+            if (me.isSynthesized()) me.consume();
+        });
         return board;
     }
 
@@ -507,237 +954,271 @@ public class ChessBoardKnight extends Application {
         b.setMaxSize(SQUARE_SIZE, SQUARE_SIZE);
         b.setFocusTraversable(false);
 
-        boolean light = ((row + col) % 2 == 0);
-        b.setStyle("-fx-background-color: " + (light ? toRgb(LIGHT_COLOR) : toRgb(DARK_COLOR)) + ";"
-                + "-fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 14px;");
+        b.setStyle(squareStyle((row + col) % 2 == 0, false, SQUARE_PLAIN));
 
-        b.setOnAction(e -> handleSquareClick(row, col));
+        b.setOnAction(e -> input.square(InputPipeline.Source.MOUSE, row, col));
         return b;
     }
 
-    private void handleSquareClick(int row, int col) {
-        // First click sets starting position
-        if (currentRow == -1 && currentCol == -1) {
-            placeKnight(row, col, true);
-            soundManager.playMoveSound();
-            return;
-        }
+    /**
+     * Play a move on the live game (sounds, puzzle feedback, tour completion) without
+     * redrawing the board; false if the move was illegal
+     * @param nanos when the move was input (System.nanoTime), for the move clock
+     */
+    private boolean applyMove(int row, int col, long nanos) {
+        // Untimed games have no think time, so time rules (see ScoringRules) never apply
+        long think = timedMode ? clock.peek(nanos) : -1;
+        TourEngine.MoveResult result = engine.play(row, col, think < 0 ? -1 : think / 1_000_000);
+
         // Only legal knight moves allowed from current position
-        if (!isLegalKnightMove(currentRow, currentCol, row, col)) {
+        if (result == TourEngine.MoveResult.ILLEGAL) {
             soundManager.playInvalidSound();
-            return;
+            return false;
         }
+        clock.mark(nanos);
+        scheduler.positionChanged();
 
-        boolean isRevisit = visited[row][col];
-        placeKnight(row, col, !isRevisit);
-        soundManager.playMoveSound();
+        publish(GameEventBus.Kind.MOVED, row * boardSize + col);
+        if (activePuzzle != null) checkPuzzleMove(row, col);
 
-        // scoring
-        if (isRevisit) {
-            score -= currentLevel.revisitPenalty;
-        } else {
-            score += currentLevel.pointsPerMove;
-        }
+        // First click only sets the starting position
+        if (result == TourEngine.MoveResult.STARTED) return true;
 
         // win?
-        if (visitedCount() == boardSize * boardSize) {
+        if (engine.isTourComplete()) {
+            clock.stop(nanos);
+            updateClockLabel();
             checkAndCelebrateHighScores();
         }
-
-        updateUIStatus();
+        checkDeadEnd();
+        return true;
     }
 
-    private void placeKnight(int row, int col, boolean markVisited) {
-        // Clear previous marker text styling
-        if (currentRow >= 0 && currentCol >= 0) {
-            Button prev = squares[currentRow][currentCol];
-            prev.setText(visited[currentRow][currentCol] ? "•" : "");
-            prev.setStyle(prev.getStyle()); // keep bg
+    private void refreshHighlights() {
+        if (viewport != null) {
+            viewport.refresh();
+            return;
         }
+        long t0 = PerfStats.start();
+        TourEngine shown = displayedEngine();
 
-        currentRow = row;
-        currentCol = col;
-
-        if (visited == null) visited = new boolean[boardSize][boardSize];
-        if (markVisited) visited[row][col] = true;
-
-        Button here = squares[row][col];
-        here.setText("♞");
-        here.setStyle(here.getStyle() + "; -fx-text-fill: #111827; -fx-font-size: " + KNIGHT_ICON_SIZE + "px; -fx-font-weight: bold;");
-
-        moveStack.push(new int[]{row, col});
-        moveCount++;
-
-        // Update coloring to hint legal moves
-        refreshHighlights();
-    }
-
-    private void refreshHighlights() {
-        // Reset all square backgrounds to base board colors + visited tint
+        // Base board colors + visited tint, legal next moves in green, knights' squares in amber,
+        // and the onward degree of unvisited squares if asked for (kept by the engine, read here).
+        // Styles and texts come from prebuilt tables, so nothing is concatenated per square.
         for (int r = 0; r < boardSize; r++) {
             for (int c = 0; c < boardSize; c++) {
-                boolean light = ((r + c) % 2 == 0);
-                String base = "-fx-background-color: " + (light ? toRgb(LIGHT_COLOR) : toRgb(DARK_COLOR)) + ";"
-                        + " -fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 14px;";
-                if (visited != null && visited[r][c]) {
-                    base += " -fx-background-insets: 0; -fx-background-radius: 0; -fx-border-color: rgba(0,0,0,0.18);";
-                    base += " -fx-effect: null;";
+                if (!shown.isActive(r, c)) {
+                    squares[r][c].setStyle(squareStyle((r + c) % 2 == 0, false, SQUARE_BLOCKED));
+                    continue;
                 }
-                squares[r][c].setStyle(base);
-                if (visited != null && visited[r][c] && !(r == currentRow && c == currentCol)) {
+                boolean isCurrent = shown.isKnightAt(r, c);
+                boolean isTarget = shown.canMoveTo(r, c);
+                boolean visited = shown.isVisited(r, c);
+                squares[r][c].setStyle(squareStyle((r + c) % 2 == 0, visited,
+                        isCurrent ? SQUARE_CURRENT : isTarget ? SQUARE_TARGET : SQUARE_PLAIN));
+                if (visited && !isCurrent) {
                     squares[r][c].setText("•");
                     squares[r][c].setTextFill(Color.WHITE);
-                } else if (!(r == currentRow && c == currentCol)) {
+                } else if (!isCurrent && showDegrees) {
+                    squares[r][c].setText(degreeText.of(shown.onwardDegree(r * boardSize + c)));
+                    squares[r][c].setTextFill(DEGREE_COLOR);
+                } else if (!isCurrent) {
                     squares[r][c].setText("");
                 }
             }
         }
-        // Highlight legal next moves
-        if (currentRow >= 0 && currentCol >= 0) {
-            for (int[] d : KNIGHT_DELTAS) {
-                int nr = currentRow + d[0];
-                int nc = currentCol + d[1];
-                if (inBounds(nr, nc)) {
-                    Button b = squares[nr][nc];
-                    b.setStyle(b.getStyle() + " -fx-background-color: " + toRgb(MOVE_HIGHLIGHT) + ";");
-                }
-            }
-            // Mark current square distinctly
-            squares[currentRow][currentCol].setStyle(squares[currentRow][currentCol].getStyle()
-                    + " -fx-background-color: " + toRgb(START_COLOR) + ";");
-        }
+        PerfStats.stop(PerfStats.Section.REFRESH_HIGHLIGHTS, t0);
     }
 
-    private boolean isLegalKnightMove(int r1, int c1, int r2, int c2) {
-        int dr = Math.abs(r1 - r2);
-        int dc = Math.abs(c1 - c2);
-        return (dr == 2 && dc == 1) || (dr == 1 && dc == 2);
+    /**
+     * Take back the last move without redrawing the board; false if there was nothing to undo
+     */
+    private boolean applyUndo(long nanos) {
+        // The puzzle's given moves can't be taken back
+        if (activePuzzle != null && engine.getMoveCount() <= activePuzzle.prefix.length) return false;
+        if (!engine.canUndo()) return false;
+        int takenBack = engine.historyAt(engine.historySize() - 1);
+        engine.undo();
+        gameEnded = false; // an undone completion leaves an unfinished game again
+        clock.undo(nanos);
+        scheduler.positionChanged();
+
+        publish(GameEventBus.Kind.UNDONE, takenBack);
+
+        if (!engine.hasStarted()) {
+            winLabel.setText("");
+        }
+        checkDeadEnd();
+        return true;
     }
 
-    private boolean inBounds(int r, int c) {
-        return r >= 0 && r < boardSize && c >= 0 && c < boardSize;
+    /**
+     * With the Degrees overlay on, ask the solver in the background whether the tour can
+     * still be finished from here. The check belongs to this position: the scheduler drops
+     * it as soon as the player moves or undoes again.
+     */
+    private void checkDeadEnd() {
+        showDeadEnd(false);
+        if (!showDegrees || gameEnded || activePuzzle != null || !engine.hasStarted()) return;
+        // Same limits as the post-game review: one piece on a grid board it can cover
+        if (boardSize > MAX_GRID_BOARD || engine.getKnightCount() > 1) return;
+        // A line with revisits isn't the start of a tour; the solver wants one
+        if (engine.visitedCount() != engine.historySize()) return;
+        Leaper piece = engine.getPiece();
+        BoardTopology topology = engine.getTopology();
+        if (!topology.isConnected(piece)) return;
+        int[] line = engine.getHistory(); // only copied with the overlay on
+        scheduler.submitForPosition(
+                () -> TourSolver.forTopology(topology, piece).canComplete(line, line.length, DEAD_END_BUDGET),
+                tourable -> showDeadEnd(tourable == 0));
     }
 
-    private int visitedCount() {
-        int n = 0;
-        if (visited == null) return 0;
-        for (int r = 0; r < boardSize; r++)
-            for (int c = 0; c < boardSize; c++)
-                if (visited[r][c]) n++;
-        return n;
+    private void showDeadEnd(boolean show) {
+        deadEndLabel.setVisible(show);
+        deadEndLabel.setManaged(show);
     }
 
-    private void undoMove() {
-        if (moveStack.isEmpty()) return;
-
-        // Play undo sound
-        soundManager.playUndoSound();
-
-        // Remove current
-        moveStack.pop();
-
-        // Recompute visited from history
-        recomputeVisitedFromStack();
-
-        // Reposition knight to previous spot (if any)
-        if (!moveStack.isEmpty()) {
-            int[] prev = moveStack.peek();
-            currentRow = prev[0];
-            currentCol = prev[1];
-        } else {
-            currentRow = -1;
-            currentCol = -1;
-            winLabel.setText("");
-        }
-
-        moveCount = Math.max(0, moveCount - 1);
-        score -= currentLevel.undoPenalty;
-
-        refreshBoardAfterUndo();
-        updateUIStatus();
+    private void refreshBoardAfterUndo() {
+        long t0 = PerfStats.start();
+        redrawBoard();
+        PerfStats.stop(PerfStats.Section.REFRESH_AFTER_UNDO, t0);
     }
 
-    private void recomputeVisitedFromStack() {
-        visited = new boolean[boardSize][boardSize];
-        for (int[] m : moveStack) visited[m[0]][m[1]] = true;
-    }
+    /**
+     * Redraw every square from the displayed engine
+     */
+    private void redrawBoard() {
+        if (viewport != null) {
+            viewport.refresh();
+            return;
+        }
+        TourEngine shown = displayedEngine();
 
-    private void refreshBoardAfterUndo() {
-        // Redraw all squares text markers and highlights
+        // Redraw all squares text markers, then the highlights restyle every square
         for (int r = 0; r < boardSize; r++) {
             for (int c = 0; c < boardSize; c++) {
-                Button b = squares[r][c];
-                boolean light = ((r + c) % 2 == 0);
-                b.setStyle("-fx-background-color: " + (light ? toRgb(LIGHT_COLOR) : toRgb(DARK_COLOR)) + ";"
-                        + "-fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 14px;");
-                if (visited[r][c]) {
-                    b.setText("•");
-                } else {
-                    b.setText("");
-                }
+                squares[r][c].setText(shown.isVisited(r, c) ? "•" : "");
             }
         }
-        if (currentRow >= 0 && currentCol >= 0) {
-            squares[currentRow][currentCol].setText("♞");
-            squares[currentRow][currentCol].setStyle(squares[currentRow][currentCol].getStyle()
-                    + " -fx-background-color: " + toRgb(START_COLOR) + "; -fx-text-fill: #111827; -fx-font-size: " + KNIGHT_ICON_SIZE + "px; -fx-font-weight: bold;");
+        for (int k = 0; k < shown.getKnightCount(); k++) {
+            int sq = shown.getKnightSquare(k);
+            if (sq >= 0) squares[sq / boardSize][sq % boardSize].setText("");
         }
         refreshHighlights();
+        animator.changed();
+    }
+
+    /**
+     * Show the game clock; the text only changes when the shown tenth of a second does
+     */
+    private void updateClockLabel() {
+        if (!timedMode || clock == null) return;
+        long tenths = clock.elapsedNanos(System.nanoTime()) / 100_000_000;
+        if (tenths == shownClockTenths) return;
+        shownClockTenths = tenths;
+        timeLabel.setText("Time: " + MoveClock.format(tenths * 100_000_000));
+    }
+
+    private static String seconds(long nanos) {
+        return String.format("%.1f s", nanos / 1e9);
     }
 
     private void updateUIStatus() {
-        scoreLabel.setText("Score: " + score);
-        moveCountLabel.setText("Moves: " + moveCount);
-        undoButton.setDisable(moveStack.isEmpty());
+        scoreLabel.setText(SCORE_TEXT.of(engine.getScore()));
+        moveCountLabel.setText(MOVES_TEXT.of(engine.getMoveCount()));
+        undoButton.setDisable(!engine.canUndo());
+        replayButton.setDisable(engine.getRecording().isEmpty());
     }
 
     private void checkAndCelebrateHighScores() {
-        boolean newHighScore = highScoreManager.checkAndUpdateScore(boardSize, score);
-        boolean newBestMoves = highScoreManager.checkAndUpdateMoves(boardSize, moveCount);
+        // The sound subscriber plays the fanfare (see subscribeToGameEvents)
+        gameEnded = true;
+        publish(GameEventBus.Kind.COMPLETED, -1);
+        boolean counts = countsTowardsRecords();
+        boolean newHighScore = counts && highScoreManager.checkAndUpdateScore(currentLevel.recordKey, engine.getScore());
+        boolean newBestMoves = counts && highScoreManager.checkAndUpdateMoves(currentLevel.recordKey, engine.getMoveCount());
+        long elapsedMillis = elapsedMillis();
+        boolean newFastest = counts && elapsedMillis >= 0
+                && highScoreManager.checkAndUpdateFastestTour(currentLevel.recordKey, elapsedMillis);
+
+        if (activePuzzle != null) {
+            winLabel.setText("Puzzle Solved! 🎉");
+            return;
+        }
+        if (currentLevel.knights > 1) {
+            winLabel.setText("Tour Complete! 🎉\n" + currentLevel.knights + " knights, " + engine.getMoveCount() + " moves");
+            return;
+        }
 
-        // Play celebration sound
-        soundManager.playCompleteSound();
+        // The records go under the title, before the timing line
+        String completionText = "Tour Complete! 🎉" + recordsText(newHighScore, newBestMoves, newFastest);
+        if (timedMode) {
+            long nanos = clock.elapsedNanos(System.nanoTime());
+            completionText += "\n⏱ " + MoveClock.format(nanos) + " • think avg " + seconds(clock.meanThinkNanos())
+                    + ", p95 " + seconds(clock.percentileThinkNanos(95))
+                    + ", slowest " + seconds(clock.maxThinkNanos());
+        }
+        winLabel.setText(completionText);
+        startReview();
+    }
 
-        String message = "Tour Complete! 🎉";
+    /**
+     * Lines for the records a completed game set, for its win banner (with a fanfare if any)
+     */
+    private String recordsText(boolean newHighScore, boolean newBestMoves, boolean newFastest) {
+        String records = "";
         if (newHighScore && newBestMoves) {
-            message += "\n🏆 NEW HIGH SCORE & BEST MOVES! 🏆";
-            soundManager.playHighScoreSound();
+            records += "\n🏆 NEW HIGH SCORE & BEST MOVES! 🏆";
         } else if (newHighScore) {
-            message += "\n🏆 NEW HIGH SCORE! 🏆";
-            soundManager.playHighScoreSound();
+            records += "\n🏆 NEW HIGH SCORE! 🏆";
         } else if (newBestMoves) {
-            message += "\n⭐ NEW BEST MOVES! ⭐";
-            soundManager.playHighScoreSound();
+            records += "\n⭐ NEW BEST MOVES! ⭐";
         }
-
-        winLabel.setText(message);
+        if (newFastest) records += "\n⚡ NEW FASTEST TOUR! ⚡";
+        if (!records.isEmpty()) soundManager.playHighScoreSound();
+        return records;
     }
 
     private void checkIncompleteAttempt() {
-        // Only track if the game has actually started (at least one move made)
-        if (moveCount == 0 || currentRow == -1) return;
-
-        int squaresVisited = visitedCount();
-
-        // Don't track if tour was completed (already handled by checkAndCelebrateHighScores)
-        if (squaresVisited == boardSize * boardSize) return;
+        // Keep the game around so it can be watched back from the menu
+        if (!engine.getRecording().isEmpty()) {
+            lastRecording = engine.getRecording();
+            menuReplayButton.setDisable(false);
+        }
 
-        // Track best attempt score and most squares visited for incomplete tours
-        highScoreManager.checkAndUpdateAttemptScore(boardSize, score);
-        highScoreManager.checkAndUpdateSquaresVisited(boardSize, squaresVisited);
+        // An unfinished game's attempt records are kept by endGame
+        if (endGame() && countsTowardsRecords()) startReview();
     }
 
     private void resetGame() {
-        score = 0;
-        moveCount = 0;
-        currentRow = -1;
-        currentCol = -1;
-        moveStack.clear();
+        scheduler.positionChanged();
+        if (engine != null) endGame(); // leaving an unfinished game for a new one abandons it
+        gameId++;
+        gameEnded = false;
+        engine = new TourEngine(currentLevel);
+        engine.setRecording(new MoveRecording(currentLevel));
+        clock = new MoveClock(currentLevel.boardSize);
+        timeLabel.setVisible(timedMode);
+        timeLabel.setManaged(timedMode);
+        shownClockTenths = -1;
+        updateClockLabel();
+        if (timedMode) clockTimeline.play(); else clockTimeline.stop();
         boardSize = currentLevel.boardSize;
-        visited = new boolean[boardSize][boardSize];
         winLabel.setText("");
+        activePuzzle = null;
+        puzzleLabel.setText("");
+        puzzleLabel.setManaged(false);
+        puzzleLabel.setVisible(false);
+        showDeadEnd(false);
         updateUIStatus();
 
+        rebuildBoard();
+
+        // Apply pattern based on current level
+        applyPatternBackground(currentLevel != null ? currentLevel.boardSize : 0);
+    }
+
+    private void rebuildBoard() {
         if (gameRoot != null) {
             if (boardFrame != null) {
                 gameRoot.getChildren().remove(boardFrame);
@@ -747,9 +1228,360 @@ public class ChessBoardKnight extends Application {
             boardFrame.setPickOnBounds(false);
             gameRoot.getChildren().add(boardFrame);
         }
+    }
 
-        // Apply pattern based on current level
-        applyPatternBackground(currentLevel != null ? currentLevel.boardSize : 0);
+    // =========================================================
+    // DAILY CHALLENGE
+    // =========================================================
+
+    /** Start today's puzzle for the level selected in the menu. */
+    private void startDailyChallenge() {
+        Level sel = menuLevelSelector.getValue();
+        if (sel == null) return;
+
+        Puzzle puzzle = null;
+        try {
+            if (puzzlePack == null) puzzlePack = loadPuzzlePack();
+            if (puzzlePack != null) puzzle = puzzlePack.daily(sel.boardSize, LocalDate.now());
+        } catch (IOException ex) {
+            System.err.println("Error loading puzzles: " + ex.getMessage());
+        }
+        if (puzzle == null) {
+            Alert a = new Alert(Alert.AlertType.INFORMATION);
+            a.setTitle("Daily Challenge");
+            a.setHeaderText("No puzzle available");
+            a.setContentText("There is no daily puzzle for " + sel.name + ".");
+            a.showAndWait();
+            return;
+        }
+
+        currentLevel = sel;
+        ensureGameScene();
+        resetGame();
+        activePuzzle = puzzle;
+        for (int sq : puzzle.prefix) engine.play(sq / boardSize, sq % boardSize);
+        puzzleLabel.setText(puzzle.describe());
+        puzzleLabel.setManaged(true);
+        puzzleLabel.setVisible(true);
+
+        refreshBoardAfterUndo();
+        updateUIStatus();
+        mainStage.setScene(gameScene);
+    }
+
+    private PuzzlePack loadPuzzlePack() throws IOException {
+        try (var in = getClass().getResourceAsStream("/resources/puzzles/daily.pack")) {
+            return in == null ? null : PuzzlePack.read(in);
+        }
+    }
+
+    /** Feedback on the first move played after the puzzle's given moves. */
+    private void checkPuzzleMove(int row, int col) {
+        if (activePuzzle.kind != Puzzle.Kind.ONLY_MOVE) return;
+        if (engine.getMoveCount() != activePuzzle.prefix.length + 1) return;
+        if (row * boardSize + col == activePuzzle.solution[0]) {
+            puzzleLabel.setText("✔ The only move that keeps the tour alive! Now finish it.");
+        } else {
+            puzzleLabel.setText("✖ That move can't lead to a full tour. Undo and try again.");
+        }
+    }
+
+    /** Engine whose state is drawn on the board: the replay's while one is open, else the live game. */
+    private TourEngine displayedEngine() {
+        return replayPlayer != null ? replayPlayer.getEngine() : engine;
+    }
+
+    // =========================================================
+    // REPLAY MODE
+    // =========================================================
+    private HBox createReplayControls() {
+        replayPlayButton = new Button("Play");
+        replayPlayButton.setFont(Font.font(16));
+        replayPlayButton.setOnAction(e -> toggleReplayPlayback());
+
+        replaySlider = new Slider(0, 0, 0);
+        replaySlider.setPrefWidth(220);
+        replaySlider.setBlockIncrement(1);
+        replaySlider.setMajorTickUnit(1);
+        replaySlider.setMinorTickCount(0);
+        replaySlider.setSnapToTicks(true);
+        replaySlider.valueProperty().addListener((obs, oldV, newV) -> {
+            if (!updatingReplaySlider) seekReplay((int) Math.round(newV.doubleValue()));
+        });
+
+        replaySpeedSelector = new ComboBox<>(FXCollections.observableArrayList(REPLAY_SPEEDS));
+        replaySpeedSelector.getSelectionModel().select(Double.valueOf(1.0));
+        replaySpeedSelector.setButtonCell(new javafx.scene.control.ListCell<>() {
+            @Override protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : formatSpeed(item));
+            }
+        });
+        replaySpeedSelector.setCellFactory(lv -> new javafx.scene.control.ListCell<>() {
+            @Override protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : formatSpeed(item));
+            }
+        });
+        replaySpeedSelector.valueProperty().addListener((obs, oldV, newV) -> {
+            if (replayTimeline != null && newV != null) replayTimeline.setRate(newV);
+        });
+
+        replayPositionLabel = new Label();
+        replayPositionLabel.setFont(Font.font("Verdana", FontWeight.BOLD, 14));
+        replayPositionLabel.setTextFill(Color.WHITE);
+
+        Button exitButton = new Button("Exit Replay");
+        exitButton.setFont(Font.font(16));
+        exitButton.setOnAction(e -> exitReplay());
+
+        HBox box = new HBox(10, replayPlayButton, replaySlider, replaySpeedSelector, replayPositionLabel, exitButton);
+        box.setAlignment(Pos.CENTER);
+        box.setPadding(new Insets(8));
+        return box;
+    }
+
+    private static String formatSpeed(double speed) {
+        return (speed == Math.rint(speed) ? String.valueOf((int) speed) : String.valueOf(speed)) + "x";
+    }
+
+    /** Open the replay viewer for a recorded game (from the game screen or from the menu). */
+    private void enterReplay(MoveRecording recording, boolean fromMenu) {
+        if (recording == null || recording.isEmpty()) return;
+
+        ensureGameScene();
+        replayFromMenu = fromMenu;
+        replayPlayer = new ReplayPlayer(recording);
+        input.reset();
+        if (cursorMarker != null) cursorMarker.setVisible(false);
+        if (boardSize != recording.getLevel().boardSize || boardPane == null) {
+            boardSize = recording.getLevel().boardSize;
+            rebuildBoard();
+            applyPatternBackground(boardSize);
+        }
+
+        replayTimeline = new Timeline(new KeyFrame(Duration.millis(REPLAY_STEP_MS), e -> stepReplay()));
+        replayTimeline.setCycleCount(Animation.INDEFINITE);
+        replayTimeline.setRate(replaySpeedSelector.getValue());
+
+        updatingReplaySlider = true;
+        replaySlider.setMax(replayPlayer.length());
+        replaySlider.setValue(0);
+        updatingReplaySlider = false;
+        replayPlayButton.setText("Play");
+
+        gameControls.setVisible(false);
+        gameControls.setManaged(false);
+        replayControls.setVisible(true);
+        replayControls.setManaged(true);
+        liveWinText = winLabel.getText();
+        showDeadEnd(false);
+
+        animator.jump();
+        renderReplay();
+        mainStage.setScene(gameScene);
+    }
+
+    private void exitReplay() {
+        if (replayTimeline != null) replayTimeline.stop();
+        replayTimeline = null;
+        replayPlayer = null;
+
+        replayControls.setVisible(false);
+        replayControls.setManaged(false);
+        gameControls.setVisible(true);
+        gameControls.setManaged(true);
+
+        if (replayFromMenu) {
+            mainStage.setScene(menuScene);
+            return;
+        }
+        // Back to the live game exactly as it was left
+        winLabel.setText(liveWinText);
+        checkDeadEnd();
+        animator.jump();
+        refreshBoardAfterUndo();
+        updateUIStatus();
+    }
+
+    private void toggleReplayPlayback() {
+        if (replayTimeline.getStatus() == Animation.Status.RUNNING) {
+            replayTimeline.pause();
+            replayPlayButton.setText("Play");
+        } else {
+            if (replayPlayer.isAtEnd()) seekReplay(0);
+            replayTimeline.play();
+            replayPlayButton.setText("Pause");
+        }
+    }
+
+    private void stepReplay() {
+        if (!replayPlayer.step()) {
+            replayTimeline.pause();
+            replayPlayButton.setText("Play");
+            return;
+        }
+        renderReplay();
+    }
+
+    private void seekReplay(int position) {
+        if (replayPlayer == null) return;
+        replayPlayer.seek(position);
+        renderReplay();
+    }
+
+    private void renderReplay() {
+        TourEngine shown = replayPlayer.getEngine();
+        refreshBoardAfterUndo();
+
+        updatingReplaySlider = true;
+        replaySlider.setValue(replayPlayer.getPosition());
+        updatingReplaySlider = false;
+
+        replayPositionLabel.setText(replayPlayer.getPosition() + "/" + replayPlayer.length()
+                + "  Score: " + shown.getScore());
+        winLabel.setText(shown.isTourComplete() ? "Tour Complete! 🎉" : "");
+    }
+
+    // =========================================================
+    // POST-GAME REVIEW
+    // =========================================================
+
+    /** Analyse the game just finished or left in the background, then show the review. */
+    private void startReview() {
+        int[] line = engine.getHistory();
+        if (line.length < 2) return;
+        // The review grid has a label per square; skip it for boards drawn by the viewport
+        if (boardSize > MAX_GRID_BOARD) return;
+        // The review follows a single piece's line
+        if (engine.getKnightCount() > 1) return;
+        // Tourability only means something when the piece can reach the whole board
+        Leaper piece = engine.getPiece();
+        BoardTopology topology = engine.getTopology();
+        if (!topology.isConnected(piece)) return;
+        scheduler.submitLatest("review", () -> new MoveAnalyzer(topology, piece).analyze(line),
+                review -> createReviewAlert(review, topology).show());
+    }
+
+    private Alert createReviewAlert(MoveAnalyzer.Review review, BoardTopology topology) {
+        int size = review.boardSize;
+        int[] lastMoveOn = new int[size * size]; // latest move landing on each square
+        Arrays.fill(lastMoveOn, -1);
+        for (int i = 0; i < review.line.length; i++) lastMoveOn[review.line[i]] = i;
+
+        GridPane board = new GridPane();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int move = lastMoveOn[r * size + c];
+                Color bg = ((r + c) % 2 == 0) ? LIGHT_COLOR : DARK_COLOR;
+                if (move >= 0) bg = reviewColor(review.quality[move]);
+                else if (!topology.isActive(r * size + c)) bg = BLOCKED_COLOR;
+
+                Label cell = new Label(move >= 0 ? String.valueOf(move + 1) : "");
+                cell.setMinSize(REVIEW_SQUARE_SIZE, REVIEW_SQUARE_SIZE);
+                cell.setMaxSize(REVIEW_SQUARE_SIZE, REVIEW_SQUARE_SIZE);
+                cell.setAlignment(Pos.CENTER);
+                cell.setStyle("-fx-background-color: " + toRgb(bg) + "; -fx-text-fill: #111827;"
+                        + " -fx-font-weight: bold; -fx-font-size: 11px; -fx-border-color: rgba(0,0,0,0.18);");
+                board.add(cell, c, r);
+            }
+        }
+
+        Label summary = new Label("✅ Good: " + review.count(MoveAnalyzer.Quality.GOOD)
+                + "   ⚠ Inaccurate: " + review.count(MoveAnalyzer.Quality.INACCURATE)
+                + "   ✖ Fatal: " + review.count(MoveAnalyzer.Quality.FATAL)
+                + "   ? Unknown: " + review.count(MoveAnalyzer.Quality.UNKNOWN));
+        summary.setFont(Font.font("Verdana", FontWeight.BOLD, 13));
+
+        int fatal = review.firstFatal();
+        String verdict;
+        if (fatal >= 0) {
+            verdict = "The tour was lost on move " + (fatal + 1) + ".";
+        } else if (review.tourable[review.line.length] == 1) {
+            verdict = "A full tour stayed within reach the whole game.";
+        } else {
+            verdict = "Some positions were too hard to judge.";
+        }
+        Label verdictLabel = new Label(verdict + " Squares show the last move played on them.");
+        verdictLabel.setFont(Font.font("Verdana", 12));
+
+        Alert a = new Alert(Alert.AlertType.INFORMATION);
+        a.setTitle("Move Review");
+        a.setHeaderText(size + "x" + size + " — " + review.line.length + " moves");
+        a.getDialogPane().setContent(new VBox(10, summary, verdictLabel, board));
+        return a;
+    }
+
+    private static Color reviewColor(MoveAnalyzer.Quality q) {
+        switch (q) {
+            case GOOD: return MOVE_HIGHLIGHT;
+            case INACCURATE: return START_COLOR;
+            case FATAL: return FATAL_COLOR;
+            default: return UNKNOWN_COLOR;
+        }
+    }
+
+    // =========================================================
+    // CDS / AOT training run (-Dknightstour.training=true)
+    // =========================================================
+
+    /**
+     * Scripted session used by scripts/build-cds.sh: opens the high scores dialog,
+     * plays and undoes some moves, watches the replay, returns to the menu and exits.
+     * Nothing is written to the high score file.
+     */
+    private void runTrainingScript() {
+        Alert[] highScores = new Alert[1];
+        Timeline script = new Timeline(
+                new KeyFrame(Duration.millis(300), e -> {
+                    highScores[0] = createHighScoresAlert();
+                    highScores[0].show();
+                }),
+                new KeyFrame(Duration.millis(900), e -> {
+                    highScores[0].close();
+                    menuLevelSelector.getSelectionModel().select(currentLevel.solo());
+                    ensureGameScene();
+                    resetGame();
+                    mainStage.setScene(gameScene);
+                }),
+                new KeyFrame(Duration.millis(1500), e -> playTrainingMoves(12)),
+                new KeyFrame(Duration.millis(1800), e -> {
+                    input.undo();
+                    perfOverlay.toggle();
+                }),
+                new KeyFrame(Duration.millis(2400), e -> {
+                    enterReplay(engine.getRecording(), false);
+                    toggleReplayPlayback();
+                }),
+                new KeyFrame(Duration.millis(3000), e -> {
+                    seekReplay(replayPlayer.length() / 2);
+                    exitReplay();
+                    perfOverlay.toggle();
+                    mainStage.setScene(menuScene);
+                }),
+                new KeyFrame(Duration.millis(3500), e -> Platform.exit())
+        );
+        script.play();
+    }
+
+    /** Play up to n moves, always taking the first unvisited target of the piece. */
+    private void playTrainingMoves(int n) {
+        // Clicks go through the input pipeline like real ones and are applied on the next
+        // pulse, so the line is worked out here rather than read back from the engine
+        boolean[] visited = new boolean[boardSize * boardSize];
+        int at = 0;
+        visited[at] = true;
+        input.square(InputPipeline.Source.MOUSE, 0, 0);
+        for (int i = 1; i < n; i++) {
+            for (int t : engine.targets(at)) {
+                if (!visited[t]) {
+                    visited[t] = true;
+                    at = t;
+                    input.square(InputPipeline.Source.MOUSE, t / boardSize, t % boardSize);
+                    break;
+                }
+            }
+        }
     }
 
     // =========================================================
@@ -757,6 +1589,14 @@ public class ChessBoardKnight extends Application {
     // =========================================================
 
     private Image loadKnightPattern(int boardSize) {
+        Image cached = patternCache.get(boardSize);
+        if (cached != null) return cached;
+        Image loaded = findKnightPattern(boardSize);
+        if (loaded != null) patternCache.put(boardSize, loaded);
+        return loaded;
+    }
+
+    private Image findKnightPattern(int boardSize) {
         // Determine which image to load based on board size
         String imageName;
         switch (boardSize) {
@@ -804,20 +1644,42 @@ public class ChessBoardKnight extends Application {
     private void applyPatternBackground(int boardSize) {
         // Only apply pattern for Easy (6), Classic (8), and Hard (10)
         if (boardSize != 6 && boardSize != 8 && boardSize != 10) {
-            gameRoot.setBackground(Background.EMPTY);
-            if (boardFrame != null) boardFrame.setStyle("");
-            gameRoot.setPadding(new Insets(8));
+            clearPatternBackground();
             return;
         }
-        Image pat = loadKnightPattern(boardSize);
-        if (pat == null) {
-            // No pattern found, use empty background
-            gameRoot.setBackground(Background.EMPTY);
-            if (boardFrame != null) boardFrame.setStyle("");
-            gameRoot.setPadding(new Insets(8));
+        Image cached = patternCache.get(boardSize);
+        if (cached != null) {
+            showPatternBackground(boardSize, cached);
             return;
         }
 
+        // Not decoded yet: show the plain background and load the image off the FX thread
+        clearPatternBackground();
+        scheduler.submitLatest("pattern", () -> {
+            long t0 = PerfStats.start();
+            try {
+                return loadKnightPattern(boardSize);
+            } finally {
+                PerfStats.stop(PerfStats.Section.PATTERN_IMAGE, t0);
+            }
+        }, pat -> {
+            // No pattern found: keep the empty background
+            if (pat != null && this.boardSize == boardSize) showPatternBackground(boardSize, pat);
+        });
+    }
+
+    private void clearPatternBackground() {
+        gameRoot.setBackground(Background.EMPTY);
+        if (boardFrame != null) {
+            boardFrame.setStyle("");
+            boardFrame.getChildren().remove(frameCard);
+            StackPane.setMargin(boardPane, null);
+        }
+        gameRoot.setPadding(new Insets(8));
+    }
+
+    private void showPatternBackground(int boardSize, Image pat) {
+
         // Configure background based on board size
         BackgroundRepeat repeatX, repeatY;
         BackgroundSize bgSize;
@@ -846,16 +1708,72 @@ public class ChessBoardKnight extends Application {
         gameRoot.setPadding(new Insets(24));
 
         // Soft white "card" so the pattern doesn't visually clash with the grid
-        if (boardFrame != null) {
-            boardFrame.setStyle(
-                    "-fx-background-color: rgba(255,255,255,0.85);" +
-                            "-fx-background-radius: 12;" +
-                            "-fx-padding: 12;" +
-                            "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.25), 18, 0.15, 0, 4);"
-            );
+        if (boardFrame != null) styleBoardFrame();
+    }
+
+    private static final String FRAME_CARD_STYLE =
+            "-fx-background-color: rgba(255,255,255,0.85);" +
+                    "-fx-background-radius: 12;" +
+                    "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.25), 18, 0.15, 0, 4);";
+
+    /**
+     * Card under the board. A shadow on the frame itself is redrawn with every square
+     * that changes, so the low-power profile draws it on an empty region behind the
+     * board instead and caches that.
+     */
+    private void styleBoardFrame() {
+        boardFrame.getChildren().remove(frameCard);
+        if (renderProfile.isLowPower()) {
+            if (frameCard == null) {
+                frameCard = new Region();
+                frameCard.setStyle(FRAME_CARD_STYLE);
+                frameCard.setMouseTransparent(true);
+            }
+            renderProfile.cacheStatic(frameCard);
+            boardFrame.setStyle("");
+            boardFrame.getChildren().add(0, frameCard);
+            StackPane.setMargin(boardPane, new Insets(12));
+        } else {
+            boardFrame.setStyle(FRAME_CARD_STYLE + "-fx-padding: 12;");
+            StackPane.setMargin(boardPane, null);
         }
     }
 
+    // =========================================================
+    // Render profile
+    // =========================================================
+    private void setRenderProfile(RenderProfile profile) {
+        renderProfile = profile;
+        applyMenuEffects();
+        boolean patternShown = gameRoot != null && gameRoot.getBackground() != null && !gameRoot.getBackground().isEmpty();
+        if (boardFrame != null && patternShown) styleBoardFrame();
+        if (perfOverlay != null) perfOverlay.setRenderProfile(profile);
+    }
+
+    /**
+     * Menu blur and shadow. Standard: the shadow falls from the whole card, text and
+     * buttons included, so every hover re-renders it. Low power: blur and shadow both
+     * sit on the static glass rectangle, which is cached with the gradient and background.
+     */
+    private void applyMenuEffects() {
+        DropShadow shadow = new DropShadow();
+        shadow.setRadius(24);
+        shadow.setSpread(0.06);
+        shadow.setColor(Color.rgb(0,0,0,0.45));
+        BoxBlur blur = new BoxBlur(12, 12, 3);
+        if (renderProfile.isLowPower()) {
+            shadow.setInput(blur);
+            menuGlass.setEffect(shadow);
+            menuCardHolder.setEffect(null);
+        } else {
+            menuGlass.setEffect(blur);
+            menuCardHolder.setEffect(shadow);
+        }
+        renderProfile.cacheStatic(menuGlass);
+        renderProfile.cacheStatic(menuGradient);
+        renderProfile.cacheStatic(menuBackground);
+    }
+
     // =========================================================
     // Helpers
     // =========================================================
@@ -863,7 +1781,32 @@ public class ChessBoardKnight extends Application {
         int r = (int)Math.round(c.getRed() * 255.0);
         int g = (int)Math.round(c.getGreen() * 255.0);
         int b = (int)Math.round(c.getBlue() * 255.0);
-        return String.format("rgb(%d,%d,%d)", r, g, b);
+        return "rgb(" + r + "," + g + "," + b + ")";
+    }
+
+    private static String squareStyle(boolean light, boolean visited, int kind) {
+        return SQUARE_STYLES[(light ? 0 : 1) + (visited ? 2 : 0) + 4 * kind];
+    }
+
+    /** Every style a board square can have: light/dark x visited x plain/target/current/blocked. */
+    private static String[] buildSquareStyles() {
+        String[] styles = new String[16];
+        for (int i = 0; i < styles.length; i++) {
+            boolean light = (i & 1) == 0;
+            boolean visited = (i & 2) != 0;
+            int kind = i / 4;
+            String style = "-fx-background-color: " + (light ? toRgb(LIGHT_COLOR) : toRgb(DARK_COLOR)) + ";"
+                    + " -fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 14px;";
+            if (visited) {
+                style += " -fx-background-insets: 0; -fx-background-radius: 0; -fx-border-color: rgba(0,0,0,0.18);";
+                style += " -fx-effect: null;";
+            }
+            if (kind == SQUARE_TARGET) style += " -fx-background-color: " + toRgb(MOVE_HIGHLIGHT) + ";";
+            if (kind == SQUARE_CURRENT) style += " -fx-background-color: " + toRgb(START_COLOR) + ";";
+            if (kind == SQUARE_BLOCKED) style += " -fx-background-color: " + toRgb(BLOCKED_COLOR) + "; -fx-cursor: default;";
+            styles[i] = style;
+        }
+        return styles;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,244 @@
+package knightstour.game;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs game work (analysis, solvers, persistence, image decoding) off the JavaFX
+ * Application Thread and hands results back to it.
+ *
+ * - Work runs on a small bounded pool of daemon threads; when the queue is full the
+ *   oldest waiting task is dropped, since it is the one most likely to be stale.
+ *   Saves ({@link #submitSave}) are never dropped: with no other task to drop, or
+ *   once the scheduler is shut down, they run on the caller's thread instead.
+ * - Position tasks belong to the current position and are cancelled (and their
+ *   results discarded) as soon as {@link #positionChanged()} is called.
+ * - Keyed tasks replace any earlier task with the same key ("latest wins").
+ * - Results are queued and delivered through the UI executor (Platform::runLater)
+ *   in batches: one runLater per batch, and a batch yields back to the UI after
+ *   {@link #DRAIN_BUDGET_NANOS} so a burst of results can't stall a frame.
+ */
+public final class ComputeScheduler {
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long DRAIN_BUDGET_NANOS = 4_000_000; // UI time per batch before yielding
+
+    private final ThreadPoolExecutor executor;
+    private final Executor ui;
+
+    private final AtomicLong generation = new AtomicLong(); // bumped on every position change
+    private final Set<Job<?>> positionJobs = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Job<?>> keyedJobs = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<Runnable> deliveries = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    public ComputeScheduler(int threads, Executor ui) {
+        this.ui = ui;
+        AtomicInteger ids = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread t = new Thread(r, "knightstour-compute-" + ids.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1); // the FX thread comes first
+                    return t;
+                },
+                (r, pool) -> {
+                    Job<?> job = (Job<?>) r;
+                    if (!pool.isShutdown()) {
+                        // Make room by dropping the oldest task that may be dropped
+                        for (Runnable queued : pool.getQueue()) {
+                            Job<?> oldest = (Job<?>) queued;
+                            if (!oldest.keep && pool.getQueue().remove(oldest)) {
+                                oldest.cancel(false);
+                                pool.execute(job);
+                                return;
+                            }
+                        }
+                    }
+                    if (job.keep) job.run(); else job.cancel(false);
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Worker count that leaves a core for the FX thread
+     */
+    public static int defaultThreads() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Run work in the background; onResult (may be null) gets the result on the UI thread
+     */
+    public <T> Future<T> submit(Callable<T> work, Consumer<? super T> onResult) {
+        return start(new Job<>(work, onResult, -1, null, false));
+    }
+
+    public Future<?> submit(Runnable work) {
+        return submit(() -> {
+            work.run();
+            return null;
+        }, null);
+    }
+
+    /**
+     * Like {@link #submit}, but cancels any earlier task with the same key and drops its result
+     */
+    public <T> Future<T> submitLatest(String key, Callable<T> work, Consumer<? super T> onResult) {
+        return startLatest(new Job<>(work, onResult, -1, key, false));
+    }
+
+    public Future<?> submitLatest(String key, Runnable work) {
+        return submitLatest(key, () -> {
+            work.run();
+            return null;
+        }, null);
+    }
+
+    /**
+     * Persistence work: keyed like {@link #submitLatest} (a newer save replaces a queued
+     * one), but never dropped when the queue is full or the scheduler is shut down
+     */
+    public Future<?> submitSave(String key, Runnable work) {
+        return startLatest(new Job<>(() -> {
+            work.run();
+            return null;
+        }, null, -1, key, true));
+    }
+
+    private <T> Job<T> startLatest(Job<T> job) {
+        Job<?> previous = keyedJobs.put(job.key, job);
+        if (previous != null) previous.supersede(false);
+        return start(job);
+    }
+
+    /**
+     * Work about the current position: cancelled, with its result dropped, when the
+     * player moves again (see {@link #positionChanged()})
+     */
+    public <T> Future<T> submitForPosition(Callable<T> work, Consumer<? super T> onResult) {
+        Job<T> job = new Job<>(work, onResult, generation.get(), null, false);
+        positionJobs.add(job);
+        return start(job);
+    }
+
+    /**
+     * The position moved on: cancel every position task (running ones are interrupted)
+     */
+    public void positionChanged() {
+        generation.incrementAndGet();
+        if (positionJobs.isEmpty()) return; // the usual case; skips the iterator on every move
+        for (Job<?> job : positionJobs) job.supersede(true);
+        positionJobs.clear();
+    }
+
+    /**
+     * Stop taking work and wait (up to timeoutMillis) for queued tasks, e.g. pending saves
+     */
+    public void shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> Job<T> start(Job<T> job) {
+        executor.execute(job);
+        return job;
+    }
+
+    // =========================================================
+    // Result delivery
+    // =========================================================
+    private void deliver(Runnable r) {
+        deliveries.add(r);
+        if (drainScheduled.compareAndSet(false, true)) ui.execute(this::drain);
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + DRAIN_BUDGET_NANOS;
+        drainScheduled.set(false);
+        Runnable r;
+        while ((r = deliveries.poll()) != null) {
+            try {
+                r.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error delivering background result: " + e);
+            }
+            if (System.nanoTime() > deadline) {
+                // Leave the rest for the next pulse
+                if (!deliveries.isEmpty() && drainScheduled.compareAndSet(false, true)) ui.execute(this::drain);
+                return;
+            }
+        }
+    }
+
+    /**
+     * A task plus where its result goes and what makes it stale
+     */
+    private final class Job<T> extends FutureTask<T> {
+        private final Consumer<? super T> onResult;
+        private final long generation; // position it belongs to, -1 if it outlives moves
+        private final String key;
+        private final boolean keep;    // a save: never dropped to make room
+        private volatile boolean superseded;
+
+        Job(Callable<T> work, Consumer<? super T> onResult, long generation, String key, boolean keep) {
+            super(work);
+            this.onResult = onResult;
+            this.generation = generation;
+            this.key = key;
+            this.keep = keep;
+        }
+
+        void supersede(boolean interrupt) {
+            superseded = true;
+            cancel(interrupt);
+        }
+
+        boolean isCurrent() {
+            return !superseded && !isCancelled()
+                    && (generation < 0 || generation == ComputeScheduler.this.generation.get());
+        }
+
+        @Override
+        protected void done() {
+            if (generation >= 0) positionJobs.remove(this);
+            if (key != null) keyedJobs.remove(key, this);
+            if (!isCurrent()) return;
+
+            T result;
+            try {
+                result = get();
+            } catch (ExecutionException e) {
+                System.err.println("Background task failed: " + e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (onResult != null) {
+                deliver(() -> {
+                    // Checked again on the UI thread: the player may have moved since
+                    if (isCurrent()) onResult.accept(result);
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package knightstour.game;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Solver for cooperative games: splits the unvisited squares among k pieces as k
+ * disjoint paths, one from each piece's square, that together visit every active square.
+ *
+ * The search grows one path at a time. It extends the piece with the fewest ways on
+ * (fail first), tries its targets in Warnsdorff order, and as a last resort lets that
+ * piece stop for good. Degrees are updated incrementally as in {@link TourSolver},
+ * and so is the number of stranded squares (unvisited, with no unvisited neighbour
+ * left). Each stranded square can only be the last square of some path, so a position
+ * with more of them than pieces still moving is dead.
+ *
+ * Searches race on every core with different random tie-breaks; the first to finish
+ * stops the others. Each search is bounded by its own node budget.
+ *
+ * Usage: java -cp out knightstour.game.CooperativeSolver boardSize knights [seed]
+ */
+public final class CooperativeSolver {
+    private static final int STOP_CHECK_NODES = 1024; // nodes between looks at the shared stop flag
+
+    private final BoardTopology topology;
+    private final int squares;
+    private final int[][] neighbours;
+    private final int maxTargets;
+
+    public CooperativeSolver(BoardTopology topology, Leaper piece) {
+        this.topology = topology;
+        this.squares = topology.boardSize * topology.boardSize;
+        this.neighbours = topology.moveTable(piece);
+        this.maxTargets = piece.maxTargets();
+    }
+
+    public CooperativeSolver(Level level) {
+        this(level.topology, level.piece);
+    }
+
+    /**
+     * Split the rest of the board among pieces standing on the given squares
+     * @param visited squares already visited (indexed row * boardSize + col); the
+     *                pieces' squares count as visited whether marked or not
+     * @param heads   square of each piece
+     * @return for each piece, the squares it goes on to in order (maybe none), or null
+     *         if no split was found within the budget
+     */
+    public int[][] split(boolean[] visited, int[] heads, long nodeBudget, long seed) {
+        AtomicBoolean stop = new AtomicBoolean();
+        int searches = Runtime.getRuntime().availableProcessors();
+        return IntStream.range(0, searches).parallel()
+                .mapToObj(i -> {
+                    int[][] paths = new Search(visited, heads, nodeBudget, new Random(seed * 1_000_003L + i), stop).run();
+                    if (paths != null) stop.set(true);
+                    return paths;
+                })
+                .filter(Objects::nonNull)
+                .findAny()
+                .orElse(null);
+    }
+
+    /**
+     * Split a fresh board among pieces placed on the given squares
+     */
+    public int[][] split(int[] starts, long nodeBudget, long seed) {
+        return split(new boolean[squares], starts, nodeBudget, seed);
+    }
+
+    /**
+     * Split the rest of a cooperative game among its pieces (all of them must be placed)
+     */
+    public int[][] split(TourEngine engine, long nodeBudget, long seed) {
+        int n = engine.getBoardSize();
+        boolean[] visited = new boolean[squares];
+        for (int sq = 0; sq < squares; sq++) visited[sq] = engine.isVisited(sq / n, sq % n);
+        int[] heads = new int[engine.getKnightCount()];
+        for (int k = 0; k < heads.length; k++) {
+            heads[k] = engine.getKnightSquare(k);
+            if (heads[k] < 0) throw new IllegalStateException("Piece " + (k + 1) + " isn't placed yet");
+        }
+        return split(visited, heads, nodeBudget, seed);
+    }
+
+    // =========================================================
+    // Search state (one per search, never shared between threads)
+    // =========================================================
+    private final class Search {
+        final boolean[] visited = new boolean[squares];
+        final int[] degree = new int[squares];   // unvisited neighbours of each square
+        final int[] heads;                       // current end of each piece's path
+        final boolean[] moving;                  // pieces whose paths may still grow
+        final int[] trail = new int[squares];    // squares added, in order
+        final int[] trailFrom = new int[squares]; // square each of those was reached from
+        int depth = 0;
+        int remaining;                           // active squares not visited
+        int stranded = 0;                        // unvisited squares with degree 0
+        int movingCount;
+        long nodes;
+        final long budget;
+        final Random rnd;
+        final AtomicBoolean stop;
+        boolean exhausted;
+
+        Search(boolean[] start, int[] heads, long budget, Random rnd, AtomicBoolean stop) {
+            this.heads = heads.clone();
+            this.moving = new boolean[heads.length];
+            this.budget = budget;
+            this.rnd = rnd;
+            this.stop = stop;
+            Arrays.fill(moving, true);
+            movingCount = heads.length;
+            for (int sq = 0; sq < squares; sq++) degree[sq] = neighbours[sq].length;
+            for (int sq = 0; sq < squares; sq++) {
+                // Blocked squares start out visited; nothing leads to them
+                if (!topology.isActive(sq)) visited[sq] = true;
+                else if (start[sq]) mark(sq);
+            }
+            for (int h : heads) if (!visited[h]) mark(h);
+            remaining = 0;
+            for (int sq = 0; sq < squares; sq++) {
+                if (visited[sq]) continue;
+                remaining++;
+                if (degree[sq] == 0) stranded++;
+            }
+        }
+
+        /** Visit a square while setting up (before stranded squares are counted) */
+        private void mark(int sq) {
+            visited[sq] = true;
+            for (int n : neighbours[sq]) degree[n]--;
+        }
+
+        void visit(int piece, int sq) {
+            visited[sq] = true;
+            remaining--;
+            if (degree[sq] == 0) stranded--;
+            for (int n : neighbours[sq]) {
+                if (--degree[n] == 0 && !visited[n]) stranded++;
+            }
+            trail[depth] = sq;
+            trailFrom[depth++] = heads[piece];
+            heads[piece] = sq;
+        }
+
+        void unvisit(int piece) {
+            int sq = trail[--depth];
+            heads[piece] = trailFrom[depth];
+            for (int n : neighbours[sq]) {
+                if (degree[n]++ == 0 && !visited[n]) stranded--;
+            }
+            if (degree[sq] == 0) stranded++;
+            remaining++;
+            visited[sq] = false;
+        }
+
+        int[][] run() {
+            int[] pieceOf = new int[squares];
+            if (!extend(pieceOf)) return null;
+            // Rebuild each piece's path from the trail
+            int[] lengths = new int[heads.length];
+            for (int i = 0; i < depth; i++) lengths[pieceOf[i]]++;
+            int[][] paths = new int[heads.length][];
+            for (int k = 0; k < heads.length; k++) paths[k] = new int[lengths[k]];
+            Arrays.fill(lengths, 0);
+            for (int i = 0; i < depth; i++) paths[pieceOf[i]][lengths[pieceOf[i]]++] = trail[i];
+            return paths;
+        }
+
+        boolean extend(int[] pieceOf) {
+            if (remaining == 0) return true;
+            if (stranded > movingCount) return false;
+            if (++nodes > budget || (nodes % STOP_CHECK_NODES == 0 && stop.get())) {
+                exhausted = true;
+                return false;
+            }
+
+            // The moving piece with the fewest unvisited targets goes next
+            int piece = -1, fewest = Integer.MAX_VALUE;
+            for (int k = 0; k < heads.length; k++) {
+                if (!moving[k]) continue;
+                int ways = 0;
+                for (int t : neighbours[heads[k]]) if (!visited[t]) ways++;
+                if (ways > 0 && ways < fewest) {
+                    fewest = ways;
+                    piece = k;
+                }
+            }
+            if (piece < 0) return false;
+
+            int[] next = new int[maxTargets];
+            int n = candidates(heads[piece], next);
+            for (int i = 0; i < n; i++) {
+                pieceOf[depth] = piece;
+                visit(piece, next[i]);
+                if (extend(pieceOf)) return true;
+                unvisit(piece);
+                if (exhausted) return false;
+            }
+
+            // Or this piece stops here and the others finish the board
+            moving[piece] = false;
+            movingCount--;
+            boolean done = extend(pieceOf);
+            moving[piece] = true;
+            movingCount++;
+            return done;
+        }
+
+        /**
+         * Unvisited targets of a square, fewest onward moves first, random tie-break
+         */
+        int candidates(int from, int[] out) {
+            int n = 0;
+            for (int t : neighbours[from]) if (!visited[t]) out[n++] = t;
+            int[] keys = new int[n];
+            for (int i = 0; i < n; i++) keys[i] = degree[out[i]] * 16 + rnd.nextInt(16);
+            for (int i = 1; i < n; i++) {
+                int k = keys[i], v = out[i], j = i - 1;
+                while (j >= 0 && keys[j] > k) {
+                    keys[j + 1] = keys[j];
+                    out[j + 1] = out[j];
+                    j--;
+                }
+                keys[j + 1] = k;
+                out[j + 1] = v;
+            }
+            return n;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: CooperativeSolver boardSize knights [seed]");
+            System.exit(2);
+        }
+        int boardSize = Integer.parseInt(args[0]);
+        int knights = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        // Spread the pieces along the main diagonal
+        int[] starts = new int[knights];
+        for (int k = 0; k < knights; k++) {
+            int d = (int) ((k + 0.5) * boardSize / knights);
+            starts[k] = d * boardSize + d;
+        }
+        CooperativeSolver solver = new CooperativeSolver(BoardTopology.plain(boardSize), Leaper.KNIGHT);
+        long t0 = System.nanoTime();
+        int[][] paths = solver.split(starts, 5_000_000, seed);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        if (paths == null) {
+            System.out.println("No split found within the budget (" + ms + " ms)");
+            return;
+        }
+        int[] owner = new int[boardSize * boardSize];
+        for (int k = 0; k < knights; k++) {
+            owner[starts[k]] = k;
+            for (int sq : paths[k]) owner[sq] = k;
+        }
+        System.out.println("Split found in " + ms + " ms:");
+        for (int r = 0; r < boardSize; r++) {
+            StringBuilder sb = new StringBuilder();
+            for (int c = 0; c < boardSize; c++) sb.append((char) ('A' + owner[r * boardSize + c])).append(' ');
+            System.out.println(sb.toString().trim());
+        }
+    }
+}
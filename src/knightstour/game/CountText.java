@@ -0,0 +1,40 @@
+package knightstour.game;
+
+/**
+ * Label texts of the form prefix + number (e.g. "Score: 120"), built once per value
+ * so status labels that change on every move don't allocate a new string each time.
+ * The cache is split into pages allocated on first use, so a wide range only costs
+ * the values actually shown. Values outside the cached range are built on demand.
+ */
+final class CountText {
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final String prefix;
+    private final int min;
+    private final int size;
+    private final String[][] pages;
+
+    CountText(String prefix, int min, int max) {
+        this.prefix = prefix;
+        this.min = min;
+        this.size = max - min + 1;
+        this.pages = new String[(size + PAGE_SIZE - 1) >> PAGE_BITS][];
+    }
+
+    String of(int value) {
+        int i = value - min;
+        if (i < 0 || i >= size) return prefix + value;
+        String[] page = pages[i >> PAGE_BITS];
+        if (page == null) {
+            page = new String[PAGE_SIZE];
+            pages[i >> PAGE_BITS] = page;
+        }
+        String text = page[i & (PAGE_SIZE - 1)];
+        if (text == null) {
+            text = prefix + value;
+            page[i & (PAGE_SIZE - 1)] = text;
+        }
+        return text;
+    }
+}
@@ -0,0 +1,103 @@
+package knightstour.game;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Checks that playing and undoing moves in {@link TourEngine} allocates nothing once
+ * a game is set up, using the JVM's per-thread allocation counter. Each game plays a
+ * full tour with undos and revisits mixed in, with the recording attached and every
+ * move timed on a {@link MoveClock}, as in the game.
+ *
+ * Usage: java -cp out knightstour.game.EngineAllocationCheck [games]
+ * Exits with status 1 if any bytes were allocated on the move path.
+ */
+public class EngineAllocationCheck {
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Random rnd = new Random(7);
+        boolean failed = false;
+
+        Level[] levels = Level.defaults();
+        int[][] tours = new int[levels.length][];
+        for (int i = 0; i < levels.length; i++) {
+            while (tours[i] == null) tours[i] = TourSolver.forSize(levels[i].boardSize).findTour(0, rnd, 1_000_000);
+        }
+
+        // Warm up every level first so the JIT has settled before anything is measured. Two
+        // rounds, so code compiled on one level's branch profile has been recompiled for all
+        // of them (a deoptimization allocates a few hundred bytes of frame state).
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < levels.length; i++) {
+                for (int g = 0; g < games; g++) playGame(newGame(levels[i]), new MoveClock(levels[i].boardSize), tours[i]);
+            }
+        }
+
+        // Calibrate the counter itself, then measure only the moves
+        long overhead = threads.getCurrentThreadAllocatedBytes();
+        overhead = threads.getCurrentThreadAllocatedBytes() - overhead;
+
+        for (int i = 0; i < levels.length; i++) {
+            long bytes = 0;
+            long moves = 0;
+            for (int g = 0; g < games; g++) {
+                TourEngine engine = newGame(levels[i]);
+                MoveClock clock = new MoveClock(levels[i].boardSize);
+                long before = threads.getCurrentThreadAllocatedBytes();
+                moves += playGame(engine, clock, tours[i]);
+                bytes += threads.getCurrentThreadAllocatedBytes() - before - overhead;
+            }
+            System.out.printf("%s: %d moves, %d bytes allocated on the move path (%.3f bytes/move)%n",
+                    levels[i].name, moves, bytes, (double) bytes / moves);
+            if (bytes > 0) failed = true;
+        }
+        if (failed) {
+            System.out.println("FAIL: the move path allocates");
+            System.exit(1);
+        }
+        System.out.println("OK: no allocation per move");
+    }
+
+    private static TourEngine newGame(Level level) {
+        TourEngine engine = new TourEngine(level);
+        engine.setRecording(new MoveRecording(level));
+        return engine;
+    }
+
+    /**
+     * Play a tour, undoing and replaying every fifth move and revisiting now and then
+     * @return number of engine calls made
+     */
+    private static int playGame(TourEngine engine, MoveClock clock, int[] tour) {
+        int n = engine.getBoardSize();
+        int calls = 0;
+        for (int i = 0; i < tour.length; i++) {
+            play(engine, clock, tour[i]);
+            calls++;
+            if (i % 5 == 4) {
+                engine.undo();
+                clock.undo(System.nanoTime());
+                play(engine, clock, tour[i]);
+                calls += 2;
+            }
+            if (i % 11 == 10 && i + 1 < tour.length) {
+                // Step back onto the previous square and undo it again
+                play(engine, clock, tour[i - 1]);
+                engine.undo();
+                clock.undo(System.nanoTime());
+                calls += 2;
+            }
+            if (engine.isTourComplete() != (i == tour.length - 1)) throw new IllegalStateException("bad tour state");
+        }
+        return calls;
+    }
+
+    private static void play(TourEngine engine, MoveClock clock, int square) {
+        long now = System.nanoTime();
+        long think = clock.peek(now);
+        engine.play(square / engine.getBoardSize(), square % engine.getBoardSize(), think < 0 ? -1 : think / 1_000_000);
+        clock.mark(now);
+    }
+}
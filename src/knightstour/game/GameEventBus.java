@@ -0,0 +1,191 @@
+package knightstour.game;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Game events (moves, undos, finished and abandoned games) passed from the FX thread
+ * to subscribers that each run on their own daemon thread: sounds and telemetry.
+ * Delivery may drop events (see below), so nothing that must not be lost, such as
+ * high-score records, is kept by a subscriber.
+ *
+ * Events go through one ring buffer preallocated as parallel primitive arrays. The
+ * game is the only publisher: {@link #publish} writes the fields into the next slot
+ * and then advances a volatile cursor, so publishing takes no lock, allocates
+ * nothing and never waits for a subscriber. Each subscriber follows the cursor with
+ * its own read sequence, copying every slot into its one reused {@link Event}.
+ * A subscriber with nothing to read parks until the next publish unparks it.
+ *
+ * The publisher never blocks, so a subscriber more than a ring behind loses the
+ * overwritten events; it skips ahead to the oldest one still there and counts the
+ * rest in {@link #dropped()}. At {@link #CAPACITY} events that takes hundreds of
+ * moves that a subscriber has not yet looked at.
+ */
+public final class GameEventBus {
+    public static final int CAPACITY = 1024;        // power of two
+    private static final int MASK = CAPACITY - 1;
+
+    public enum Kind { MOVED, UNDONE, COMPLETED, ABANDONED }
+    private static final Kind[] KINDS = Kind.values();
+
+    /**
+     * One event, as handed to a subscriber. The same instance is reused for every
+     * event of that subscriber, so copy out anything that must outlive the call.
+     */
+    public static final class Event {
+        public long sequence;
+        public Kind kind;
+        public int game;          // which game (bumped by the game for every new one)
+        public int boardSize;
+        public int square;        // square moved to or taken back (-1 for whole-game events)
+        public int score;
+        public int moveCount;
+        public int visited;       // squares visited
+        public long elapsedMillis; // game clock for timed games, -1 otherwise
+        public long publishedNanos;
+    }
+
+    public interface Subscriber {
+        void onEvent(Event event);
+    }
+
+    // The ring: slot i of each array belongs to one event
+    private final byte[] kinds = new byte[CAPACITY];
+    private final int[] games = new int[CAPACITY];
+    private final int[] boardSizes = new int[CAPACITY];
+    private final int[] squares = new int[CAPACITY];
+    private final int[] scores = new int[CAPACITY];
+    private final int[] moveCounts = new int[CAPACITY];
+    private final int[] visits = new int[CAPACITY];
+    private final long[] elapsed = new long[CAPACITY];
+    private final long[] published = new long[CAPACITY];
+
+    private final AtomicLong cursor = new AtomicLong(-1); // last published sequence
+    private final AtomicLong dropped = new AtomicLong();
+    private final List<Consumer> consumers = new ArrayList<>();
+    private volatile Consumer[] active = new Consumer[0];
+
+    /**
+     * Publish an event (from the FX thread only)
+     */
+    public void publish(Kind kind, int game, int boardSize, int square, int score, int moveCount,
+                        int visited, long elapsedMillis) {
+        long seq = cursor.get() + 1;
+        int i = (int) seq & MASK;
+        kinds[i] = (byte) kind.ordinal();
+        games[i] = game;
+        boardSizes[i] = boardSize;
+        squares[i] = square;
+        scores[i] = score;
+        moveCounts[i] = moveCount;
+        visits[i] = visited;
+        elapsed[i] = elapsedMillis;
+        published[i] = System.nanoTime();
+        cursor.set(seq); // volatile write: the slot is visible to whoever reads this sequence
+        for (Consumer c : active) {
+            if (c.parked) LockSupport.unpark(c.thread);
+        }
+    }
+
+    /**
+     * Start delivering events published from now on to a subscriber, on a thread of its own
+     */
+    public synchronized void subscribe(String name, Subscriber subscriber) {
+        Consumer c = new Consumer(subscriber, cursor.get() + 1);
+        c.thread = new Thread(c::run, "knightstour-events-" + name);
+        c.thread.setDaemon(true);
+        consumers.add(c);
+        active = consumers.toArray(new Consumer[0]);
+        c.thread.start();
+    }
+
+    /**
+     * Events subscribers missed because they fell a whole ring behind
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Wait up to a timeout for every subscriber to handle what has been published
+     * @return whether they all caught up
+     */
+    public boolean drain(long timeoutMillis) {
+        long target = cursor.get(), deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        for (Consumer c : active) {
+            while (c.handled < target) {
+                if (System.nanoTime() > deadline) return false;
+                LockSupport.parkNanos(1_000_000);
+            }
+        }
+        return true;
+    }
+
+    private final class Consumer {
+        final Subscriber subscriber;
+        final Event event = new Event();
+        Thread thread;
+        long next;                    // next sequence to read
+        volatile long handled = -1;   // last sequence handed to the subscriber
+        volatile boolean parked;
+
+        Consumer(Subscriber subscriber, long next) {
+            this.subscriber = subscriber;
+            this.next = next;
+            this.handled = next - 1;
+        }
+
+        void run() {
+            while (true) {
+                long available = cursor.get();
+                if (next > available) {
+                    parked = true;
+                    if (cursor.get() < next) LockSupport.park(this); // re-checked after announcing
+                    parked = false;
+                    continue;
+                }
+                if (available - next >= CAPACITY) {
+                    long skipTo = available - CAPACITY + 1;
+                    dropped.addAndGet(skipTo - next);
+                    next = skipTo;
+                }
+                if (read(next)) {
+                    try {
+                        subscriber.onEvent(event);
+                    } catch (RuntimeException e) {
+                        System.err.println("Event subscriber " + thread.getName() + " failed: " + e);
+                    }
+                }
+                handled = next++;
+            }
+        }
+
+        /**
+         * Copy a slot into the event; false if the publisher overwrote it meanwhile
+         */
+        boolean read(long seq) {
+            int i = (int) seq & MASK;
+            event.sequence = seq;
+            event.kind = KINDS[kinds[i]];
+            event.game = games[i];
+            event.boardSize = boardSizes[i];
+            event.square = squares[i];
+            event.score = scores[i];
+            event.moveCount = moveCounts[i];
+            event.visited = visits[i];
+            event.elapsedMillis = elapsed[i];
+            event.publishedNanos = published[i];
+            // The publisher starts overwriting this slot once the cursor is a ring less
+            // one ahead; the fence keeps the reads above from moving past the check
+            VarHandle.acquireFence();
+            if (cursor.get() - seq >= CAPACITY - 1) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -2,14 +2,20 @@ package knightstour.game;
 
 import java.io.*;
 import java.util.Properties;
+import java.util.concurrent.Executor;
 
 /**
  * Manages high scores for the Knight's Tour game.
- * Tracks best score and fewest moves for each difficulty level.
+ * Tracks best score, fewest moves and fastest timed tour for each difficulty level,
+ * keyed by the level's {@link Level#recordKey}.
+ * Records are updated and imported on the FX thread while the file is written on the
+ * save executor, so every check-and-update is synchronized.
  */
 public class HighScoreManager {
+    public static final int NO_MOVES_RECORD = Integer.MAX_VALUE; // fewest moves before any tour is completed
     private static final String SCORE_FILE = "knightstour_highscores.properties";
     private Properties scores;
+    private Executor saveExecutor = Runnable::run; // where file writes run (the caller's thread by default)
 
     public HighScoreManager() {
         scores = new Properties();
@@ -30,41 +36,55 @@ public class HighScoreManager {
         }
     }
 
+    /**
+     * Run file writes on the given executor instead of the calling thread
+     */
+    public void setSaveExecutor(Executor saveExecutor) {
+        this.saveExecutor = saveExecutor;
+    }
+
     /**
      * Save high scores to file
      */
     private void saveScores() {
+        saveExecutor.execute(this::writeScores);
+    }
+
+    private synchronized void writeScores() {
+        long t0 = PerfStats.start();
         try (FileOutputStream fos = new FileOutputStream(SCORE_FILE)) {
             scores.store(fos, "Knight's Tour High Scores");
         } catch (IOException e) {
             System.err.println("Error saving high scores: " + e.getMessage());
+        } finally {
+            PerfStats.stop(PerfStats.Section.SAVE_SCORES, t0);
         }
     }
 
     /**
      * Get the best score for a difficulty level
      */
-    public int getBestScore(int boardSize) {
-        String key = "score_" + boardSize;
+    public int getBestScore(String level) {
+        String key = "score_" + level;
         return Integer.parseInt(scores.getProperty(key, "0"));
     }
 
     /**
-     * Get the fewest moves for a difficulty level
+     * Get the fewest moves for a difficulty level ({@link #NO_MOVES_RECORD} if none yet)
      */
-    public int getFewestMoves(int boardSize) {
-        String key = "moves_" + boardSize;
-        return Integer.parseInt(scores.getProperty(key, "999"));
+    public int getFewestMoves(String level) {
+        String value = scores.getProperty("moves_" + level);
+        return value == null ? NO_MOVES_RECORD : Integer.parseInt(value);
     }
 
     /**
      * Check if this is a new high score and update if so
      * @return true if new high score was set
      */
-    public boolean checkAndUpdateScore(int boardSize, int score) {
-        int currentBest = getBestScore(boardSize);
+    public synchronized boolean checkAndUpdateScore(String level, int score) {
+        int currentBest = getBestScore(level);
         if (score > currentBest) {
-            scores.setProperty("score_" + boardSize, String.valueOf(score));
+            scores.setProperty("score_" + level, String.valueOf(score));
             saveScores();
             return true;
         }
@@ -75,10 +95,32 @@ public class HighScoreManager {
      * Check if this is a new record for fewest moves and update if so
      * @return true if new record was set
      */
-    public boolean checkAndUpdateMoves(int boardSize, int moves) {
-        int currentBest = getFewestMoves(boardSize);
+    public synchronized boolean checkAndUpdateMoves(String level, int moves) {
+        int currentBest = getFewestMoves(level);
         if (moves < currentBest) {
-            scores.setProperty("moves_" + boardSize, String.valueOf(moves));
+            scores.setProperty("moves_" + level, String.valueOf(moves));
+            saveScores();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the fastest completed tour in milliseconds (0 if none yet)
+     */
+    public long getFastestTourMillis(String level) {
+        String key = "fastest_ms_" + level;
+        return Long.parseLong(scores.getProperty(key, "0"));
+    }
+
+    /**
+     * Check if this is a new record for the fastest timed tour and update if so
+     * @return true if new record was set
+     */
+    public synchronized boolean checkAndUpdateFastestTour(String level, long millis) {
+        long currentBest = getFastestTourMillis(level);
+        if (currentBest == 0 || millis < currentBest) {
+            scores.setProperty("fastest_ms_" + level, String.valueOf(millis));
             saveScores();
             return true;
         }
@@ -88,16 +130,16 @@ public class HighScoreManager {
     /**
      * Get the best attempt score (even if tour not completed)
      */
-    public int getBestAttemptScore(int boardSize) {
-        String key = "attempt_score_" + boardSize;
+    public int getBestAttemptScore(String level) {
+        String key = "attempt_score_" + level;
         return Integer.parseInt(scores.getProperty(key, "0"));
     }
 
     /**
      * Get the most squares visited (even if tour not completed)
      */
-    public int getMostSquaresVisited(int boardSize) {
-        String key = "attempt_squares_" + boardSize;
+    public int getMostSquaresVisited(String level) {
+        String key = "attempt_squares_" + level;
         return Integer.parseInt(scores.getProperty(key, "0"));
     }
 
@@ -105,10 +147,10 @@ public class HighScoreManager {
      * Check and update best attempt score (for incomplete tours)
      * @return true if new record was set
      */
-    public boolean checkAndUpdateAttemptScore(int boardSize, int score) {
-        int currentBest = getBestAttemptScore(boardSize);
+    public synchronized boolean checkAndUpdateAttemptScore(String level, int score) {
+        int currentBest = getBestAttemptScore(level);
         if (score > currentBest) {
-            scores.setProperty("attempt_score_" + boardSize, String.valueOf(score));
+            scores.setProperty("attempt_score_" + level, String.valueOf(score));
             saveScores();
             return true;
         }
@@ -119,16 +161,30 @@ public class HighScoreManager {
      * Check and update most squares visited (for incomplete tours)
      * @return true if new record was set
      */
-    public boolean checkAndUpdateSquaresVisited(int boardSize, int squaresVisited) {
-        int currentBest = getMostSquaresVisited(boardSize);
+    public synchronized boolean checkAndUpdateSquaresVisited(String level, int squaresVisited) {
+        int currentBest = getMostSquaresVisited(level);
         if (squaresVisited > currentBest) {
-            scores.setProperty("attempt_squares_" + boardSize, String.valueOf(squaresVisited));
+            scores.setProperty("attempt_squares_" + level, String.valueOf(squaresVisited));
             saveScores();
             return true;
         }
         return false;
     }
 
+    /**
+     * Take in the records of other machines' score files (see {@link HighScoreMerge}):
+     * each record keeps the better of the two values, so importing the same file
+     * twice, or files in any order, gives the same result
+     * @param input a .properties file, or a directory of them
+     * @return the number of records that improved
+     */
+    public synchronized int importScores(java.nio.file.Path input) throws IOException {
+        Properties others = HighScoreMerge.mergeFiles(HighScoreMerge.expand(input));
+        int improved = HighScoreMerge.mergeInto(scores, others).size();
+        if (improved > 0) saveScores();
+        return improved;
+    }
+
     /**
      * Check if tour was completed (all squares visited)
      */
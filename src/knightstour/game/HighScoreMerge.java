@@ -0,0 +1,164 @@
+package knightstour.game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Merges high-score files from several machines. Every record is a register that
+ * only ever moves one way, so the merge of two values is simply the better one:
+ *   score_N, attempt_score_N, attempt_squares_N - the larger;
+ *   moves_N                                     - the smaller;
+ *   fastest_ms_N                                - the smaller, 0 meaning "none yet".
+ * (N is a level's record key, see {@link Level#recordKey}.)
+ * Keys without a rule keep the larger value (numerically if both are numbers).
+ * Picking the better of two values is commutative, associative and idempotent, so
+ * files can be merged in any order, in any grouping and any number of times, and
+ * every machine that has seen the same files ends up with the same records.
+ *
+ * Files are read one at a time and folded in parallel; only the (small) merged
+ * records and one file per worker are held in memory.
+ *
+ * Usage: java -cp out knightstour.game.HighScoreMerge output.properties input...
+ * (an input that is a directory stands for every .properties file in it)
+ */
+public final class HighScoreMerge {
+
+    enum Rule { MAX, MIN, MIN_NONZERO }
+
+    private HighScoreMerge() {}
+
+    static Rule ruleFor(String key) {
+        if (key.startsWith("moves_")) return Rule.MIN;
+        if (key.startsWith("fastest_ms_")) return Rule.MIN_NONZERO;
+        return Rule.MAX; // score_, attempt_score_, attempt_squares_ and anything unknown
+    }
+
+    /**
+     * The merged value of one record (either side may be null)
+     */
+    public static String merge(String key, String a, String b) {
+        if (a == null) return b;
+        if (b == null || a.equals(b)) return a;
+        long x, y;
+        try {
+            x = Long.parseLong(a.trim());
+        } catch (NumberFormatException e) {
+            return isNumber(b) ? b : (a.compareTo(b) >= 0 ? a : b); // a corrupt value never wins
+        }
+        try {
+            y = Long.parseLong(b.trim());
+        } catch (NumberFormatException e) {
+            return a;
+        }
+        long best;
+        switch (ruleFor(key)) {
+            case MIN:
+                best = Math.min(x, y);
+                break;
+            case MIN_NONZERO:
+                best = x == 0 ? y : y == 0 ? x : Math.min(x, y);
+                break;
+            default:
+                best = Math.max(x, y);
+        }
+        return Long.toString(best);
+    }
+
+    private static boolean isNumber(String s) {
+        try {
+            Long.parseLong(s.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Fold one set of records into another
+     * @return the keys whose value changed in {@code into}
+     */
+    public static List<String> mergeInto(Properties into, Properties from) {
+        List<String> changed = new ArrayList<>();
+        for (String key : from.stringPropertyNames()) {
+            String mine = into.getProperty(key);
+            String merged = merge(key, mine, from.getProperty(key));
+            if (!merged.equals(mine)) {
+                into.setProperty(key, merged);
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+
+    public static Properties read(Path file) throws IOException {
+        Properties p = new Properties();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            p.load(in);
+        }
+        return p;
+    }
+
+    /**
+     * The .properties files an input stands for: itself, or the ones in a directory
+     */
+    public static List<Path> expand(Path input) throws IOException {
+        if (!Files.isDirectory(input)) return List.of(input);
+        try (Stream<Path> files = Files.list(input)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".properties") && Files.isRegularFile(f))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Merge many files into one set of records, reading them in parallel
+     */
+    public static Properties mergeFiles(List<Path> files) throws IOException {
+        try {
+            return files.parallelStream()
+                    .map(f -> {
+                        try {
+                            return read(f);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(f + ": " + e.getMessage(), e);
+                        }
+                    })
+                    .reduce((x, y) -> {
+                        mergeInto(x, y); // both freshly read or merged here, so x can absorb y
+                        return x;
+                    })
+                    .orElseGet(Properties::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: HighScoreMerge output.properties input...");
+            System.exit(2);
+        }
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) files.addAll(expand(Paths.get(args[i])));
+
+        long t0 = System.nanoTime();
+        Properties merged = mergeFiles(files);
+        Path output = Paths.get(args[0]);
+        if (output.getParent() != null) Files.createDirectories(output.getParent());
+        try (OutputStream out = Files.newOutputStream(output)) {
+            merged.store(out, "Knight's Tour High Scores (merged from " + files.size() + " files)");
+        }
+        System.out.println("Merged " + files.size() + " files into " + merged.size() + " records in "
+                + (System.nanoTime() - t0) / 1_000_000 + " ms -> " + output);
+    }
+}
@@ -0,0 +1,273 @@
+package knightstour.game;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Single entry point for moves from the mouse, the keyboard and touch.
+ *
+ * Inputs are queued in arrival order and dispatched together on the next FX pulse,
+ * so a burst of clicks during a heavy redraw is applied in order and the board is
+ * redrawn once per batch. Every move is checked against the engine's rules before it
+ * is dispatched; the game only ever receives legal moves.
+ *
+ * Keyboard: arrows / Tab cycle through the piece's legal targets (in its move
+ * table's order, see {@link Leaper}) or move a free cursor before the first
+ * placement (and in cooperative games whenever no single piece moves next);
+ * Enter / Space plays the selected square; Backspace / U / Ctrl+Z undoes.
+ * Touch: a tap that lands just outside a legal target snaps to it.
+ */
+public final class InputPipeline {
+
+    public enum Source { MOUSE, KEYBOARD, TOUCH }
+
+    public enum Key { NEXT, PREVIOUS, UP, DOWN, LEFT, RIGHT, PLAY, UNDO }
+
+    /**
+     * The game screen the pipeline drives (all calls on the FX thread)
+     */
+    public interface Sink {
+        /** Live game to validate against, or null while input is blocked (e.g. a replay is open) */
+        TourEngine engine();
+        /** A legal move, in input order; inputNanos is when it arrived (System.nanoTime) */
+        void playMove(int row, int col, Source source, long inputNanos);
+        /** A move the rules don't allow from the knight's square */
+        void rejectMove(int row, int col, Source source);
+        void undoMove(long inputNanos);
+        /** Called once after each batch of inputs, to redraw the board */
+        void inputBatchDone();
+        /** Keyboard cursor square, or (-1, -1) to hide it */
+        void moveCursor(int row, int col);
+    }
+
+    private static final int UNDO_OP = -1;
+    private static final double TOUCH_SLOP = 0.9; // snap distance from a target's centre, in squares
+
+    private final Sink sink;
+    private final Executor fx;
+
+    private int[] queue = new int[64]; // ring of ops: source << 24 | row << 12 | col, or UNDO_OP
+    private long[] stamps = new long[64]; // arrival time of each op, so think times exclude the queueing
+    private int head = 0;
+    private int size = 0;
+    private boolean drainScheduled;
+
+    private boolean keyboardActive;    // show the cursor only once the keyboard is in use
+    private int cursorRow = -1;
+    private int cursorCol = -1;
+
+    public InputPipeline(Sink sink, Executor fx) {
+        this.sink = sink;
+        this.fx = fx;
+    }
+
+    // =========================================================
+    // Sources
+    // =========================================================
+
+    /**
+     * A square was clicked or tapped directly
+     */
+    public void square(Source source, int row, int col) {
+        if (source != Source.KEYBOARD) hideCursor();
+        enqueue((source.ordinal() << 24) | (row << 12) | col);
+    }
+
+    public void undo() {
+        enqueue(UNDO_OP);
+    }
+
+    /**
+     * A tap at (x, y) in board coordinates (origin at the top-left corner of square 0,0)
+     */
+    public void touch(double x, double y, double squareSize) {
+        TourEngine engine = sink.engine();
+        if (engine == null) return;
+        int n = engine.getBoardSize();
+        int row = (int) Math.floor(y / squareSize);
+        int col = (int) Math.floor(x / squareSize);
+
+        int from = predictedSquare(engine);
+        boolean legal = row >= 0 && row < n && col >= 0 && col < n
+                && (from < 0 || engine.isLegalMove(from / n, from % n, row, col));
+        if (!legal && from >= 0) {
+            // Fat finger: take the nearest legal target if the tap was close to it
+            double best = TOUCH_SLOP;
+            for (int t : engine.targets(from)) {
+                int tr = t / n, tc = t % n;
+                double d = Math.hypot(x / squareSize - (tc + 0.5), y / squareSize - (tr + 0.5));
+                if (d <= best) {
+                    best = d;
+                    row = tr;
+                    col = tc;
+                }
+            }
+        }
+        if (row >= 0 && row < n && col >= 0 && col < n) square(Source.TOUCH, row, col);
+    }
+
+    /**
+     * A key press on the game screen
+     * @return true if the key was used (the caller should consume the event)
+     */
+    public boolean key(Key key) {
+        TourEngine engine = sink.engine();
+        if (engine == null) return false;
+        int n = engine.getBoardSize();
+
+        switch (key) {
+            case UNDO:
+                undo();
+                return true;
+            case PLAY:
+                if (!keyboardActive || cursorRow < 0) return false;
+                square(Source.KEYBOARD, cursorRow, cursorCol);
+                return true;
+            default:
+                break;
+        }
+
+        keyboardActive = true;
+        int from = predictedSquare(engine);
+        if (from == -1) {
+            // No knight yet: the cursor roams the whole board
+            if (cursorRow < 0) {
+                cursorRow = 0;
+                cursorCol = 0;
+            } else {
+                if (key == Key.UP) cursorRow = Math.max(0, cursorRow - 1);
+                if (key == Key.DOWN) cursorRow = Math.min(n - 1, cursorRow + 1);
+                if (key == Key.LEFT || key == Key.PREVIOUS) cursorCol = Math.max(0, cursorCol - 1);
+                if (key == Key.RIGHT || key == Key.NEXT) cursorCol = Math.min(n - 1, cursorCol + 1);
+            }
+        } else if (from >= 0) {
+            int[] targets = engine.targets(from);
+            int k = targets.length;
+            if (k == 0) return true;
+            int current = -1;
+            for (int i = 0; i < k; i++) if (targets[i] == cursorRow * n + cursorCol) current = i;
+            boolean back = key == Key.PREVIOUS || key == Key.UP || key == Key.LEFT;
+            int next = current < 0 ? 0 : (current + (back ? k - 1 : 1)) % k;
+            cursorRow = targets[next] / n;
+            cursorCol = targets[next] % n;
+        }
+        sink.moveCursor(cursorRow, cursorCol);
+        return true;
+    }
+
+    private void hideCursor() {
+        if (!keyboardActive) return;
+        keyboardActive = false;
+        cursorRow = cursorCol = -1;
+        sink.moveCursor(-1, -1);
+    }
+
+    /**
+     * Forget queued input and the cursor (new game, replay opened, board rebuilt)
+     */
+    public void reset() {
+        size = 0;
+        keyboardActive = false;
+        cursorRow = cursorCol = -1;
+    }
+
+    // =========================================================
+    // Queue
+    // =========================================================
+    private void enqueue(int op) {
+        long now = System.nanoTime();
+        if (size == queue.length) {
+            int[] grown = new int[queue.length * 2];
+            long[] grownStamps = new long[queue.length * 2];
+            for (int i = 0; i < size; i++) {
+                grown[i] = queue[(head + i) % queue.length];
+                grownStamps[i] = stamps[(head + i) % queue.length];
+            }
+            queue = grown;
+            stamps = grownStamps;
+            head = 0;
+        }
+        stamps[(head + size) % queue.length] = now;
+        queue[(head + size++) % queue.length] = op;
+        if (!drainScheduled) {
+            drainScheduled = true;
+            fx.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled = false;
+        if (size == 0) return;
+        while (size > 0) {
+            int op = queue[head];
+            long stamp = stamps[head];
+            head = (head + 1) % queue.length;
+            size--;
+
+            TourEngine engine = sink.engine();
+            if (engine == null) {
+                size = 0; // input arrived just before the board was locked
+                break;
+            }
+            if (op == UNDO_OP) {
+                sink.undoMove(stamp);
+                continue;
+            }
+            Source source = Source.values()[op >>> 24];
+            int row = (op >>> 12) & 0xFFF;
+            int col = op & 0xFFF;
+            if (!engine.inBounds(row, col) || (!engine.isPlacing() && !engine.canMoveTo(row, col))) {
+                sink.rejectMove(row, col, source);
+                continue;
+            }
+            sink.playMove(row, col, source, stamp);
+        }
+        sink.inputBatchDone();
+
+        // Keep the keyboard cursor on a target of the knight's new square
+        if (keyboardActive) {
+            TourEngine engine = sink.engine();
+            int from = engine == null ? -1 : engine.getMoverSquare();
+            if (from >= 0) {
+                int n = engine.getBoardSize();
+                int[] targets = engine.targets(from);
+                int k = targets.length;
+                int pick = -1;
+                for (int i = 0; i < k && pick < 0; i++) {
+                    if (!engine.isVisited(targets[i] / n, targets[i] % n)) pick = i; // prefer fresh squares
+                }
+                if (pick < 0 && k > 0) pick = 0;
+                cursorRow = pick < 0 ? -1 : targets[pick] / n;
+                cursorCol = pick < 0 ? -1 : targets[pick] % n;
+            }
+            sink.moveCursor(cursorRow, cursorCol);
+        }
+    }
+
+    /**
+     * Square the knight will be on once the queue is applied: -1 if it isn't placed yet
+     * (or, with several pieces, no single one moves next), -2 if that depends on queued input.
+     * Queued squares the rules will reject are skipped, as the drain will skip them.
+     */
+    private int predictedSquare(TourEngine engine) {
+        int from = engine.getMoverSquare();
+        if (size == 0) return from;
+        if (engine.getKnightCount() > 1) return -2;
+        int n = engine.getBoardSize();
+        boolean placing = engine.isPlacing();
+        for (int i = 0; i < size; i++) {
+            int op = queue[(head + i) % queue.length];
+            if (op == UNDO_OP) return -2;
+            int row = (op >>> 12) & 0xFFF;
+            int col = op & 0xFFF;
+            if (!engine.inBounds(row, col)) continue;
+            if (placing) {
+                if (!engine.isActive(row, col)) continue;
+                placing = false;
+            } else if (!engine.isLegalMove(from / n, from % n, row, col)) {
+                continue;
+            }
+            from = row * n + col;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,190 @@
+package knightstour.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A leaping piece: an (a,b)-leaper jumps a squares one way and b the other, in any of
+ * the eight directions (the knight is the (2,1)-leaper); compound pieces combine
+ * several leaps. Everything the game asks about moves is answered from tables:
+ *   - a move check is one array read on the (|dr|, |dc|) of the move;
+ *   - per board size, the targets of every square are computed once and shared.
+ * So a camel or a wizard costs the engine and the solvers the same per move as the knight.
+ */
+public final class Leaper {
+    public static final Leaper KNIGHT = of("Knight", "♞", 2, 1);
+    public static final Leaper CAMEL = of("Camel", "C", 3, 1);
+    public static final Leaper ZEBRA = of("Zebra", "Z", 3, 2);
+    public static final Leaper GIRAFFE = of("Giraffe", "G", 4, 1);
+    public static final Leaper WIZARD = of("Wizard", "W", 3, 1, 1, 1); // camel + ferz
+
+    private static final Leaper[] ALL = {KNIGHT, CAMEL, ZEBRA, GIRAFFE, WIZARD};
+
+    public final String name;
+    public final String symbol;    // drawn on the piece's square
+    private final int[][] deltas;  // {dr, dc}, sorted by dr then dc
+    private final int reach;       // largest |dr| or |dc|
+    private final boolean[] leaps; // by |dr| * (reach + 1) + |dc|
+    private final String key;      // the sorted leaps, e.g. for solver caches (names aren't unique)
+
+    private final ConcurrentHashMap<Integer, int[][]> tables = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, int[]> components = new ConcurrentHashMap<>();
+
+    private Leaper(String name, String symbol, int[][] deltas) {
+        this.name = name;
+        this.symbol = symbol;
+        this.deltas = deltas;
+        int max = 0;
+        for (int[] d : deltas) max = Math.max(max, Math.max(Math.abs(d[0]), Math.abs(d[1])));
+        this.reach = max;
+        this.leaps = new boolean[(reach + 1) * (reach + 1)];
+        for (int[] d : deltas) leaps[Math.abs(d[0]) * (reach + 1) + Math.abs(d[1])] = true;
+        StringBuilder sb = new StringBuilder();
+        for (int[] d : deltas) sb.append(d[0]).append(',').append(d[1]).append(';');
+        this.key = sb.toString();
+    }
+
+    /**
+     * A piece made of one or more (a,b) leaps, given as pairs: of("Wizard", "W", 3, 1, 1, 1)
+     */
+    public static Leaper of(String name, String symbol, int... leapPairs) {
+        if (leapPairs.length == 0 || leapPairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Leaps must be given as (a, b) pairs");
+        }
+        List<int[]> deltas = new ArrayList<>();
+        for (int i = 0; i < leapPairs.length; i += 2) {
+            int a = Math.abs(leapPairs[i]), b = Math.abs(leapPairs[i + 1]);
+            if (a == 0 && b == 0) throw new IllegalArgumentException("A (0,0) leap doesn't move");
+            int[][] eight = {{a, b}, {a, -b}, {-a, b}, {-a, -b}, {b, a}, {b, -a}, {-b, a}, {-b, -a}};
+            for (int[] d : eight) {
+                boolean dup = false;
+                for (int[] e : deltas) dup |= e[0] == d[0] && e[1] == d[1];
+                if (!dup) deltas.add(d);
+            }
+        }
+        deltas.sort((x, y) -> x[0] != y[0] ? Integer.compare(x[0], y[0]) : Integer.compare(x[1], y[1]));
+        return new Leaper(name, symbol, deltas.toArray(new int[0][]));
+    }
+
+    /**
+     * One of the built-in pieces by name (case-insensitive)
+     */
+    public static Leaper byName(String name) {
+        for (Leaper p : ALL) if (p.name.equalsIgnoreCase(name)) return p;
+        throw new IllegalArgumentException("Unknown piece: " + name);
+    }
+
+    public static Leaper[] builtIn() {
+        return ALL.clone();
+    }
+
+    /**
+     * Whether a move by (dr, dc) is one of this piece's leaps
+     */
+    public boolean isMove(int dr, int dc) {
+        dr = Math.abs(dr);
+        dc = Math.abs(dc);
+        return dr <= reach && dc <= reach && leaps[dr * (reach + 1) + dc];
+    }
+
+    /**
+     * Leaps as {dr, dc} pairs, sorted by dr then dc (the knight's match {@link TourEngine#KNIGHT_DELTAS})
+     */
+    public int[][] deltas() {
+        int[][] copy = new int[deltas.length][];
+        for (int i = 0; i < deltas.length; i++) copy[i] = deltas[i].clone();
+        return copy;
+    }
+
+    /**
+     * Identifies the piece's moves: two pieces with the same leaps have the same key
+     */
+    public String key() {
+        return key;
+    }
+
+    public int maxTargets() {
+        return deltas.length;
+    }
+
+    /**
+     * Targets of every square of a board, in delta order (shared; do not modify)
+     */
+    public int[][] moveTable(int boardSize) {
+        int[][] table = tables.get(boardSize); // plain get first: computeIfAbsent allocates its lambda
+        return table != null ? table : tables.computeIfAbsent(boardSize, this::buildTable);
+    }
+
+    private int[][] buildTable(int boardSize) {
+        int squares = boardSize * boardSize;
+        int[][] table = new int[squares][];
+        int[] buf = new int[deltas.length];
+        for (int sq = 0; sq < squares; sq++) {
+            int r = sq / boardSize, c = sq % boardSize, n = 0;
+            for (int[] d : deltas) {
+                int nr = r + d[0], nc = c + d[1];
+                if (nr >= 0 && nr < boardSize && nc >= 0 && nc < boardSize) buf[n++] = nr * boardSize + nc;
+            }
+            table[sq] = Arrays.copyOf(buf, n);
+        }
+        return table;
+    }
+
+    /**
+     * Number of squares reachable from a square (itself included): a tour from there
+     * is complete once they are all visited. Colour-bound pieces such as the camel
+     * reach half the board at most.
+     */
+    public int reachable(int boardSize, int square) {
+        return components(boardSize)[square];
+    }
+
+    /**
+     * Whether every square can reach every other, so a tour covers the whole board
+     */
+    public boolean isConnected(int boardSize) {
+        return reachable(boardSize, 0) == boardSize * boardSize;
+    }
+
+    /**
+     * Size of each square's component of the move graph
+     */
+    private int[] components(int boardSize) {
+        int[] known = components.get(boardSize);
+        return known != null ? known : components.computeIfAbsent(boardSize, this::buildComponents);
+    }
+
+    private int[] buildComponents(int n) {
+        int[][] table = moveTable(n);
+        int squares = n * n;
+        int[] root = new int[squares];
+        int[] size = new int[squares];
+        Arrays.fill(root, -1);
+        int[] queue = new int[squares];
+        for (int s = 0; s < squares; s++) {
+            if (root[s] >= 0) continue;
+            int head = 0, tail = 0;
+            queue[tail++] = s;
+            root[s] = s;
+            while (head < tail) {
+                for (int t : table[queue[head++]]) {
+                    if (root[t] < 0) {
+                        root[t] = s;
+                        queue[tail++] = t;
+                    }
+                }
+            }
+            size[s] = tail;
+        }
+        int[] reachable = new int[squares];
+        for (int s = 0; s < squares; s++) reachable[s] = size[root[s]];
+        return reachable;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
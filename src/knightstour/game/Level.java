@@ -6,13 +6,108 @@ public class Level {
     public final int pointsPerMove;
     public final int revisitPenalty;
     public final int undoPenalty;
+    public final Leaper piece;
+    public final BoardTopology topology;
+    public final int knights;           // pieces sharing the board (cooperative mode when > 1)
+    public final boolean freeTurns;     // any piece may move next, rather than each in turn
+    public final ScoringRules scoring;
+    public final ScoringRules.Evaluator scorer; // scoring compiled for this board
+    public final String recordKey;      // high scores are kept per key (see HighScoreManager)
+    private final Level solo;           // the single-knight level this one was made from
 
     public Level(String name, int boardSize, int pointsPerMove, int revisitPenalty, int undoPenalty) {
+        this(name, BoardTopology.plain(boardSize), ScoringRules.basic(pointsPerMove, revisitPenalty, undoPenalty), Leaper.KNIGHT);
+    }
+
+    /**
+     * A level with its own scoring rules (see {@link ScoringRules} for the spec format)
+     */
+    public Level(String name, int boardSize, String scoring) {
+        this(name, boardSize, scoring, Leaper.KNIGHT);
+    }
+
+    /**
+     * A level played with another leaper than the knight
+     */
+    public Level(String name, int boardSize, String scoring, Leaper piece) {
+        this(name, BoardTopology.plain(boardSize), ScoringRules.parse(scoring), piece);
+    }
+
+    /**
+     * A level on an irregular or wrapped board (see {@link BoardTopology#parse} for the board spec)
+     */
+    public Level(String name, int boardSize, String scoring, Leaper piece, String board) {
+        this(name, BoardTopology.parse(boardSize, board), ScoringRules.parse(scoring), piece);
+    }
+
+    private Level(String name, BoardTopology topology, ScoringRules scoring, Leaper piece) {
+        this(name, topology, scoring, piece, 1, false, null);
+    }
+
+    private Level(String name, BoardTopology topology, ScoringRules scoring, Leaper piece,
+                  int knights, boolean freeTurns, Level solo) {
+        if (knights < 1 || knights > topology.activeSquares()) {
+            throw new IllegalArgumentException("Can't put " + knights + " pieces on " + name);
+        }
         this.name = name;
-        this.boardSize = boardSize;
-        this.pointsPerMove = pointsPerMove;
-        this.revisitPenalty = revisitPenalty;
-        this.undoPenalty = undoPenalty;
+        this.boardSize = topology.boardSize;
+        this.topology = topology;
+        this.knights = knights;
+        this.freeTurns = freeTurns;
+        this.solo = solo != null ? solo : this;
+        this.piece = piece;
+        this.pointsPerMove = scoring.movePoints;
+        this.revisitPenalty = -scoring.revisitPoints;
+        this.undoPenalty = -scoring.undoPoints;
+        this.scoring = scoring;
+        this.scorer = scoring.compile(topology);
+        this.recordKey = recordKey(boardSize, scoring);
+    }
+
+    /**
+     * Levels with basic scoring keep their records by board size, as before rule specs;
+     * any other rules score differently, so their records get a key of their own
+     */
+    private static String recordKey(int boardSize, ScoringRules scoring) {
+        if (scoring.isBasic()) return String.valueOf(boardSize);
+        return boardSize + "_" + Integer.toHexString(scoring.spec.hashCode());
+    }
+
+    /**
+     * This level played cooperatively: the given number of pieces share the board and
+     * between them must visit every square (see {@link TourEngine} for the turn rules)
+     */
+    public Level withKnights(int knights, boolean freeTurns) {
+        if (knights == this.knights && freeTurns == this.freeTurns) return this;
+        if (knights == 1) return solo;
+        String mode = " - " + knights + " knights" + (freeTurns ? ", free turns" : "");
+        return new Level(solo.name + mode, topology, scoring, piece, knights, freeTurns, solo);
+    }
+
+    /**
+     * The single-knight level a cooperative one was made from (this level if it is one)
+     */
+    public Level solo() {
+        return solo;
+    }
+
+    /**
+     * The standard levels offered by the game, easiest first
+     */
+    public static Level[] defaults() {
+        return new Level[]{
+                new Level("Easy (6x6)", 6, 10, 10, 5),
+                new Level("Classic (8x8)", 8, 10, 10, 5),
+                new Level("Hard (10x10)", 10,
+                        "move=15;revisit=-15;undo=-10;corner=5;edge=2;streak=10x1.2;streakMax=2;fast=3000+5")
+        };
+    }
+
+    /**
+     * A board of any size with the Classic scoring
+     */
+    public static Level custom(int boardSize) {
+        return new Level("Custom (" + boardSize + "x" + boardSize + ")", boardSize, 10, 10, 5);
     }
 
     @Override
@@ -20,4 +115,3 @@ public class Level {
         return name;
     }
 }
-
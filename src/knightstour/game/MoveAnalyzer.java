@@ -0,0 +1,208 @@
+package knightstour.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Post-game review: for every prefix of a game, could the remaining squares still
+ * all be visited (without revisits)? Each move is then marked by what it did to that:
+ *   GOOD       - fresh square, a full tour is still possible afterwards;
+ *   INACCURATE - a revisit, or a move made after the tour was already lost;
+ *   FATAL      - the move after which no tour was possible any more;
+ *   UNKNOWN    - the solver ran out of budget before it could tell.
+ *
+ * Tourability can only go from yes to no along a run of fresh moves, so each run is
+ * resolved with a k-way search (k probes per round, evaluated in parallel) instead of
+ * one solver call per prefix, and the whole game shares one node budget so a review
+ * always comes back quickly (hard positions are left UNKNOWN). Probes reuse
+ * {@link TourSolver.Position}s that are moved along the game, so consecutive probes
+ * share their search state.
+ */
+public class MoveAnalyzer {
+
+    public enum Quality { GOOD, INACCURATE, FATAL, UNKNOWN }
+
+    private static final long PROBE_BUDGET = 100_000;    // solver nodes per prefix
+    private static final long ANALYSIS_BUDGET = 3_000_000; // solver nodes per game, shared by all probes
+    private static final int NOT_PROBED = -2;
+
+    private final TourSolver solver;
+    private final BoardTopology topology;
+    private final ConcurrentLinkedQueue<TourSolver.Position> positions = new ConcurrentLinkedQueue<>();
+
+    public MoveAnalyzer(int boardSize) {
+        this(boardSize, Leaper.KNIGHT);
+    }
+
+    /**
+     * Analyser for another piece (its moves must connect the board, see {@link Leaper#isConnected})
+     */
+    public MoveAnalyzer(int boardSize, Leaper piece) {
+        this(BoardTopology.plain(boardSize), piece);
+    }
+
+    /**
+     * Analyser for a board with holes or wraparound (see {@link BoardTopology#isConnected})
+     */
+    public MoveAnalyzer(BoardTopology topology, Leaper piece) {
+        this.solver = TourSolver.forTopology(topology, piece);
+        this.topology = topology;
+    }
+
+    /**
+     * Result of analysing one game
+     */
+    public static final class Review {
+        public final int boardSize;
+        public final int[] line;          // squares of the game, oldest first
+        public final Quality[] quality;   // per move, parallel to line
+        public final int[] tourable;      // per prefix length 0..line.length: 1, 0 or TourSolver.UNKNOWN
+
+        Review(int boardSize, int[] line, Quality[] quality, int[] tourable) {
+            this.boardSize = boardSize;
+            this.line = line;
+            this.quality = quality;
+            this.tourable = tourable;
+        }
+
+        public int count(Quality q) {
+            int n = 0;
+            for (Quality x : quality) if (x == q) n++;
+            return n;
+        }
+
+        /**
+         * Index of the first fatal move, or -1
+         */
+        public int firstFatal() {
+            for (int i = 0; i < quality.length; i++) if (quality[i] == Quality.FATAL) return i;
+            return -1;
+        }
+    }
+
+    /**
+     * Analyse a game given as the squares visited in order (see {@link TourEngine#getHistory()})
+     */
+    public Review analyze(int[] line) {
+        int m = line.length;
+        int[] tourable = new int[m + 1];
+        Arrays.fill(tourable, NOT_PROBED); // tourable[0], the empty board, is settled last
+
+        boolean[] fresh = new boolean[m + 1];
+        boolean[] seen = new boolean[solver.getSquares()];
+        for (int i = 1; i <= m; i++) {
+            fresh[i] = !seen[line[i - 1]];
+            seen[line[i - 1]] = true;
+        }
+
+        // Runs of prefixes joined by fresh moves; tourability is monotone inside each
+        List<int[]> runs = new ArrayList<>(); // {first, last, lastYes, firstNo}
+        for (int i = 1; i <= m; i++) {
+            if (i == 1 || !fresh[i]) runs.add(new int[]{i, i, i - 1, i + 1});
+            else runs.get(runs.size() - 1)[1] = i;
+        }
+        for (int[] run : runs) run[3] = run[1] + 1;
+
+        int width = Math.max(2, ForkJoinPool.getCommonPoolParallelism() + 1);
+        AtomicLong budget = new AtomicLong(ANALYSIS_BUDGET);
+        while (budget.get() > 0) {
+            List<Integer> probes = new ArrayList<>();
+            for (int[] run : runs) pickProbes(run, tourable, width, probes);
+            if (probes.isEmpty()) break;
+
+            int[] results = probes.parallelStream().mapToInt(i -> probe(line, i, budget)).toArray();
+            for (int k = 0; k < results.length; k++) tourable[probes.get(k)] = results[k];
+            for (int[] run : runs) narrow(run, tourable);
+        }
+
+        // Fill in what monotonicity implies; anything left between is undecided
+        for (int[] run : runs) {
+            for (int i = run[0]; i <= run[1]; i++) {
+                if (i <= run[2]) tourable[i] = 1;
+                else if (i >= run[3]) tourable[i] = 0;
+                else tourable[i] = TourSolver.UNKNOWN;
+            }
+        }
+
+        // A tour from the first placement shows the board has one; otherwise look from other squares
+        // (on odd boards or boards with holes some squares start no tour)
+        tourable[0] = m == 0 ? anyTour(-1, TourSolver.UNKNOWN, budget)
+                : tourable[1] == 1 ? 1 : anyTour(line[0], tourable[1], budget);
+
+        Quality[] quality = new Quality[m];
+        for (int i = 1; i <= m; i++) quality[i - 1] = classify(tourable[i - 1], tourable[i], fresh[i]);
+        return new Review(solver.getBoardSize(), line, quality, tourable);
+    }
+
+    /**
+     * Up to width unprobed prefixes spread evenly over the undecided part of a run.
+     * The last one is always included, so a finished tour is settled in one round.
+     */
+    private static void pickProbes(int[] run, int[] tourable, int width, List<Integer> out) {
+        List<Integer> open = new ArrayList<>();
+        for (int i = run[2] + 1; i < run[3]; i++) if (tourable[i] == NOT_PROBED) open.add(i);
+        int k = Math.min(width, open.size());
+        for (int j = 1; j <= k; j++) out.add(open.get((int) Math.ceil((double) j * open.size() / k) - 1));
+    }
+
+    private static void narrow(int[] run, int[] tourable) {
+        for (int i = run[0]; i <= run[1]; i++) {
+            if (tourable[i] == 1) run[2] = Math.max(run[2], i);
+            if (tourable[i] == 0) run[3] = Math.min(run[3], i);
+        }
+    }
+
+    /**
+     * Whether the board has a tour at all: 1 once one start square has a completion, 0 if
+     * none has, {@link TourSolver#UNKNOWN} if the budget ran out first
+     * @param probedStart square already probed (skipped), or -1
+     * @param probedResult what its probe found
+     */
+    private int anyTour(int probedStart, int probedResult, AtomicLong budget) {
+        int result = probedResult == TourSolver.UNKNOWN ? TourSolver.UNKNOWN : 0;
+        int[] start = new int[1];
+        for (int sq = 0; sq < solver.getSquares(); sq++) {
+            if (!topology.isActive(sq) || sq == probedStart) continue;
+            if (budget.get() <= 0) return TourSolver.UNKNOWN;
+            start[0] = sq;
+            TourSolver.Position p = positions.poll();
+            if (p == null) p = solver.newPosition();
+            try {
+                p.moveTo(start, 1);
+                int found = p.canComplete(Math.min(PROBE_BUDGET, budget.get()));
+                budget.addAndGet(-p.nodesSearched());
+                if (found == 1) return 1;
+                if (found == TourSolver.UNKNOWN) result = TourSolver.UNKNOWN;
+            } finally {
+                positions.offer(p);
+            }
+        }
+        return result;
+    }
+
+    private int probe(int[] line, int prefixLength, AtomicLong budget) {
+        TourSolver.Position p = positions.poll();
+        if (p == null) p = solver.newPosition();
+        try {
+            p.moveTo(line, prefixLength);
+            int result = p.canComplete(Math.min(PROBE_BUDGET, Math.max(1, budget.get())));
+            budget.addAndGet(-p.nodesSearched());
+            return result;
+        } finally {
+            positions.offer(p);
+        }
+    }
+
+    private static Quality classify(int before, int after, boolean fresh) {
+        if (after == 1) return fresh ? Quality.GOOD : Quality.INACCURATE;
+        if (after == 0) {
+            if (before == 1) return Quality.FATAL;
+            if (before == 0) return Quality.INACCURATE;
+        }
+        return Quality.UNKNOWN;
+    }
+}
@@ -0,0 +1,124 @@
+package knightstour.game;
+
+import java.util.Arrays;
+
+/**
+ * Monotonic clock for one game: total time since the first move plus the think time
+ * of every move on the current line (time since the previous move or undo).
+ *
+ * All readings come from {@link System#nanoTime()} and are passed in by the caller,
+ * so a move can be stamped when its input arrived rather than when it was applied.
+ * Think times live in a primitive array that only grows by doubling, so marking and
+ * undoing moves allocates nothing; the statistics are computed on demand.
+ */
+public final class MoveClock {
+    private long startNanos = -1;  // first move, -1 until the game starts
+    private long lastNanos;        // previous move or undo
+    private long stopNanos = -1;   // set once the game is over
+    private long[] think;
+    private int size = 0;
+
+    public MoveClock(int boardSize) {
+        this.think = new long[Math.max(64, boardSize * boardSize * 2)];
+    }
+
+    /**
+     * Stamp a move played at the given time; the first call starts the clock
+     * @return think time of this move in nanoseconds, or -1 for the opening move
+     */
+    public long mark(long nanos) {
+        if (startNanos < 0) {
+            startNanos = lastNanos = nanos;
+            return -1;
+        }
+        long t = Math.max(0, nanos - lastNanos);
+        if (size == think.length) think = Arrays.copyOf(think, size * 2);
+        think[size++] = t;
+        lastNanos = nanos;
+        return t;
+    }
+
+    /**
+     * Think time the next move would have if played at the given time, or -1 before the first move
+     */
+    public long peek(long nanos) {
+        return startNanos < 0 ? -1 : Math.max(0, nanos - lastNanos);
+    }
+
+    /**
+     * A move was taken back: forget its think time. The clock keeps running (and
+     * restarts if the game had been finished); taking back the opening move, which
+     * has no think time, empties the board and resets the clock until the next move.
+     */
+    public void undo(long nanos) {
+        if (size > 0) {
+            size--;
+            lastNanos = nanos;
+        } else {
+            startNanos = -1;
+        }
+        stopNanos = -1;
+    }
+
+    public void stop(long nanos) {
+        if (startNanos >= 0 && stopNanos < 0) stopNanos = nanos;
+    }
+
+    public boolean isStarted() { return startNanos >= 0; }
+    public boolean isStopped() { return stopNanos >= 0; }
+
+    /**
+     * Time since the first move (frozen once stopped), 0 before the game starts
+     */
+    public long elapsedNanos(long now) {
+        if (startNanos < 0) return 0;
+        return (stopNanos >= 0 ? stopNanos : now) - startNanos;
+    }
+
+    /**
+     * Timed moves on the current line
+     */
+    public int moves() { return size; }
+
+    public long thinkNanos(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("move " + index + " of " + size);
+        return think[index];
+    }
+
+    // =========================================================
+    // Statistics (end of game; these copy the timings)
+    // =========================================================
+    public long meanThinkNanos() {
+        if (size == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < size; i++) sum += think[i];
+        return sum / size;
+    }
+
+    public long maxThinkNanos() {
+        long max = 0;
+        for (int i = 0; i < size; i++) max = Math.max(max, think[i]);
+        return max;
+    }
+
+    /**
+     * Nearest-rank percentile of the think times (p in 0..100)
+     */
+    public long percentileThinkNanos(double p) {
+        if (size == 0) return 0;
+        long[] sorted = Arrays.copyOf(think, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * size);
+        return sorted[Math.max(0, Math.min(size - 1, rank - 1))];
+    }
+
+    /**
+     * Clock text, e.g. "1:23.4"
+     */
+    public static String format(long nanos) {
+        long tenths = nanos / 100_000_000;
+        long minutes = tenths / 600;
+        long seconds = (tenths / 10) % 60;
+        return minutes + ":" + (seconds < 10 ? "0" : "") + seconds + "." + (tenths % 10);
+    }
+}
@@ -0,0 +1,62 @@
+package knightstour.game;
+
+import java.util.Arrays;
+
+/**
+ * Recorded stream of moves for one game.
+ * Each event is a square index (row * boardSize + col) or {@link #UNDO}, with the
+ * think time of the move so a replay scores timed moves as the live game did.
+ */
+public class MoveRecording {
+    public static final int UNDO = -1;
+
+    private final Level level;
+    private int[] events;
+    private long[] thinkMillis;    // think time of each event, -1 if untimed (and for undos)
+    private int size = 0;
+
+    public MoveRecording(Level level) {
+        this.level = level;
+        this.events = new int[Math.max(64, level.boardSize * level.boardSize * 4)]; // a tour plus plenty of undos
+        this.thinkMillis = new long[events.length];
+    }
+
+    /**
+     * Append one untimed event to the end of the stream
+     */
+    public void append(int event) {
+        append(event, -1);
+    }
+
+    /**
+     * Append one event to the end of the stream
+     * @param thinkMillis time taken over the move, or -1 if it wasn't timed
+     */
+    public void append(int event, long thinkMillis) {
+        if (size == events.length) {
+            events = Arrays.copyOf(events, size * 2);
+            this.thinkMillis = Arrays.copyOf(this.thinkMillis, size * 2);
+        }
+        this.thinkMillis[size] = thinkMillis;
+        events[size++] = event;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("event " + index + " of " + size);
+        return events[index];
+    }
+
+    /**
+     * Think time recorded with an event, or -1 if it wasn't timed
+     */
+    public long thinkMillis(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("event " + index + " of " + size);
+        return thinkMillis[index];
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public Level getLevel() { return level; }
+}
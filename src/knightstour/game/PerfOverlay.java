@@ -0,0 +1,96 @@
+package knightstour.game;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+/**
+ * On-screen performance overlay (toggle with F3 in the game screen).
+ * Shows FPS, the worst frame gap, move latency p50/p99, undo and redraw p99 and GC activity,
+ * refreshed once per second from {@link PerfStats}, and the active {@link RenderProfile}
+ * so the two profiles can be compared on the same machine.
+ */
+public final class PerfOverlay extends Label {
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AnimationTimer timer;
+    private long windowStart = -1;  // start of the current one-second window
+    private long lastFrame = -1;
+    private long worstFrameNanos = 0;
+    private int frames = 0;
+    private RenderProfile profile = RenderProfile.STANDARD;
+
+    public PerfOverlay() {
+        setFont(Font.font("Monospaced", 12));
+        setTextFill(Color.web("#A7F3D0"));
+        setStyle("-fx-background-color: rgba(17,24,39,0.78); -fx-background-radius: 6;");
+        setPadding(new Insets(6, 8, 6, 8));
+        setMouseTransparent(true);
+        setVisible(false);
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                onFrame(now);
+            }
+        };
+    }
+
+    public void setRenderProfile(RenderProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Show or hide the overlay; the frame timer only runs while visible
+     */
+    public void toggle() {
+        if (isVisible()) {
+            timer.stop();
+            setVisible(false);
+        } else {
+            windowStart = -1;
+            lastFrame = -1;
+            setText("measuring…");
+            setVisible(true);
+            timer.start();
+        }
+    }
+
+    private void onFrame(long now) {
+        if (windowStart < 0) {
+            windowStart = now;
+            lastFrame = now;
+            frames = 0;
+            worstFrameNanos = 0;
+            return;
+        }
+        frames++;
+        worstFrameNanos = Math.max(worstFrameNanos, now - lastFrame);
+        lastFrame = now;
+
+        if (now - windowStart >= SECOND) {
+            double fps = frames * (double) SECOND / (now - windowStart);
+            setText(String.format(
+                    "FPS %5.1f  worst frame %5.1f ms  [%s]\n" +
+                    "move p50 %6.2f ms  p99 %6.2f ms  (%d)  undo p99 %6.2f ms  redraw p99 %6.2f ms\n" +
+                    "highlights p99 %6.2f ms  save p99 %6.2f ms  events p99 %6.2f ms\n" +
+                    "GC %d collections, %d ms",
+                    fps, worstFrameNanos / 1e6, profile,
+                    PerfStats.percentileNanos(PerfStats.Section.SQUARE_CLICK, 50) / 1e6,
+                    PerfStats.percentileNanos(PerfStats.Section.SQUARE_CLICK, 99) / 1e6,
+                    PerfStats.count(PerfStats.Section.SQUARE_CLICK),
+                    PerfStats.percentileNanos(PerfStats.Section.UNDO_MOVE, 99) / 1e6,
+                    PerfStats.percentileNanos(PerfStats.Section.INPUT_BATCH, 99) / 1e6,
+                    PerfStats.percentileNanos(PerfStats.Section.REFRESH_HIGHLIGHTS, 99) / 1e6,
+                    PerfStats.percentileNanos(PerfStats.Section.SAVE_SCORES, 99) / 1e6,
+                    PerfStats.percentileNanos(PerfStats.Section.EVENT_DELIVERY, 99) / 1e6,
+                    PerfStats.gcCount(), PerfStats.gcTimeMillis()
+            ));
+            windowStart = now;
+            frames = 0;
+            worstFrameNanos = 0;
+        }
+    }
+}
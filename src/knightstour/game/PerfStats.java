@@ -0,0 +1,204 @@
+package knightstour.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lightweight timers and counters for the game's hot paths.
+ * Recording a sample only touches preallocated arrays, so it is allocation-free
+ * unless a JFR recording is running, e.g. with
+ *   -XX:StartFlightRecording=filename=knightstour.jfr
+ * in which case every sample is also committed as a "knightstour.HotPath" event.
+ *
+ * Samples are recorded from the JavaFX Application Thread and from background work
+ * (saves, image loading); recording and reading are synchronized, which costs an
+ * uncontended lock and still no allocation. A section timed by one thread of its own
+ * (event delivery) is recorded with {@link #stopSingleWriter} instead, which takes no
+ * lock, so that thread never holds up the FX thread's samples.
+ */
+public final class PerfStats {
+
+    /**
+     * Instrumented code paths
+     */
+    public enum Section {
+        SQUARE_CLICK("applyMove"),
+        REFRESH_HIGHLIGHTS("refreshHighlights"),
+        REFRESH_AFTER_UNDO("refreshBoardAfterUndo"),
+        UNDO_MOVE("applyUndo"),
+        INPUT_BATCH("InputPipeline batch redraw"),
+        SAVE_SCORES("saveScores"),
+        PATTERN_IMAGE("applyPatternBackground image"),
+        EVENT_DELIVERY("GameEventBus publish to subscriber");
+
+        public final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final int SAMPLES = 256; // rolling window per section for percentiles
+    private static final int SECTIONS = Section.values().length;
+
+    private static final long[][] samples = new long[SECTIONS][SAMPLES];
+    private static final long[] counts = new long[SECTIONS];
+    private static final long[] totalNanos = new long[SECTIONS];
+    private static final long[] maxNanos = new long[SECTIONS];
+    private static final long[] scratch = new long[SAMPLES];
+    private static final VarHandle COUNT = MethodHandles.arrayElementVarHandle(long[].class);
+
+
+    private PerfStats() { }
+
+    /**
+     * Start timing a section
+     * @return a timestamp to hand back to {@link #stop(Section, long)}
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Finish timing a section started with {@link #start()}
+     */
+    public static synchronized void stop(Section section, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        int i = section.ordinal();
+        samples[i][(int) (counts[i] % SAMPLES)] = elapsed;
+        counts[i]++;
+        totalNanos[i] += elapsed;
+        if (elapsed > maxNanos[i]) maxNanos[i] = elapsed;
+
+        if (Jfr.HOT_PATH_EVENT.isEnabled()) {
+            HotPathEvent event = new HotPathEvent();
+            event.section = section.label;
+            event.duration = elapsed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Finish timing a section that only one thread ever records, without the lock. The
+     * sample is written before the count is published, so a reader sees it once it sees
+     * the count; readers may be a sample behind the writer.
+     */
+    public static void stopSingleWriter(Section section, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        int i = section.ordinal();
+        long n = (long) COUNT.getOpaque(counts, i);
+        samples[i][(int) (n % SAMPLES)] = elapsed;
+        totalNanos[i] += elapsed;
+        if (elapsed > maxNanos[i]) maxNanos[i] = elapsed;
+        COUNT.setRelease(counts, i, n + 1);
+
+        if (Jfr.HOT_PATH_EVENT.isEnabled()) {
+            HotPathEvent event = new HotPathEvent();
+            event.section = section.label;
+            event.duration = elapsed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Number of samples recorded for a section
+     */
+    public static synchronized long count(Section section) {
+        return (long) COUNT.getAcquire(counts, section.ordinal());
+    }
+
+    /**
+     * Mean time of a section in nanoseconds (0 before the first sample)
+     */
+    public static synchronized long meanNanos(Section section) {
+        int i = section.ordinal();
+        long n = (long) COUNT.getAcquire(counts, i);
+        return n == 0 ? 0 : totalNanos[i] / n;
+    }
+
+    /**
+     * Slowest sample of a section in nanoseconds
+     */
+    public static synchronized long maxNanos(Section section) {
+        return maxNanos[section.ordinal()];
+    }
+
+    /**
+     * Percentile (0-100) over the most recent samples of a section, in nanoseconds
+     */
+    public static synchronized long percentileNanos(Section section, double percentile) {
+        int i = section.ordinal();
+        int n = (int) Math.min((long) COUNT.getAcquire(counts, i), SAMPLES);
+        if (n == 0) return 0;
+        System.arraycopy(samples[i], 0, scratch, 0, n);
+        Arrays.sort(scratch, 0, n);
+        int rank = (int) Math.ceil(percentile / 100.0 * n) - 1;
+        return scratch[Math.max(0, Math.min(n - 1, rank))];
+    }
+
+    /**
+     * Total collections across all garbage collectors since JVM start
+     */
+    public static long gcCount() {
+        long n = 0;
+        List<GarbageCollectorMXBean> beans = Gc.BEANS;
+        for (int i = 0; i < beans.size(); i++) n += Math.max(0, beans.get(i).getCollectionCount());
+        return n;
+    }
+
+    /**
+     * Total time spent in garbage collection since JVM start, in milliseconds
+     */
+    public static long gcTimeMillis() {
+        long t = 0;
+        List<GarbageCollectorMXBean> beans = Gc.BEANS;
+        for (int i = 0; i < beans.size(); i++) t += Math.max(0, beans.get(i).getCollectionTime());
+        return t;
+    }
+
+    /**
+     * Forget all recorded samples
+     */
+    public static synchronized void reset() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(totalNanos, 0);
+        Arrays.fill(maxNanos, 0);
+    }
+
+    // JFR and management beans are initialized on first use, keeping them off the startup path
+    private static final class Jfr {
+        static final EventType HOT_PATH_EVENT = EventType.getEventType(HotPathEvent.class);
+    }
+
+    private static final class Gc {
+        static final List<GarbageCollectorMXBean> BEANS = ManagementFactory.getGarbageCollectorMXBeans();
+    }
+
+    /**
+     * JFR event committed for every timed section while a recording is active
+     */
+    @Name("knightstour.HotPath")
+    @Label("Hot Path")
+    @Category("Knight's Tour")
+    @Description("Time spent in one instrumented game code path")
+    static class HotPathEvent extends Event {
+        @Label("Section")
+        String section;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long duration;
+    }
+}
@@ -0,0 +1,35 @@
+package knightstour.game;
+
+/**
+ * A daily-challenge position: the first moves of a tour are already played
+ * and the player has to carry on from there.
+ */
+public class Puzzle {
+
+    public enum Kind {
+        FINISH_TOUR, // the remaining squares can be toured in exactly one way
+        ONLY_MOVE    // of the legal moves, exactly one still allows a full tour
+    }
+
+    public final int boardSize;
+    public final Kind kind;
+    public final int[] prefix;   // squares already visited, in order (knight is on the last one)
+    public final int[] solution; // FINISH_TOUR: the remaining squares; ONLY_MOVE: the one saving move
+
+    public Puzzle(int boardSize, Kind kind, int[] prefix, int[] solution) {
+        this.boardSize = boardSize;
+        this.kind = kind;
+        this.prefix = prefix;
+        this.solution = solution;
+    }
+
+    /**
+     * Short instruction shown to the player
+     */
+    public String describe() {
+        int left = boardSize * boardSize - prefix.length;
+        return kind == Kind.FINISH_TOUR
+                ? "Daily challenge: finish the tour (" + left + " squares left, one way through)"
+                : "Daily challenge: find the only move that keeps the tour alive";
+    }
+}
@@ -0,0 +1,166 @@
+package knightstour.game;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Builds daily-challenge puzzle packs. Each puzzle starts from a solver tour that is
+ * cut short; a bounded search then proves the answer is unique:
+ *   FINISH_TOUR - the cut is pushed back as far as the remaining tour stays unique;
+ *   ONLY_MOVE   - a cut where exactly one legal move can still be completed.
+ * Puzzles are generated in parallel and are reproducible from the seed.
+ *
+ * Usage: java -cp out knightstour.game.PuzzleGenerator [perLevel] [output] [seed] [piece]
+ * Defaults: 366 knight puzzles per level into src/resources/puzzles/daily.pack, seed 2024.
+ * Other pieces (see {@link Leaper#byName}) get packs of their own, e.g. zebra.pack.
+ */
+public class PuzzleGenerator {
+    private static final long TOUR_BUDGET = 2_000_000;  // nodes for finding the base tour
+    private static final long PROOF_BUDGET = 300_000;   // nodes per uniqueness / dead-end proof
+    private static final int FINISH_TOUR_TRIES = 8;     // base tours tried per finish-the-tour puzzle
+
+    private final TourSolver solver;
+    private final int squares;
+    private final int maxTargets;
+
+    public PuzzleGenerator(int boardSize) {
+        this(boardSize, Leaper.KNIGHT);
+    }
+
+    public PuzzleGenerator(int boardSize, Leaper piece) {
+        if (!piece.isConnected(boardSize)) {
+            throw new IllegalArgumentException(piece + " can't reach every square of a " + boardSize + "x" + boardSize + " board");
+        }
+        this.solver = TourSolver.forPiece(boardSize, piece);
+        this.squares = boardSize * boardSize;
+        this.maxTargets = piece.maxTargets();
+    }
+
+    /**
+     * Generate one puzzle of the given kind (deterministic for a given random source)
+     */
+    public Puzzle generate(Puzzle.Kind kind, Random rnd) {
+        Puzzle best = null;
+        int tries = 0;
+        while (best == null || (kind == Puzzle.Kind.FINISH_TOUR && tries < FINISH_TOUR_TRIES)) {
+            int[] tour = solver.findTour(rnd.nextInt(squares), rnd, TOUR_BUDGET);
+            if (tour == null) continue;
+            tries++;
+            Puzzle p = kind == Puzzle.Kind.FINISH_TOUR ? finishTour(tour) : onlyMove(tour, rnd);
+            // For finish-the-tour keep the candidate with the longest unique tail
+            if (p != null && (best == null || p.solution.length > best.solution.length)) best = p;
+        }
+        return best;
+    }
+
+    /**
+     * Longest tail of the tour that is the only way to finish it.
+     * Uniqueness only gets lost as the tail grows (a unique finish from further back
+     * passes through every later position), so scan upwards until it breaks.
+     */
+    private Puzzle finishTour(int[] tour) {
+        int longest = 0;
+        for (int left = 2; left <= squares / 2; left++) {
+            if (solver.countCompletions(tour, squares - left, 2, PROOF_BUDGET) != 1) break;
+            longest = left;
+        }
+        if (longest < 3) return null;
+        int cut = squares - longest;
+        return new Puzzle(solver.getBoardSize(), Puzzle.Kind.FINISH_TOUR,
+                Arrays.copyOf(tour, cut), Arrays.copyOfRange(tour, cut, squares));
+    }
+
+    /**
+     * A point of the tour where every legal move but the tour's own one provably loses
+     */
+    private Puzzle onlyMove(int[] tour, Random rnd) {
+        int[] prefix = new int[squares];
+        int[] targets = new int[maxTargets];
+        int minCut = squares / 3;
+        int maxCut = squares - 4;
+        int start = minCut + rnd.nextInt(maxCut - minCut);
+        for (int k = 0; k < maxCut - minCut; k++) {
+            int cut = minCut + (start - minCut + k) % (maxCut - minCut);
+            System.arraycopy(tour, 0, prefix, 0, cut);
+
+            // Legal, unvisited targets from the knight's square
+            int n = 0;
+            for (int t : solver.neighbours(tour[cut - 1])) {
+                if (!contains(tour, cut, t)) targets[n++] = t;
+            }
+            if (n < 2) continue;
+
+            int saving = -1;
+            boolean proven = true;
+            for (int i = 0; i < n && proven; i++) {
+                prefix[cut] = targets[i];
+                int r = targets[i] == tour[cut] ? 1 : solver.canComplete(prefix, cut + 1, PROOF_BUDGET);
+                if (r == TourSolver.UNKNOWN || (r == 1 && targets[i] != tour[cut])) proven = false;
+                else if (r == 1) saving = targets[i];
+            }
+            if (proven && saving >= 0) {
+                return new Puzzle(solver.getBoardSize(), Puzzle.Kind.ONLY_MOVE,
+                        Arrays.copyOf(tour, cut), new int[]{saving});
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(int[] a, int length, int v) {
+        for (int i = 0; i < length; i++) if (a[i] == v) return true;
+        return false;
+    }
+
+    /**
+     * Generate a batch for one board size in parallel, alternating puzzle kinds
+     */
+    public static List<Puzzle> generateBatch(int boardSize, int count, long seed) {
+        return generateBatch(boardSize, Leaper.KNIGHT, count, seed);
+    }
+
+    public static List<Puzzle> generateBatch(int boardSize, Leaper piece, int count, long seed) {
+        PuzzleGenerator gen = new PuzzleGenerator(boardSize, piece);
+        return IntStream.range(0, count).parallel()
+                .mapToObj(i -> gen.generate(i % 2 == 0 ? Puzzle.Kind.FINISH_TOUR : Puzzle.Kind.ONLY_MOVE,
+                        new Random(seed * 1_000_003L + boardSize * 7919L + i)))
+                .collect(Collectors.toList());
+    }
+
+    public static void main(String[] args) throws Exception {
+        int perLevel = args.length > 0 ? Integer.parseInt(args[0]) : 366;
+        String output = args.length > 1 ? args[1] : "src/resources/puzzles/daily.pack";
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 2024;
+        Leaper piece = args.length > 3 ? Leaper.byName(args[3]) : Leaper.KNIGHT;
+
+        Map<Integer, List<Puzzle>> bySize = new LinkedHashMap<>();
+        for (Level level : Level.defaults()) {
+            if (!piece.isConnected(level.boardSize)) {
+                System.out.println(level.name + ": skipped, the " + piece + " can't reach every square");
+                continue;
+            }
+            long t0 = System.nanoTime();
+            List<Puzzle> batch = generateBatch(level.boardSize, piece, perLevel, seed);
+            bySize.put(level.boardSize, batch);
+            double avgLeft = batch.stream()
+                    .filter(p -> p.kind == Puzzle.Kind.FINISH_TOUR)
+                    .mapToInt(p -> p.solution.length).average().orElse(0);
+            System.out.printf("%s: %d puzzles in %d ms (finish-the-tour puzzles leave %.1f squares on average)%n",
+                    level.name, batch.size(), (System.nanoTime() - t0) / 1_000_000, avgLeft);
+        }
+
+        java.io.File out = new java.io.File(output);
+        if (out.getParentFile() != null) out.getParentFile().mkdirs();
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(out))) {
+            PuzzlePack.write(os, bySize);
+        }
+        System.out.println("Wrote " + out.length() + " bytes to " + output);
+    }
+}
@@ -0,0 +1,149 @@
+package knightstour.game;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary collection of puzzles, grouped by board size.
+ * Opening a pack only reads its index; puzzles are decoded when asked for.
+ *
+ * Layout (big-endian):
+ *   "KTPZ" version:1 sections:1
+ *   per section: boardSize:1 count:4 indexOffset:4
+ *   per section index: count x recordOffset:4
+ *   records: kind:1 prefixLength:2 prefix solutionLength:2 solution
+ * Squares take one byte on boards up to 16x16 and two bytes beyond that.
+ */
+public class PuzzlePack {
+    private static final int MAGIC = 0x4B54505A; // "KTPZ"
+    private static final int VERSION = 1;
+
+    private final ByteBuffer data;
+    private final int[] sizes;
+    private final int[] counts;
+    private final int[] indexOffsets;
+
+    private PuzzlePack(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.getInt(0) != MAGIC) throw new IOException("Not a puzzle pack");
+        if (data.get(4) != VERSION) throw new IOException("Unsupported puzzle pack version " + data.get(4));
+        int sections = data.get(5) & 0xFF;
+        sizes = new int[sections];
+        counts = new int[sections];
+        indexOffsets = new int[sections];
+        for (int i = 0; i < sections; i++) {
+            int pos = 6 + i * 9;
+            sizes[i] = data.get(pos) & 0xFF;
+            counts[i] = data.getInt(pos + 1);
+            indexOffsets[i] = data.getInt(pos + 5);
+        }
+    }
+
+    /**
+     * Read a pack; only the header and index are parsed here
+     */
+    public static PuzzlePack read(InputStream in) throws IOException {
+        return new PuzzlePack(ByteBuffer.wrap(in.readAllBytes()));
+    }
+
+    /**
+     * Number of puzzles for a board size
+     */
+    public int count(int boardSize) {
+        int s = section(boardSize);
+        return s < 0 ? 0 : counts[s];
+    }
+
+    /**
+     * Decode one puzzle
+     */
+    public Puzzle get(int boardSize, int index) {
+        int s = section(boardSize);
+        if (s < 0 || index < 0 || index >= counts[s]) {
+            throw new IndexOutOfBoundsException("No puzzle " + index + " for " + boardSize + "x" + boardSize);
+        }
+        int pos = data.getInt(indexOffsets[s] + index * 4);
+        boolean wide = wideSquares(boardSize);
+        Puzzle.Kind kind = Puzzle.Kind.values()[data.get(pos++)];
+        int[] prefix = new int[data.getShort(pos) & 0xFFFF];
+        pos += 2;
+        for (int i = 0; i < prefix.length; i++, pos += wide ? 2 : 1) prefix[i] = square(pos, wide);
+        int[] solution = new int[data.getShort(pos) & 0xFFFF];
+        pos += 2;
+        for (int i = 0; i < solution.length; i++, pos += wide ? 2 : 1) solution[i] = square(pos, wide);
+        return new Puzzle(boardSize, kind, prefix, solution);
+    }
+
+    /**
+     * Puzzle of the day for a board size, or null if the pack has none
+     */
+    public Puzzle daily(int boardSize, LocalDate date) {
+        int n = count(boardSize);
+        return n == 0 ? null : get(boardSize, (int) Math.floorMod(date.toEpochDay(), (long) n));
+    }
+
+    private int square(int pos, boolean wide) {
+        return wide ? data.getShort(pos) & 0xFFFF : data.get(pos) & 0xFF;
+    }
+
+    private int section(int boardSize) {
+        for (int i = 0; i < sizes.length; i++) if (sizes[i] == boardSize) return i;
+        return -1;
+    }
+
+    private static boolean wideSquares(int boardSize) {
+        return boardSize * boardSize > 256;
+    }
+
+    /**
+     * Write puzzles grouped by board size
+     */
+    public static void write(OutputStream os, Map<Integer, List<Puzzle>> bySize) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        int sections = bySize.size();
+        int headerEnd = 6 + sections * 9;
+
+        // Index offsets first, then record offsets (records follow all indexes)
+        int[] sizeKeys = bySize.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int indexPos = headerEnd;
+        int[] indexOffsets = new int[sections];
+        for (int i = 0; i < sections; i++) {
+            indexOffsets[i] = indexPos;
+            indexPos += bySize.get(sizeKeys[i]).size() * 4;
+        }
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(sections);
+        for (int i = 0; i < sections; i++) {
+            out.writeByte(sizeKeys[i]);
+            out.writeInt(bySize.get(sizeKeys[i]).size());
+            out.writeInt(indexOffsets[i]);
+        }
+        int recordPos = indexPos;
+        for (int size : sizeKeys) {
+            int width = wideSquares(size) ? 2 : 1;
+            for (Puzzle p : bySize.get(size)) {
+                out.writeInt(recordPos);
+                recordPos += 1 + 2 + p.prefix.length * width + 2 + p.solution.length * width;
+            }
+        }
+        for (int size : sizeKeys) {
+            boolean wide = wideSquares(size);
+            for (Puzzle p : bySize.get(size)) {
+                out.writeByte(p.kind.ordinal());
+                out.writeShort(p.prefix.length);
+                for (int sq : p.prefix) if (wide) out.writeShort(sq); else out.writeByte(sq);
+                out.writeShort(p.solution.length);
+                for (int sq : p.solution) if (wide) out.writeShort(sq); else out.writeByte(sq);
+            }
+        }
+        out.flush();
+    }
+}
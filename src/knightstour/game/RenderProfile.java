@@ -0,0 +1,50 @@
+package knightstour.game;
+
+import javafx.scene.CacheHint;
+import javafx.scene.Node;
+
+/**
+ * How the UI draws its decorative effects:
+ *   STANDARD  - blur and shadows are live and re-rendered whenever what they cover changes;
+ *   LOW_POWER - static effects sit on their own nodes, rasterized once into cached
+ *               bitmaps that are only redrawn when those nodes are resized.
+ * The low-power profile is meant for weak (kiosk) hardware. Pick it in the menu or
+ * start with -Dknightstour.render=low-power; F3 in the game shows which is active.
+ */
+public enum RenderProfile {
+    STANDARD("standard"),
+    LOW_POWER("low-power");
+
+    public final String id;
+
+    RenderProfile(String id) {
+        this.id = id;
+    }
+
+    /**
+     * The profile asked for on the command line (STANDARD if none or unknown)
+     */
+    public static RenderProfile fromSystemProperty() {
+        String id = System.getProperty("knightstour.render", "");
+        for (RenderProfile p : values()) if (p.id.equalsIgnoreCase(id.trim())) return p;
+        return STANDARD;
+    }
+
+    public boolean isLowPower() {
+        return this == LOW_POWER;
+    }
+
+    /**
+     * Keep a node whose look never changes as a bitmap under this profile, so its
+     * effects are rendered once rather than on every frame that touches it
+     */
+    public void cacheStatic(Node node) {
+        node.setCache(isLowPower());
+        node.setCacheHint(isLowPower() ? CacheHint.SPEED : CacheHint.DEFAULT);
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,73 @@
+package knightstour.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seekable playback of a {@link MoveRecording}.
+ * Snapshots of the engine are stored every {@link #KEYFRAME_INTERVAL} events,
+ * so seeking never replays more than that many moves.
+ */
+public class ReplayPlayer {
+    public static final int KEYFRAME_INTERVAL = 16;
+
+    private final MoveRecording recording;
+    private final TourEngine engine;
+    private final List<TourEngine.Snapshot> keyframes = new ArrayList<>();
+    private int position = 0; // number of events applied to the engine
+
+    public ReplayPlayer(MoveRecording recording) {
+        this.recording = recording;
+        this.engine = new TourEngine(recording.getLevel());
+        buildKeyframes();
+    }
+
+    /**
+     * Run through the whole recording once, keeping a snapshot every interval
+     */
+    private void buildKeyframes() {
+        keyframes.add(engine.snapshot());
+        for (int i = 0; i < recording.size(); i++) {
+            engine.apply(recording.get(i), recording.thinkMillis(i));
+            if ((i + 1) % KEYFRAME_INTERVAL == 0) keyframes.add(engine.snapshot());
+        }
+        engine.restore(keyframes.get(0));
+        position = 0;
+    }
+
+    /**
+     * Move playback to just after event k (0 = empty board, length() = end of game)
+     */
+    public void seek(int k) {
+        k = Math.max(0, Math.min(k, recording.size()));
+        if (k == position) return;
+
+        // Step forward directly when we are already close enough
+        if (k < position || k - position > KEYFRAME_INTERVAL) {
+            int frame = k / KEYFRAME_INTERVAL;
+            engine.restore(keyframes.get(frame));
+            position = frame * KEYFRAME_INTERVAL;
+        }
+        while (position < k) {
+            engine.apply(recording.get(position), recording.thinkMillis(position));
+            position++;
+        }
+    }
+
+    /**
+     * Advance by one event
+     * @return false when already at the end
+     */
+    public boolean step() {
+        if (isAtEnd()) return false;
+        engine.apply(recording.get(position), recording.thinkMillis(position));
+        position++;
+        return true;
+    }
+
+    public boolean isAtEnd() { return position >= recording.size(); }
+    public int getPosition() { return position; }
+    public int length() { return recording.size(); }
+    public TourEngine getEngine() { return engine; }
+    public MoveRecording getRecording() { return recording; }
+}
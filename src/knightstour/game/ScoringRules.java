@@ -0,0 +1,222 @@
+package knightstour.game;
+
+import java.util.Locale;
+
+/**
+ * Scoring rules of a level, declared as a short spec and compiled once per board
+ * into lookup tables, so scoring a move is a couple of array reads.
+ *
+ * The spec is a list of key=value pairs separated by ';' (points are signed):
+ *   move=10        points for a move onto a fresh square
+ *   revisit=-10    points for a move onto a visited square
+ *   undo=-5        points per undo
+ *   edge=-2        extra points for a fresh square on the edge (corners excluded);
+ *                  edges joined by wraparound are not edges
+ *   corner=-5      extra points for a fresh corner square (flat boards only)
+ *   streak=4x1.5   move points are multiplied by 1.5 after every 4 fresh moves in a row
+ *                  (a revisit breaks the streak)
+ *   streakMax=3    cap on the streak multiplier (default 3)
+ *   fast=2000+5    bonus for a fresh move made within 2000 ms of the previous move
+ * Only move, revisit and undo are required.
+ */
+public final class ScoringRules {
+    private static final double DEFAULT_STREAK_MAX = 3.0;
+
+    public final String spec;
+    public final int movePoints;
+    public final int revisitPoints;
+    public final int undoPoints;
+    private final int edgePoints;
+    private final int cornerPoints;
+    private final int streakLength;     // 0 = no streak rule
+    private final double streakFactor;
+    private final double streakMax;
+    private final long fastMillis;      // -1 = no time bonus
+    private final int fastPoints;
+
+    private ScoringRules(String spec, int movePoints, int revisitPoints, int undoPoints,
+                         int edgePoints, int cornerPoints, int streakLength, double streakFactor,
+                         double streakMax, long fastMillis, int fastPoints) {
+        this.spec = spec;
+        this.movePoints = movePoints;
+        this.revisitPoints = revisitPoints;
+        this.undoPoints = undoPoints;
+        this.edgePoints = edgePoints;
+        this.cornerPoints = cornerPoints;
+        this.streakLength = streakLength;
+        this.streakFactor = streakFactor;
+        this.streakMax = streakMax;
+        this.fastMillis = fastMillis;
+        this.fastPoints = fastPoints;
+    }
+
+    /**
+     * Parse a spec (see the class comment)
+     * @throws IllegalArgumentException if the spec is malformed or misses a required rule
+     */
+    public static ScoringRules parse(String spec) {
+        Integer move = null, revisit = null, undo = null;
+        int edge = 0, corner = 0, streakLength = 0, fastPoints = 0;
+        double streakFactor = 1.0, streakMax = DEFAULT_STREAK_MAX;
+        long fastMillis = -1;
+
+        for (String part : spec.split(";")) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+            int eq = part.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Scoring rule without '=': " + part);
+            String key = part.substring(0, eq).trim();
+            String value = part.substring(eq + 1).trim();
+            try {
+                switch (key) {
+                    case "move": move = Integer.parseInt(value); break;
+                    case "revisit": revisit = Integer.parseInt(value); break;
+                    case "undo": undo = Integer.parseInt(value); break;
+                    case "edge": edge = Integer.parseInt(value); break;
+                    case "corner": corner = Integer.parseInt(value); break;
+                    case "streak": {
+                        int x = value.indexOf('x');
+                        if (x < 0) throw new IllegalArgumentException("Expected streak=<moves>x<factor>: " + part);
+                        streakLength = Integer.parseInt(value.substring(0, x).trim());
+                        streakFactor = Double.parseDouble(value.substring(x + 1).trim());
+                        if (streakLength < 1 || streakFactor <= 0) {
+                            throw new IllegalArgumentException("Bad streak rule: " + part);
+                        }
+                        break;
+                    }
+                    case "streakMax": streakMax = Double.parseDouble(value); break;
+                    case "fast": {
+                        int plus = value.indexOf('+');
+                        if (plus < 0) throw new IllegalArgumentException("Expected fast=<millis>+<points>: " + part);
+                        fastMillis = Long.parseLong(value.substring(0, plus).trim());
+                        fastPoints = Integer.parseInt(value.substring(plus + 1).trim());
+                        break;
+                    }
+                    default:
+                        throw new IllegalArgumentException("Unknown scoring rule: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad number in scoring rule: " + part, e);
+            }
+        }
+        if (move == null || revisit == null || undo == null) {
+            throw new IllegalArgumentException("Scoring needs move, revisit and undo rules: " + spec);
+        }
+        return new ScoringRules(spec, move, revisit, undo, edge, corner,
+                streakLength, streakFactor, streakMax, fastMillis, fastPoints);
+    }
+
+    /**
+     * The plain rules every level had before rule specs: points per move and two penalties
+     */
+    public static ScoringRules basic(int pointsPerMove, int revisitPenalty, int undoPenalty) {
+        return parse("move=" + pointsPerMove + ";revisit=" + -revisitPenalty + ";undo=" + -undoPenalty);
+    }
+
+    /**
+     * Whether these are plain {@link #basic} rules, with no bonuses, streaks or time rules
+     */
+    public boolean isBasic() {
+        return edgePoints == 0 && cornerPoints == 0 && streakLength == 0 && fastMillis < 0;
+    }
+
+    /**
+     * Compile the rules for one board
+     */
+    public Evaluator compile(BoardTopology topology) {
+        return new Evaluator(this, topology);
+    }
+
+    /**
+     * One-line summary for the menu and tutorial, e.g. "+10 new square, -10 revisit, -5 per undo"
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(signed(movePoints)).append(" new square, ")
+          .append(signed(revisitPoints)).append(" revisit, ")
+          .append(signed(undoPoints)).append(" per undo");
+        if (cornerPoints != 0) sb.append(", ").append(signed(cornerPoints)).append(" corner");
+        if (edgePoints != 0) sb.append(", ").append(signed(edgePoints)).append(" edge");
+        if (streakLength > 0) {
+            sb.append(", ×").append(trim(streakFactor)).append(" every ").append(streakLength)
+              .append(" in a row (max ×").append(trim(streakMax)).append(')');
+        }
+        if (fastMillis >= 0) {
+            sb.append(", ").append(signed(fastPoints)).append(" under ").append(trim(fastMillis / 1000.0)).append(" s");
+        }
+        return sb.toString();
+    }
+
+    private static String signed(int v) {
+        return v >= 0 ? "+" + v : String.valueOf(v);
+    }
+
+    private static String trim(double v) {
+        return v == Math.rint(v) ? String.valueOf((long) v) : String.format(Locale.ROOT, "%.2f", v).replaceAll("0+$", "");
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    /**
+     * Rules compiled for one board. Stateless and immutable: the engine keeps
+     * the streak and passes it in, so one evaluator can be shared by any number of games.
+     */
+    public static final class Evaluator {
+        private final int revisit;
+        private final int undo;
+        private final int[] squarePoints;  // edge / corner extras per square
+        private final int[] streakPoints;  // move points by streak length (longer streaks use the last entry)
+        private final long fastMillis;
+        private final int fastPoints;
+
+        private Evaluator(ScoringRules rules, BoardTopology topology) {
+            int boardSize = topology.boardSize;
+            this.revisit = rules.revisitPoints;
+            this.undo = rules.undoPoints;
+            this.fastMillis = rules.fastMillis;
+            this.fastPoints = rules.fastPoints;
+
+            // Rows wrap on a torus, columns on a cylinder or torus: those sides aren't edges
+            boolean rowEdges = topology.wrap != BoardTopology.Wrap.TORUS;
+            boolean colEdges = topology.wrap == BoardTopology.Wrap.NONE;
+            squarePoints = new int[boardSize * boardSize];
+            for (int r = 0; r < boardSize; r++) {
+                for (int c = 0; c < boardSize; c++) {
+                    int sides = (rowEdges && (r == 0 || r == boardSize - 1) ? 1 : 0)
+                            + (colEdges && (c == 0 || c == boardSize - 1) ? 1 : 0);
+                    squarePoints[r * boardSize + c] = sides == 2 ? rules.cornerPoints : sides == 1 ? rules.edgePoints : 0;
+                }
+            }
+
+            // A streak can't be longer than the board has squares
+            streakPoints = new int[rules.streakLength > 0 ? boardSize * boardSize + 1 : 2];
+            for (int k = 1; k < streakPoints.length; k++) {
+                double mult = rules.streakLength == 0 ? 1.0
+                        : Math.min(rules.streakMax, Math.pow(rules.streakFactor, (k - 1) / rules.streakLength));
+                streakPoints[k] = (int) Math.round(rules.movePoints * mult);
+            }
+        }
+
+        /**
+         * Points for a move onto a fresh square
+         * @param streak fresh moves in a row, this one included (1 or more)
+         * @param thinkMillis time since the previous move, or -1 if not timed
+         */
+        public int fresh(int square, int streak, long thinkMillis) {
+            int points = streakPoints[Math.min(streak, streakPoints.length - 1)] + squarePoints[square];
+            if (thinkMillis >= 0 && thinkMillis <= fastMillis) points += fastPoints;
+            return points;
+        }
+
+        public int revisit() {
+            return revisit;
+        }
+
+        public int undo() {
+            return undo;
+        }
+    }
+}
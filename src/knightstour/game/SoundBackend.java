@@ -0,0 +1,35 @@
+package knightstour.game;
+
+import java.net.URL;
+
+/**
+ * Audio output used by {@link SoundManager}.
+ * The JavaFX backend plays real clips; {@link #SILENT} plays nothing
+ * and is used for headless and benchmark runs.
+ */
+public interface SoundBackend {
+
+    /**
+     * One playable instance of a sound
+     */
+    interface Voice {
+        void play();
+        void stop();
+        boolean isPlaying();
+    }
+
+    /**
+     * Load one voice for a sound resource
+     * @throws Exception if the resource cannot be decoded
+     */
+    Voice load(URL resource) throws Exception;
+
+    /**
+     * Backend that never makes a sound
+     */
+    SoundBackend SILENT = resource -> new Voice() {
+        @Override public void play() { }
+        @Override public void stop() { }
+        @Override public boolean isPlaying() { return false; }
+    };
+}
@@ -1,58 +1,110 @@
 package knightstour.game;
 
-import javafx.scene.media.AudioClip;
 import java.net.URL;
 
 /**
  * Manages sound effects for the Knight's Tour game.
- * Loads and plays audio clips for various game events.
+ * Each effect is loaded on first use (or by {@link #preload()}) into a small
+ * pool of voices. An effect never plays more than its voice cap at once and
+ * cannot be restarted faster than its minimum interval, so rapid clicking
+ * cannot stack up overlapping clips.
+ *
+ * Run with -Dknightstour.sound=off to use the silent backend.
  */
 public class SoundManager {
-    private AudioClip moveSound;
-    private AudioClip invalidSound;
-    private AudioClip completeSound;
-    private AudioClip highScoreSound;
-    private AudioClip undoSound;
-    private AudioClip clickSound;
 
-    private boolean soundEnabled = true;
+    /**
+     * Sound effects with their voice cap and minimum time between starts
+     */
+    public enum Effect {
+        MOVE("move.wav", 3, 40, true),
+        INVALID("invalid.wav", 1, 150, false),
+        COMPLETE("complete.wav", 1, 0, false),
+        HIGH_SCORE("high_score.wav", 1, 0, false),
+        UNDO("undo.wav", 2, 60, true),
+        CLICK("click.wav", 2, 40, true);
+
+        final String file;
+        final int maxVoices;
+        final long minIntervalNanos;
+        final boolean stealOldest; // when all voices are busy: restart the oldest, or drop the new one
+
+        Effect(String file, int maxVoices, long minIntervalMs, boolean stealOldest) {
+            this.file = file;
+            this.maxVoices = maxVoices;
+            this.minIntervalNanos = minIntervalMs * 1_000_000L;
+            this.stealOldest = stealOldest;
+        }
+    }
+
+    private static final String SOUND_DIR = "/resources/sounds/";
+    private static final SoundBackend.Voice[] NO_VOICES = new SoundBackend.Voice[0];
+
+    /**
+     * Loaded voices and playback bookkeeping for one effect
+     */
+    private static final class Slot {
+        volatile SoundBackend.Voice[] voices; // null until loaded, NO_VOICES if unavailable
+        int next = 0;                         // round-robin index, also the oldest voice
+        long lastStart = Long.MIN_VALUE / 2;
+    }
+
+    private final SoundBackend backend;
+    private final Slot[] slots = new Slot[Effect.values().length];
+
+    private volatile boolean soundEnabled = true;
 
     public SoundManager() {
-        loadSounds();
+        this("off".equals(System.getProperty("knightstour.sound"))
+                ? SoundBackend.SILENT
+                : new AudioClipSoundBackend());
+    }
+
+    public SoundManager(SoundBackend backend) {
+        this.backend = backend;
+        for (int i = 0; i < slots.length; i++) slots[i] = new Slot();
     }
 
     /**
-     * Load all sound effects from resources folder
+     * Load every effect that has a sound file (may be called from any thread).
+     * Missing files are only reported if the effect is actually played.
      */
-    private void loadSounds() {
-        try {
-            moveSound = loadSound("/resources/sounds/move.wav");
-            invalidSound = loadSound("/resources/sounds/invalid.wav");
-            completeSound = loadSound("/resources/sounds/complete.wav");
-            highScoreSound = loadSound("/resources/sounds/high_score.wav");
-            undoSound = loadSound("/resources/sounds/undo.wav");
-            clickSound = loadSound("/resources/sounds/click.wav");
-        } catch (Exception e) {
-            System.err.println("Warning: Could not load some sound effects: " + e.getMessage());
-            System.err.println("Game will continue without sounds.");
+    public void preload() {
+        for (Effect effect : Effect.values()) {
+            if (getClass().getResource(SOUND_DIR + effect.file) != null) voices(effect);
+        }
+    }
+
+    /**
+     * Voices for an effect, loading them on first use
+     */
+    private SoundBackend.Voice[] voices(Effect effect) {
+        Slot slot = slots[effect.ordinal()];
+        SoundBackend.Voice[] v = slot.voices;
+        if (v != null) return v;
+        synchronized (slot) {
+            if (slot.voices == null) slot.voices = loadVoices(effect);
+            return slot.voices;
         }
     }
 
     /**
-     * Load a single sound file
+     * Load the voice pool for one effect; a missing file disables the effect quietly
      */
-    private AudioClip loadSound(String path) {
+    private SoundBackend.Voice[] loadVoices(Effect effect) {
+        String path = SOUND_DIR + effect.file;
+        URL resource = getClass().getResource(path);
+        if (resource == null) {
+            System.err.println("Sound file not found: " + path + " (effect disabled)");
+            return NO_VOICES;
+        }
         try {
-            URL resource = getClass().getResource(path);
-            if (resource != null) {
-                return new AudioClip(resource.toExternalForm());
-            } else {
-                System.err.println("Sound file not found: " + path);
-                return null;
-            }
+            SoundBackend.Voice[] pool = new SoundBackend.Voice[effect.maxVoices];
+            for (int i = 0; i < pool.length; i++) pool[i] = backend.load(resource);
+            return pool;
         } catch (Exception e) {
             System.err.println("Error loading sound: " + path + " - " + e.getMessage());
-            return null;
+            return NO_VOICES;
         }
     }
 
@@ -60,55 +112,80 @@ public class SoundManager {
      * Play sound when knight is placed on a square
      */
     public void playMoveSound() {
-        playSound(moveSound);
+        play(Effect.MOVE);
     }
 
     /**
      * Play sound when an invalid move is attempted
      */
     public void playInvalidSound() {
-        playSound(invalidSound);
+        play(Effect.INVALID);
     }
 
     /**
      * Play sound when tour is completed
      */
     public void playCompleteSound() {
-        playSound(completeSound);
+        play(Effect.COMPLETE);
     }
 
     /**
      * Play sound when a new high score is achieved
      */
     public void playHighScoreSound() {
-        playSound(highScoreSound);
+        play(Effect.HIGH_SCORE);
     }
 
     /**
      * Play sound when undo is used
      */
     public void playUndoSound() {
-        playSound(undoSound);
+        play(Effect.UNDO);
     }
 
     /**
      * Play sound for button clicks
      */
     public void playClickSound() {
-        playSound(clickSound);
+        play(Effect.CLICK);
     }
 
     /**
-     * Play a sound clip if sounds are enabled
+     * Play an effect if sounds are enabled, respecting its voice cap and rate limit.
+     * Called from the sound event thread and the FX thread, hence synchronized.
      */
-    private void playSound(AudioClip clip) {
-        if (soundEnabled && clip != null) {
-            try {
-                clip.play();
-            } catch (Exception e) {
-                System.err.println("Error playing sound: " + e.getMessage());
+    public synchronized void play(Effect effect) {
+        if (!soundEnabled) return;
+
+        Slot slot = slots[effect.ordinal()];
+        long now = System.nanoTime();
+        if (now - slot.lastStart < effect.minIntervalNanos) return;
+
+        SoundBackend.Voice[] pool = voices(effect);
+        if (pool.length == 0) return;
+
+        // Prefer an idle voice, starting from the oldest one
+        int pick = -1;
+        for (int i = 0; i < pool.length; i++) {
+            int idx = (slot.next + i) % pool.length;
+            if (!pool[idx].isPlaying()) {
+                pick = idx;
+                break;
+            }
+        }
+        try {
+            if (pick < 0) {
+                if (!effect.stealOldest) return;
+                pick = slot.next;
+                pool[pick].stop();
             }
+            pool[pick].play();
+        } catch (Exception e) {
+            System.err.println("Error playing sound: " + e.getMessage());
+            return;
         }
+        slot.next = (pick + 1) % pool.length;
+        slot.lastStart = now;
     }
 
     /**
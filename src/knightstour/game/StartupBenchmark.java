@@ -0,0 +1,103 @@
+package knightstour.game;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repeatable cold-start benchmark: launches the game N times in fresh JVMs
+ * and reports the time until the menu's first frame.
+ *
+ * Run it with the same JVM options as the game, e.g.
+ *   java --module-path <javafx/lib> --add-modules javafx.controls,javafx.media \
+ *        -cp out knightstour.game.StartupBenchmark [runs] [--jfr] [-- extra JVM options]
+ *
+ * With --jfr each run also writes a startup profile to startup-N.jfr.
+ * Options after "--" are passed to the game JVM (e.g. -XX:SharedArchiveFile=...).
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int runs = 10;
+        boolean jfr = false;
+        List<String> extraJvmOptions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--")) {
+                extraJvmOptions.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                break;
+            } else if (args[i].equals("--jfr")) {
+                jfr = true;
+            } else {
+                runs = Integer.parseInt(args[i]);
+            }
+        }
+
+        long[] wallMs = new long[runs];
+        long[] reportedMs = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            List<String> cmd = gameCommand(extraJvmOptions);
+            if (jfr) cmd.add(1, "-XX:StartFlightRecording=filename=startup-" + (i + 1) + ".jfr,settings=profile");
+
+            long t0 = System.nanoTime();
+            Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+            reportedMs[i] = readFirstFrame(p);
+            wallMs[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+            if (!p.waitFor(30, TimeUnit.SECONDS)) p.destroyForcibly();
+
+            System.out.printf("run %2d: first frame after %5d ms (in-process %5d ms)%n",
+                    i + 1, wallMs[i], reportedMs[i]);
+        }
+
+        Arrays.sort(wallMs);
+        Arrays.sort(reportedMs);
+        System.out.printf("time to first frame over %d runs: min %d ms, median %d ms, max %d ms%n",
+                runs, wallMs[0], wallMs[runs / 2], wallMs[runs - 1]);
+        System.out.printf("  in-process (since JVM start): min %d ms, median %d ms%n",
+                reportedMs[0], reportedMs[runs / 2]);
+    }
+
+    /**
+     * Command line that starts the game with this JVM's class/module path
+     */
+    private static List<String> gameCommand(List<String> extraJvmOptions) {
+        String java = ProcessHandle.current().info().command()
+                .orElse(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        List<String> cmd = new ArrayList<>();
+        cmd.add(java);
+        String modulePath = System.getProperty("jdk.module.path");
+        if (modulePath != null) {
+            cmd.add("--module-path");
+            cmd.add(modulePath);
+            cmd.add("--add-modules");
+            cmd.add("javafx.controls,javafx.media");
+        }
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add("-Dknightstour.startupProfile=true");
+        cmd.add("-Dknightstour.exitAfterFirstFrame=true");
+        cmd.addAll(extraJvmOptions);
+        cmd.add(ChessBoardKnight.class.getName());
+        return cmd;
+    }
+
+    /**
+     * Wait for the game to print its first-frame marker
+     * @return the time the game measured itself, in ms since JVM start
+     */
+    private static long readFirstFrame(Process p) throws IOException, InterruptedException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith(ChessBoardKnight.FIRST_FRAME_MARKER)) {
+                    return Long.parseLong(line.substring(ChessBoardKnight.FIRST_FRAME_MARKER.length()).trim());
+                }
+            }
+        }
+        throw new IOException("Game exited without reaching its first frame (exit code " + p.waitFor() + ")");
+    }
+}
@@ -0,0 +1,526 @@
+package knightstour.game;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Exhaustive search for structured knight's tours: centrally symmetric closed tours and
+ * semi-magic / magic numberings (every row and column, and for magic both diagonals,
+ * sum to n(n^2+1)/2). Squares are indexed row * boardSize + col and moves come from
+ * the same neighbour tables as {@link TourSolver}.
+ *
+ * The tree is split into work units (all valid prefixes of a fixed depth, from
+ * start squares in one octant of the board) that are searched in parallel. A closed
+ * tour passes through every square, so symmetric tours are all searched from the
+ * corner, leaving it towards its lower-numbered neighbour: each is found exactly once.
+ * Finished units, the path each worker has reached inside its unit and the tours
+ * found are checkpointed, so a run of days can be stopped (Ctrl-C) and resumed
+ * with the same command.
+ *
+ * Usage: java -cp out knightstour.game.StructuredTourSearch symmetric|semi-magic|magic boardSize
+ *        [--threads N] [--depth D] [--checkpoint file] [--max-seconds S]
+ * Found tours are appended to <checkpoint>.tours, one tour (square indices) per line.
+ */
+public class StructuredTourSearch {
+
+    public enum Structure {
+        SYMMETRIC,  // closed tour mapped onto itself by a half-turn: square k+N/2 is square k rotated
+        SEMI_MAGIC, // rows and columns all sum to the magic constant
+        MAGIC       // semi-magic, and both long diagonals too
+    }
+
+    private static final long CHECKPOINT_INTERVAL_MS = 30_000;
+    private static final int NODE_FLUSH = 1 << 16; // local node counts are published this often
+
+    private final Structure structure;
+    private final int boardSize;
+    private final int squares;
+    private final TourSolver board;
+    private final int splitDepth;
+
+    private final List<int[]> units = new ArrayList<>();
+    private final BitSet doneUnits = new BitSet();
+    private final Map<Integer, int[]> activePaths = new TreeMap<>(); // unit -> path reached in it
+    private final LongAdder nodes = new LongAdder();
+    private final AtomicInteger solutions = new AtomicInteger();
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private long previousNodes;  // from earlier runs (checkpoint)
+
+    private final File checkpointFile;
+    private final File toursFile;
+    private BufferedWriter toursOut;
+
+    public StructuredTourSearch(Structure structure, int boardSize, int splitDepth, File checkpointFile) {
+        this.structure = structure;
+        this.boardSize = boardSize;
+        this.squares = boardSize * boardSize;
+        this.board = TourSolver.forSize(boardSize);
+        this.splitDepth = splitDepth;
+        this.checkpointFile = checkpointFile;
+        this.toursFile = new File(checkpointFile.getPath() + ".tours");
+        if (structure == Structure.SYMMETRIC && squares % 2 != 0) {
+            throw new IllegalArgumentException("Symmetric closed tours need an even board size");
+        }
+    }
+
+    // =========================================================
+    // Structure rules
+    // =========================================================
+
+    /**
+     * Incremental constraint checked as the tour grows (one instance per worker)
+     */
+    private abstract static class Rule {
+        /** Square numbered k has just been placed; false prunes this branch */
+        abstract boolean place(int sq, int k);
+        abstract void unplace(int sq, int k);
+        /** Square that the move numbered k is forced onto, or -1 */
+        int forced(int k) { return -1; }
+    }
+
+    private Rule newRule(int[] path) {
+        return structure == Structure.SYMMETRIC ? new SymmetryRule(path) : new MagicRule(structure == Structure.MAGIC);
+    }
+
+    /**
+     * The second half of the tour is the first rotated by 180 degrees: pos[k + N/2] = rotate(pos[k]).
+     * (An open tour with pos[N-1-k] = rotate(pos[k]) is impossible on even boards, since the
+     * rotation keeps square colour while an odd number of moves changes it.)
+     */
+    private final class SymmetryRule extends Rule {
+        private final int[] path;
+        private final boolean[] claimed = new boolean[squares]; // rotations of first-half squares
+        private final int firstStep;                             // fixes the direction the cycle is walked in
+
+        SymmetryRule(int[] path) {
+            this.path = path;
+            int step = Integer.MAX_VALUE;
+            for (int n : board.neighbours(0)) step = Math.min(step, n);
+            this.firstStep = step;
+        }
+
+        private int rotate(int sq) {
+            return squares - 1 - sq;
+        }
+
+        @Override
+        boolean place(int sq, int k) {
+            if (k >= squares / 2) return true; // forced() already put it on the mirrored square
+            if (k == 1 && sq != firstStep) return false; // the other way round is the same cycle
+            int mirror = rotate(sq);
+            if (mirror == sq || claimed[sq]) return false;
+            claimed[mirror] = true;
+            // The end of the first half must lead into the rotated start (this also closes the tour)
+            if (k == squares / 2 - 1 && !isNeighbour(sq, rotate(path[0]))) {
+                claimed[mirror] = false;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        void unplace(int sq, int k) {
+            if (k < squares / 2) claimed[rotate(sq)] = false;
+        }
+
+        @Override
+        int forced(int k) {
+            return k >= squares / 2 ? rotate(path[k - squares / 2]) : -1;
+        }
+    }
+
+    /**
+     * Row/column (and diagonal) sums stay within reach of the magic constant
+     */
+    private final class MagicRule extends Rule {
+        private final boolean diagonals;
+        private final long target = (long) boardSize * (squares + 1) / 2;
+        private final long[] rowSum = new long[boardSize];
+        private final long[] colSum = new long[boardSize];
+        private final int[] rowLeft = new int[boardSize];
+        private final int[] colLeft = new int[boardSize];
+        private long diagSum, antiSum;
+        private int diagLeft, antiLeft;
+
+        MagicRule(boolean diagonals) {
+            this.diagonals = diagonals;
+            Arrays.fill(rowLeft, boardSize);
+            Arrays.fill(colLeft, boardSize);
+            diagLeft = antiLeft = boardSize;
+        }
+
+        @Override
+        boolean place(int sq, int k) {
+            int r = sq / boardSize, c = sq % boardSize, number = k + 1;
+            rowSum[r] += number; rowLeft[r]--;
+            colSum[c] += number; colLeft[c]--;
+            if (r == c) { diagSum += number; diagLeft--; }
+            if (r + c == boardSize - 1) { antiSum += number; antiLeft--; }
+
+            // Remaining numbers are number+1 .. squares
+            for (int i = 0; i < boardSize; i++) {
+                if (!reachable(rowSum[i], rowLeft[i], number) || !reachable(colSum[i], colLeft[i], number)) return false;
+            }
+            return !diagonals || (reachable(diagSum, diagLeft, number) && reachable(antiSum, antiLeft, number));
+        }
+
+        private boolean reachable(long sum, int left, int lastPlaced) {
+            if (left == 0) return sum == target;
+            long smallest = (long) left * (lastPlaced + 1) + (long) left * (left - 1) / 2;
+            long largest = (long) left * squares - (long) left * (left - 1) / 2;
+            return sum + smallest <= target && sum + largest >= target;
+        }
+
+        @Override
+        void unplace(int sq, int k) {
+            int r = sq / boardSize, c = sq % boardSize, number = k + 1;
+            rowSum[r] -= number; rowLeft[r]++;
+            colSum[c] -= number; colLeft[c]++;
+            if (r == c) { diagSum -= number; diagLeft++; }
+            if (r + c == boardSize - 1) { antiSum -= number; antiLeft++; }
+        }
+    }
+
+    private boolean isNeighbour(int a, int b) {
+        for (int n : board.neighbours(a)) if (n == b) return true;
+        return false;
+    }
+
+    // =========================================================
+    // Search
+    // =========================================================
+
+    /**
+     * Depth-first state of one worker
+     */
+    private final class Walker {
+        final boolean[] visited = new boolean[squares];
+        final int[] degree = new int[squares];
+        final int[] path = new int[squares];
+        final Rule rule = newRule(path);
+        int depth = 0;
+        long localNodes = 0;
+
+        int unit = -1;                                // unit being searched (-1 while cutting units)
+        int[] resume;                                 // checkpointed path to continue from, if any
+        final List<int[]> pending = new ArrayList<>(); // tours found since the last publish
+
+        Walker() {
+            for (int sq = 0; sq < squares; sq++) degree[sq] = board.neighbours(sq).length;
+        }
+
+        boolean push(int sq) {
+            visited[sq] = true;
+            path[depth] = sq;
+            for (int n : board.neighbours(sq)) degree[n]--;
+            if (rule.place(sq, depth++)) return true;
+            pop();
+            return false;
+        }
+
+        void pop() {
+            int sq = path[--depth];
+            rule.unplace(sq, depth);
+            visited[sq] = false;
+            for (int n : board.neighbours(sq)) degree[n]++;
+        }
+
+        /**
+         * Visit every extension of the current path; prefixes of length stopDepth are
+         * handed to the sink instead of being searched further (used to cut work units)
+         */
+        void search(int stopDepth, Consumer<int[]> sink) {
+            if (resume != null && depth == resume.length) resume = null; // back where the checkpoint left off
+            if (depth == stopDepth) {
+                sink.accept(Arrays.copyOf(path, depth));
+                return;
+            }
+            if (stop.get()) return;
+            if (++localNodes % NODE_FLUSH == 0) {
+                nodes.add(NODE_FLUSH);
+                if (unit >= 0) publish(this);
+            }
+
+            int cur = path[depth - 1];
+            int remaining = squares - depth;
+            int forced = rule.forced(depth);
+
+            // An unvisited neighbour with no other way in must be the very last square
+            int trapped = -1;
+            for (int n : board.neighbours(cur)) {
+                if (!visited[n] && degree[n] == 0) {
+                    if (trapped >= 0 || remaining != 1) return;
+                    trapped = n;
+                }
+            }
+            // When resuming, branches before the checkpointed one were searched by an earlier run
+            int resumeAt = resume != null ? resume[depth] : -1;
+            for (int n : board.neighbours(cur)) {
+                if (visited[n]) continue;
+                if (resumeAt >= 0 && n != resumeAt) continue;
+                if (forced >= 0 && n != forced) continue;
+                if (trapped >= 0 && n != trapped) continue;
+                resumeAt = -1;
+                if (push(n)) {
+                    search(stopDepth, sink);
+                    pop();
+                }
+            }
+        }
+
+        void flushNodes() {
+            nodes.add(localNodes % NODE_FLUSH);
+            localNodes = 0;
+        }
+    }
+
+    /**
+     * Start squares up to board symmetry: one octant (row <= col, both in the top-left quadrant).
+     * Closed tours only need one, since every square is on them.
+     */
+    private List<Integer> startSquares() {
+        List<Integer> starts = new ArrayList<>();
+        if (structure == Structure.SYMMETRIC) {
+            starts.add(0);
+            return starts;
+        }
+        int half = (boardSize + 1) / 2;
+        for (int r = 0; r < half; r++)
+            for (int c = r; c < half; c++)
+                starts.add(r * boardSize + c);
+        return starts;
+    }
+
+    private void buildUnits() {
+        for (int start : startSquares()) {
+            Walker w = new Walker();
+            if (!w.push(start)) continue;
+            w.search(Math.min(splitDepth, squares), units::add);
+        }
+    }
+
+    /**
+     * Search every unit not finished yet, on the given number of threads
+     */
+    public void run(int threads, long maxSeconds) throws IOException, InterruptedException {
+        buildUnits();
+        loadCheckpoint();
+        toursOut = new BufferedWriter(new FileWriter(toursFile, true));
+
+        int total = units.size();
+        System.out.printf("%s %dx%d: %d work units (%d already done), %d tours found so far%n",
+                structure, boardSize, boardSize, total, doneUnits.cardinality(), solutions.get());
+
+        Thread hook = new Thread(() -> {
+            stop.set(true);
+            saveCheckpointQuietly();
+        });
+        Runtime.getRuntime().addShutdownHook(hook);
+
+        AtomicInteger nextUnit = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                int u;
+                while (!stop.get() && (u = nextUnit.getAndIncrement()) < total) {
+                    if (isDone(u)) continue;
+                    Walker w = new Walker();
+                    w.unit = u;
+                    w.resume = activePath(u);
+                    boolean ok = true;
+                    for (int sq : units.get(u)) ok &= w.push(sq);
+                    if (ok) w.search(squares, w.pending::add);
+                    w.flushNodes();
+                    if (!stop.get()) finishUnit(w);
+                }
+            });
+        }
+        pool.shutdown();
+
+        long start = System.nanoTime();
+        long lastCheckpoint = System.currentTimeMillis();
+        long lastNodes = 0;
+        long lastReport = start;
+        while (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+            long now = System.nanoTime();
+            long n = nodes.sum();
+            System.out.printf("%,d nodes/s, %d/%d units, %d tours%n",
+                    (long) ((n - lastNodes) / ((now - lastReport) / 1e9)), doneCount(), total, solutions.get());
+            lastNodes = n;
+            lastReport = now;
+            if (System.currentTimeMillis() - lastCheckpoint > CHECKPOINT_INTERVAL_MS) {
+                saveCheckpoint();
+                lastCheckpoint = System.currentTimeMillis();
+            }
+            if (maxSeconds > 0 && now - start > maxSeconds * 1_000_000_000L) stop.set(true);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %,d nodes in %.1f s (%,d nodes/s), %d/%d units, %d tours%n",
+                stop.get() ? "Stopped" : "Finished", nodes.sum(), seconds,
+                (long) (nodes.sum() / seconds), doneCount(), total, solutions.get());
+        saveCheckpoint();
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // Already shutting down (Ctrl-C); the hook saves the checkpoint again, which is harmless
+        }
+        toursOut.close();
+    }
+
+    private synchronized boolean isDone(int unit) { return doneUnits.get(unit); }
+    private synchronized int doneCount() { return doneUnits.cardinality(); }
+
+    private synchronized int[] activePath(int unit) { return activePaths.get(unit); }
+
+    /**
+     * Record where a worker is, together with the tours it found before getting there,
+     * so the checkpoint and the tours file always agree. Tours found after the last
+     * publish are simply found again when the search resumes.
+     */
+    private synchronized void publish(Walker w) {
+        if (writeTours(w.pending)) activePaths.put(w.unit, Arrays.copyOf(w.path, w.depth));
+    }
+
+    private synchronized void finishUnit(Walker w) {
+        if (!writeTours(w.pending)) return;
+        activePaths.remove(w.unit);
+        doneUnits.set(w.unit);
+    }
+
+    private boolean writeTours(List<int[]> tours) {
+        try {
+            for (int[] tour : tours) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < tour.length; i++) {
+                    if (i > 0) sb.append(' ');
+                    sb.append(tour[i]);
+                }
+                toursOut.write(sb.toString());
+                toursOut.newLine();
+            }
+            toursOut.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing tours: " + e.getMessage());
+            stop.set(true);
+            return false;
+        }
+        solutions.addAndGet(tours.size());
+        tours.clear();
+        return true;
+    }
+
+    // =========================================================
+    // Checkpoints
+    // =========================================================
+    private void loadCheckpoint() throws IOException {
+        if (!checkpointFile.exists()) return;
+        Properties p = new Properties();
+        try (InputStream in = new FileInputStream(checkpointFile)) {
+            p.load(in);
+        }
+        if (!structure.name().equals(p.getProperty("structure"))
+                || boardSize != Integer.parseInt(p.getProperty("boardSize", "0"))
+                || splitDepth != Integer.parseInt(p.getProperty("depth", "0"))
+                || units.size() != Integer.parseInt(p.getProperty("units", "0"))) {
+            throw new IOException("Checkpoint " + checkpointFile + " belongs to a different search");
+        }
+        doneUnits.or(BitSet.valueOf(Base64.getDecoder().decode(p.getProperty("done", ""))));
+        previousNodes = Long.parseLong(p.getProperty("nodes", "0"));
+        for (String key : p.stringPropertyNames()) {
+            if (!key.startsWith("path.")) continue;
+            String[] squaresText = p.getProperty(key).trim().split(" ");
+            int[] path = new int[squaresText.length];
+            for (int i = 0; i < path.length; i++) path[i] = Integer.parseInt(squaresText[i]);
+            activePaths.put(Integer.parseInt(key.substring(5)), path);
+        }
+        solutions.set(Integer.parseInt(p.getProperty("tours", "0")));
+
+        // Drop tours written after the checkpoint; their units will be searched again
+        if (toursFile.exists()) {
+            List<String> lines = Files.readAllLines(toursFile.toPath());
+            if (lines.size() > solutions.get()) {
+                Files.write(toursFile.toPath(), lines.subList(0, solutions.get()));
+            }
+        }
+    }
+
+    private synchronized void saveCheckpoint() throws IOException {
+        Properties p = new Properties();
+        p.setProperty("structure", structure.name());
+        p.setProperty("boardSize", String.valueOf(boardSize));
+        p.setProperty("depth", String.valueOf(splitDepth));
+        p.setProperty("units", String.valueOf(units.size()));
+        p.setProperty("done", Base64.getEncoder().encodeToString(doneUnits.toByteArray()));
+        p.setProperty("nodes", String.valueOf(previousNodes + nodes.sum()));
+        p.setProperty("tours", String.valueOf(solutions.get()));
+        for (Map.Entry<Integer, int[]> e : activePaths.entrySet()) {
+            StringBuilder sb = new StringBuilder();
+            for (int sq : e.getValue()) sb.append(sq).append(' ');
+            p.setProperty("path." + e.getKey(), sb.toString().trim());
+        }
+
+        // Write beside the old one and swap, so a crash never leaves a torn checkpoint
+        File tmp = new File(checkpointFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            p.store(out, "Knight's Tour structured search checkpoint");
+        }
+        Files.move(tmp.toPath(), checkpointFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void saveCheckpointQuietly() {
+        try {
+            saveCheckpoint();
+        } catch (IOException e) {
+            System.err.println("Error saving checkpoint: " + e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: StructuredTourSearch symmetric|semi-magic|magic boardSize"
+                    + " [--threads N] [--depth D] [--checkpoint file] [--max-seconds S]");
+            System.exit(2);
+        }
+        Structure structure = Structure.valueOf(args[0].toUpperCase().replace('-', '_'));
+        int boardSize = Integer.parseInt(args[1]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int depth = 6;
+        long maxSeconds = 0;
+        String checkpoint = "structured-" + args[0].toLowerCase() + "-" + boardSize + ".ckpt";
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--depth": depth = Integer.parseInt(args[i + 1]); break;
+                case "--checkpoint": checkpoint = args[i + 1]; break;
+                case "--max-seconds": maxSeconds = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        new StructuredTourSearch(structure, boardSize, depth, new File(checkpoint)).run(threads, maxSeconds);
+    }
+}
@@ -0,0 +1,442 @@
+package knightstour.game;
+
+import java.util.Arrays;
+
+/**
+ * Headless game state and rules for a single Knight's Tour.
+ * Holds the board, knight position, move history and score so the
+ * same rules drive live play and replays.
+ *
+ * In cooperative levels ({@link Level#knights} > 1) several pieces share the board.
+ * The first plays place them one by one on fresh squares; after that each play moves
+ * one piece, and the tour is complete once the pieces have visited every square
+ * between them. Pieces take turns in order, or with free turns the play moves a piece
+ * that can reach the square: the one that moved last if it can, otherwise the next in
+ * order (so a piece keeps moving until the player plays a square only another one
+ * reaches, and a recorded game replays the same way). Either way a move is checked
+ * against k pieces at most.
+ *
+ * State is kept in primitive arrays sized for the board, so playing and undoing
+ * moves allocates nothing once a game is under way.
+ */
+public class TourEngine {
+
+    /**
+     * Outcome of a square being played
+     */
+    public enum MoveResult {
+        STARTED,   // placement of a knight (the first play, or the first k in cooperative mode)
+        MOVED,     // legal move onto a fresh square
+        REVISITED, // legal move onto an already visited square
+        ILLEGAL    // not a knight move from the current square
+    }
+
+    // Knight move deltas
+    public static final int[][] KNIGHT_DELTAS = {
+            {-2, -1}, {-2, 1},
+            {-1, -2}, {-1, 2},
+            {1, -2},  {1, 2},
+            {2, -1},  {2, 1}
+    };
+
+    private final Level level;
+    private final int boardSize;
+    private final Leaper piece;
+    private final BoardTopology topology;
+    private final int[][] moves;         // the piece's targets of every square
+    private final int knights;           // pieces on the board (1 for the classic tour)
+    private final boolean freeTurns;     // any piece may move next, rather than each in turn
+    private final int[] knightAt;        // square of each piece, -1 until placed
+    private int tourLength;              // squares the piece can reach from where it started
+    private final ScoringRules.Evaluator scorer;
+
+    private int score = 0;
+    private int moveCount = 0;
+    private final int[] visits;          // times each square is on the history (0 = unvisited)
+    private final int[] degree;          // unvisited targets of each square (its Warnsdorff degree)
+    private int visitedCount = 0;        // squares with visits > 0
+    private int currentRow = -1;
+    private int currentCol = -1;
+    private int[] history;               // square indices of the moves played, oldest first
+    private int historySize = 0;
+    private int[] streaks;               // fresh moves in a row ending at each history entry
+    private int[] movers;                // piece that made each history entry
+    private int[] previous;              // square that piece left (-1 for a placement)
+
+    private MoveRecording recording; // optional, receives every applied move/undo
+
+    public TourEngine(Level level) {
+        this.level = level;
+        this.boardSize = level.boardSize;
+        this.piece = level.piece;
+        this.topology = level.topology;
+        this.moves = topology.moveTable(piece);
+        this.knights = level.knights;
+        this.freeTurns = level.freeTurns;
+        this.knightAt = new int[knights];
+        Arrays.fill(knightAt, -1);
+        this.scorer = level.scorer;
+        this.visits = new int[boardSize * boardSize];
+        this.degree = new int[visits.length];
+        resetDegrees();
+        this.history = new int[boardSize * boardSize * 2]; // room for a tour plus revisits
+        this.streaks = new int[history.length];
+        this.movers = new int[history.length];
+        this.previous = new int[history.length];
+    }
+
+    /**
+     * Play the given square: starts the tour or moves the knight there
+     */
+    public MoveResult play(int row, int col) {
+        return play(row, col, -1);
+    }
+
+    /**
+     * Play the given square, timed for the level's fast-move bonus
+     * @param thinkMillis time taken over the move, or -1 if it wasn't timed
+     */
+    public MoveResult play(int row, int col, long thinkMillis) {
+        int square = row * boardSize + col;
+        // First clicks set the starting positions
+        if (isPlacing()) {
+            if (!topology.isActive(square) || visits[square] > 0) return MoveResult.ILLEGAL;
+            placeKnight(historySize, row, col);
+            record(square, -1);
+            return MoveResult.STARTED;
+        }
+        // Only the pieces' own moves are allowed from their current positions
+        int mover = moverFor(square);
+        if (mover < 0) {
+            return MoveResult.ILLEGAL;
+        }
+
+        boolean isRevisit = visits[square] > 0;
+        placeKnight(mover, row, col);
+        record(square, thinkMillis);
+
+        // scoring
+        if (isRevisit) {
+            score += scorer.revisit();
+            return MoveResult.REVISITED;
+        }
+        score += scorer.fresh(square, streaks[historySize - 1], thinkMillis);
+        return MoveResult.MOVED;
+    }
+
+    /**
+     * Piece that a play on a square moves, or -1 if none may go there
+     */
+    private int moverFor(int square) {
+        if (!freeTurns) return canReach(knightToMove(), square) ? knightToMove() : -1;
+        int last = movers[historySize - 1];
+        for (int i = 0; i < knights; i++) {
+            int k = (last + i) % knights;
+            if (canReach(k, square)) return k;
+        }
+        return -1;
+    }
+
+    private boolean canReach(int knight, int square) {
+        if (!isLegalMove(knightAt[knight], square)) return false;
+        if (knights > 1) {
+            for (int at : knightAt) if (at == square) return false; // pieces never share a square
+        }
+        return true;
+    }
+
+    private void placeKnight(int knight, int row, int col) {
+        currentRow = row;
+        currentCol = col;
+        push(row * boardSize + col, knight);
+        moveCount++;
+    }
+
+    private void push(int square, int knight) {
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
+            streaks = Arrays.copyOf(streaks, historySize * 2);
+            movers = Arrays.copyOf(movers, historySize * 2);
+            previous = Arrays.copyOf(previous, historySize * 2);
+        }
+        boolean fresh = visits[square] == 0;
+        // The opening placement starts a streak of 0; each fresh move extends it
+        streaks[historySize] = historySize == 0 || !fresh ? 0 : streaks[historySize - 1] + 1;
+        movers[historySize] = knight;
+        previous[historySize] = knightAt[knight];
+        knightAt[knight] = square;
+        history[historySize++] = square;
+        if (visits[square]++ == 0) {
+            visitedCount++;
+            for (int t : moves[square]) degree[t]--; // moves are symmetric: t's targets include square
+        }
+        if (historySize <= knights) tourLength = reachableFromStarts();
+    }
+
+    /**
+     * Squares the pieces can reach between them from where they were placed (the first
+     * history entries): the sizes of the distinct parts of the board they start in
+     */
+    private int reachableFromStarts() {
+        int placed = Math.min(historySize, knights), total = 0;
+        for (int i = 0; i < placed; i++) {
+            int part = topology.component(piece, history[i]);
+            boolean counted = false;
+            for (int j = 0; j < i && !counted; j++) counted = topology.component(piece, history[j]) == part;
+            if (!counted) total += topology.reachable(piece, history[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Take back the last move (with the level's undo penalty)
+     * @return false if there was nothing to undo
+     */
+    public boolean undo() {
+        if (historySize == 0) return false;
+
+        int square = history[--historySize];
+        knightAt[movers[historySize]] = previous[historySize];
+        if (--visits[square] == 0) {
+            visitedCount--;
+            for (int t : moves[square]) degree[t]++;
+        }
+        if (historySize > 0 && historySize < knights) tourLength = reachableFromStarts();
+
+        // Reposition knight to previous spot (if any)
+        if (historySize > 0) {
+            int prev = history[historySize - 1];
+            currentRow = prev / boardSize;
+            currentCol = prev % boardSize;
+        } else {
+            currentRow = -1;
+            currentCol = -1;
+        }
+
+        moveCount = Math.max(0, moveCount - 1);
+        score += scorer.undo();
+        record(MoveRecording.UNDO, -1);
+        return true;
+    }
+
+    private void resetDegrees() {
+        for (int sq = 0; sq < degree.length; sq++) degree[sq] = moves[sq].length;
+    }
+
+    private void record(int event, long thinkMillis) {
+        if (recording != null) recording.append(event, thinkMillis);
+    }
+
+    // =========================================================
+    // Rules
+    // =========================================================
+    public static boolean isLegalKnightMove(int r1, int c1, int r2, int c2) {
+        int dr = Math.abs(r1 - r2);
+        int dc = Math.abs(c1 - c2);
+        return (dr == 2 && dc == 1) || (dr == 1 && dc == 2);
+    }
+
+    /**
+     * Whether the level's piece can move between two squares (across joined edges,
+     * never onto a blocked square)
+     */
+    public boolean isLegalMove(int r1, int c1, int r2, int c2) {
+        if (topology.isPlain()) return piece.isMove(r2 - r1, c2 - c1);
+        return topology.isMove(piece, r1 * boardSize + c1, r2 * boardSize + c2);
+    }
+
+    private boolean isLegalMove(int from, int to) {
+        return isLegalMove(from / boardSize, from % boardSize, to / boardSize, to % boardSize);
+    }
+
+    /**
+     * Whether a play on a square would move a piece there this turn (O(k) for k pieces)
+     */
+    public boolean canMoveTo(int r, int c) {
+        return !isPlacing() && moverFor(r * boardSize + c) >= 0;
+    }
+
+    /**
+     * Squares the piece can move to from a square (shared table; do not modify)
+     */
+    public int[] targets(int square) {
+        return moves[square];
+    }
+
+    public boolean inBounds(int r, int c) {
+        return r >= 0 && r < boardSize && c >= 0 && c < boardSize;
+    }
+
+    /**
+     * Whether a square is part of the board (not a hole or obstacle)
+     */
+    public boolean isActive(int r, int c) {
+        return topology.isActive(r * boardSize + c);
+    }
+
+    public int visitedCount() {
+        return visitedCount;
+    }
+
+    /**
+     * Whether every square the piece can reach has been visited (every active square,
+     * except for colour-bound pieces, boards too small for the piece or boards split by obstacles)
+     */
+    public boolean isTourComplete() {
+        return historySize >= knights && visitedCount == tourLength;
+    }
+
+    // =========================================================
+    // Pieces (cooperative mode)
+    // =========================================================
+    public int getKnightCount() { return knights; }
+    public boolean hasFreeTurns() { return freeTurns; }
+
+    /**
+     * Whether plays still place pieces rather than move them
+     */
+    public boolean isPlacing() {
+        return historySize < knights;
+    }
+
+    /**
+     * Square of a piece, or -1 if it isn't placed yet
+     */
+    public int getKnightSquare(int knight) {
+        return knightAt[knight];
+    }
+
+    /**
+     * Piece that is placed or moves next: -1 with free turns (once all are placed)
+     */
+    public int knightToMove() {
+        if (isPlacing()) return historySize;
+        if (freeTurns) return knights == 1 ? 0 : -1;
+        return (historySize - knights) % knights;
+    }
+
+    /**
+     * Square of the piece that moves next, or -1 if there is no single one (none placed
+     * yet, still placing several, or free turns)
+     */
+    public int getMoverSquare() {
+        if (isPlacing()) return -1;
+        int k = knightToMove();
+        return k < 0 ? -1 : knightAt[k];
+    }
+
+    /**
+     * Square the piece that made the last move left, or -1 if it was a placement
+     */
+    public int getPreviousSquare() {
+        return historySize == 0 ? -1 : previous[historySize - 1];
+    }
+
+    /**
+     * Whether a piece stands on a square (O(k))
+     */
+    public boolean isKnightAt(int r, int c) {
+        int square = r * boardSize + c;
+        for (int at : knightAt) if (at == square) return true;
+        return false;
+    }
+
+    // =========================================================
+    // Snapshots (used for replay keyframes)
+    // =========================================================
+
+    /**
+     * Immutable copy of the engine state at one point of a game
+     */
+    public static final class Snapshot {
+        private final int score;
+        private final int moveCount;
+        private final int currentRow;
+        private final int currentCol;
+        private final int[] history; // square indices, oldest first
+        private final int[] movers;  // piece of each history entry
+
+        private Snapshot(int score, int moveCount, int currentRow, int currentCol, int[] history, int[] movers) {
+            this.score = score;
+            this.moveCount = moveCount;
+            this.currentRow = currentRow;
+            this.currentCol = currentCol;
+            this.history = history;
+            this.movers = movers;
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(score, moveCount, currentRow, currentCol, getHistory(), Arrays.copyOf(movers, historySize));
+    }
+
+    /**
+     * Reset this engine to a previously taken snapshot
+     */
+    public void restore(Snapshot s) {
+        Arrays.fill(visits, 0);
+        resetDegrees();
+        visitedCount = 0;
+        historySize = 0;
+        Arrays.fill(knightAt, -1);
+        for (int i = 0; i < s.history.length; i++) push(s.history[i], s.movers[i]);
+        score = s.score;
+        moveCount = s.moveCount;
+        currentRow = s.currentRow;
+        currentCol = s.currentCol;
+    }
+
+    /**
+     * Apply one recorded event (a square index or {@link MoveRecording#UNDO})
+     * @param thinkMillis think time recorded with the move, or -1 if it wasn't timed
+     */
+    public void apply(int event, long thinkMillis) {
+        if (event == MoveRecording.UNDO) {
+            undo();
+        } else {
+            play(event / boardSize, event % boardSize, thinkMillis);
+        }
+    }
+
+    // =========================================================
+    // Accessors
+    // =========================================================
+    public Level getLevel() { return level; }
+    public Leaper getPiece() { return piece; }
+    public BoardTopology getTopology() { return topology; }
+    public int getBoardSize() { return boardSize; }
+    public int getScore() { return score; }
+    public int getMoveCount() { return moveCount; }
+    public int getCurrentRow() { return currentRow; }
+    public int getCurrentCol() { return currentCol; }
+    public boolean isVisited(int r, int c) { return visits[r * boardSize + c] > 0; }
+
+    /**
+     * Unvisited squares the piece could go on to from a square (its Warnsdorff degree).
+     * Kept up to date by ±1 steps on every move and undo, so reading it is O(1).
+     */
+    public int onwardDegree(int square) { return degree[square]; }
+    public boolean hasStarted() { return currentRow != -1 && currentCol != -1; }
+    public boolean canUndo() { return historySize > 0; }
+
+    /**
+     * Squares of the current line of play (undone moves excluded), oldest first
+     */
+    public int[] getHistory() {
+        return Arrays.copyOf(history, historySize);
+    }
+
+    /**
+     * Length of the current line of play (see {@link #getHistory()}, without the copy)
+     */
+    public int historySize() { return historySize; }
+
+    /** Square of one entry of the current line */
+    public int historyAt(int index) { return history[index]; }
+
+    /** Piece that made one entry of the current line */
+    public int moverAt(int index) { return movers[index]; }
+
+    public void setRecording(MoveRecording recording) { this.recording = recording; }
+    public MoveRecording getRecording() { return recording; }
+}
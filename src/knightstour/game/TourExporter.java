@@ -0,0 +1,403 @@
+package knightstour.game;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.TexturePaint;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Renders tours to image files without any window: every square numbered with the
+ * move that reached it, the path drawn through the square centres, and the board
+ * set on a white card over the knights pattern like in the game.
+ *
+ * SVG is written as text straight to the file. PNG is drawn into an offscreen AWT
+ * image, so no JavaFX stage (and no display) is needed; run with
+ * -Djava.awt.headless=true on servers.
+ *
+ * Batches stream: tours are read or generated one at a time and handed to a fixed
+ * pool through a short queue, so memory stays at one tour per queue slot plus one
+ * reused image per worker however many thousands are exported. The pattern is
+ * scaled down to a small tile once and shared; SVG files link to one copy of it
+ * written next to them.
+ *
+ * Usage: java -cp out knightstour.game.TourExporter outDir [--format svg|png|both]
+ *        [--cell px] [--threads N] (toursFile | --solve boardSize count [seed])
+ * A tours file has one tour per line: name boardSize square square ... (squares
+ * indexed row * boardSize + col); blank lines and lines starting with # are skipped.
+ */
+public final class TourExporter {
+
+    public enum Format { SVG, PNG, BOTH }
+
+    private static final String PATTERN = "/resources/images/knights_pattern.png";
+    private static final String TILE_FILE = "frame_tile.png";
+    private static final int TILE_SIZE = 96;
+
+    // Board colours as in the game
+    private static final Color LIGHT = new Color(0xE5E7EB);
+    private static final Color DARK = new Color(0x9CA3AF);
+    private static final Color START = new Color(0xF59E0B);
+    private static final Color END = new Color(0x34D399);
+    private static final Color PATH = new Color(17, 24, 39, 150);
+    private static final Color NUMBER = new Color(0x111827);
+    private static final Color CARD = new Color(255, 255, 255, 217);
+
+    private final Path outDir;
+    private final Format format;
+    private final int cell;                 // pixels per square
+    private final BufferedImage tile;       // pattern tile (null when the pattern is missing)
+    private final ThreadLocal<BufferedImage> canvas = new ThreadLocal<>();
+
+    public TourExporter(Path outDir, Format format, int cell) throws IOException {
+        this.outDir = outDir;
+        this.format = format;
+        this.cell = cell;
+        Files.createDirectories(outDir);
+        this.tile = loadTile();
+        if (tile != null && format != Format.PNG) ImageIO.write(tile, "png", outDir.resolve(TILE_FILE).toFile());
+    }
+
+    private BufferedImage loadTile() throws IOException {
+        try (InputStream in = TourExporter.class.getResourceAsStream(PATTERN)) {
+            if (in == null) return null;
+            BufferedImage full = ImageIO.read(in);
+            if (full == null) return null;
+            BufferedImage small = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = small.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(full, 0, 0, TILE_SIZE, TILE_SIZE, null);
+            g.dispose();
+            return small;
+        }
+    }
+
+    /**
+     * The squares a recorded game ended on, in order (undone moves dropped)
+     */
+    public static int[] path(MoveRecording recording) {
+        int[] path = new int[recording.size()];
+        int length = 0;
+        for (int i = 0; i < recording.size(); i++) {
+            int event = recording.get(i);
+            if (event == MoveRecording.UNDO) {
+                if (length > 0) length--;
+            } else {
+                path[length++] = event;
+            }
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    /**
+     * Write one tour in the configured format(s) as outDir/name.svg and/or name.png
+     */
+    public void export(String name, int boardSize, int[] path) throws IOException {
+        // Names come from tours files: keep every output inside outDir
+        if (name.isEmpty() || name.contains("/") || name.contains("\\") || name.contains("..")) {
+            throw new IllegalArgumentException("\"" + name + "\" is not a plain file name");
+        }
+        for (int sq : path) {
+            if (sq < 0 || sq >= boardSize * boardSize) {
+                throw new IllegalArgumentException(name + ": square " + sq + " is off a " + boardSize + "x" + boardSize + " board");
+            }
+        }
+        if (format != Format.PNG) writeSvg(outDir.resolve(name + ".svg"), boardSize, path);
+        if (format != Format.SVG) writePng(outDir.resolve(name + ".png"), boardSize, path);
+    }
+
+    // =========================================================
+    // Layout (shared by both formats)
+    // =========================================================
+    private int margin() { return cell; }              // pattern around the card
+    private int pad() { return Math.max(4, cell / 5); } // card around the board
+    private int boardOrigin() { return margin() + pad(); }
+    private int imageSize(int boardSize) { return 2 * boardOrigin() + boardSize * cell; }
+    private double centreX(int sq, int n) { return boardOrigin() + (sq % n + 0.5) * cell; }
+    private double centreY(int sq, int n) { return boardOrigin() + (sq / n + 0.5) * cell; }
+
+    private static int[] moveNumbers(int boardSize, int[] path) {
+        int[] number = new int[boardSize * boardSize];
+        for (int i = 0; i < path.length; i++) number[path[i]] = i + 1;
+        return number;
+    }
+
+    // =========================================================
+    // SVG
+    // =========================================================
+    private void writeSvg(Path file, int n, int[] path) throws IOException {
+        int size = imageSize(n), o = boardOrigin(), card = margin();
+        int[] number = moveNumbers(n, path);
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\""
+                    + size + "\" height=\"" + size + "\" viewBox=\"0 0 " + size + " " + size + "\">\n");
+            if (tile != null) {
+                w.write("<defs><pattern id=\"frame\" width=\"" + TILE_SIZE + "\" height=\"" + TILE_SIZE
+                        + "\" patternUnits=\"userSpaceOnUse\"><image xlink:href=\"" + TILE_FILE + "\" width=\""
+                        + TILE_SIZE + "\" height=\"" + TILE_SIZE + "\"/></pattern></defs>\n");
+                w.write("<rect width=\"" + size + "\" height=\"" + size + "\" fill=\"url(#frame)\"/>\n");
+            }
+            w.write("<rect x=\"" + card + "\" y=\"" + card + "\" width=\"" + (size - 2 * card) + "\" height=\""
+                    + (size - 2 * card) + "\" rx=\"12\" fill=\"#FFFFFF\" fill-opacity=\"0.85\"/>\n");
+
+            for (int sq = 0; sq < n * n; sq++) {
+                String fill = path.length > 0 && sq == path[0] ? "#F59E0B"
+                        : path.length > 0 && sq == path[path.length - 1] ? "#34D399"
+                        : (sq / n + sq % n) % 2 == 0 ? "#E5E7EB" : "#9CA3AF";
+                w.write("<rect x=\"" + (o + (sq % n) * cell) + "\" y=\"" + (o + (sq / n) * cell)
+                        + "\" width=\"" + cell + "\" height=\"" + cell + "\" fill=\"" + fill + "\"/>\n");
+            }
+
+            if (path.length > 1) {
+                w.write("<polyline fill=\"none\" stroke=\"#111827\" stroke-opacity=\"0.6\" stroke-width=\""
+                        + Math.max(1, cell / 16) + "\" stroke-linejoin=\"round\" points=\"");
+                for (int sq : path) w.write(fmt(centreX(sq, n)) + "," + fmt(centreY(sq, n)) + " ");
+                w.write("\"/>\n");
+            }
+
+            w.write("<g font-family=\"Verdana, sans-serif\" font-size=\"" + fmt(cell * 0.32)
+                    + "\" font-weight=\"bold\" fill=\"#111827\" text-anchor=\"middle\" dominant-baseline=\"central\">\n");
+            for (int sq = 0; sq < n * n; sq++) {
+                if (number[sq] == 0) continue;
+                w.write("<text x=\"" + fmt(centreX(sq, n)) + "\" y=\"" + fmt(centreY(sq, n)) + "\">" + number[sq] + "</text>\n");
+            }
+            w.write("</g>\n</svg>\n");
+        }
+    }
+
+    private static String fmt(double v) {
+        return v == Math.rint(v) ? Integer.toString((int) v) : String.format(Locale.ROOT, "%.1f", v);
+    }
+
+    // =========================================================
+    // PNG
+    // =========================================================
+    private void writePng(Path file, int n, int[] path) throws IOException {
+        int size = imageSize(n), o = boardOrigin(), card = margin();
+        BufferedImage img = canvas.get();
+        if (img == null || img.getWidth() != size) {
+            img = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+            canvas.set(img);
+        }
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            if (tile != null) {
+                g.setPaint(new TexturePaint(tile, new Rectangle2D.Double(0, 0, TILE_SIZE, TILE_SIZE)));
+            } else {
+                g.setPaint(Color.WHITE);
+            }
+            g.fillRect(0, 0, size, size);
+            g.setPaint(CARD);
+            g.fillRoundRect(card, card, size - 2 * card, size - 2 * card, 24, 24);
+
+            for (int sq = 0; sq < n * n; sq++) {
+                g.setColor(path.length > 0 && sq == path[0] ? START
+                        : path.length > 0 && sq == path[path.length - 1] ? END
+                        : (sq / n + sq % n) % 2 == 0 ? LIGHT : DARK);
+                g.fillRect(o + (sq % n) * cell, o + (sq / n) * cell, cell, cell);
+            }
+
+            g.setColor(PATH);
+            g.setStroke(new BasicStroke(Math.max(1, cell / 16f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            for (int i = 1; i < path.length; i++) {
+                g.drawLine((int) centreX(path[i - 1], n), (int) centreY(path[i - 1], n),
+                        (int) centreX(path[i], n), (int) centreY(path[i], n));
+            }
+
+            g.setColor(NUMBER);
+            g.setFont(new Font("SansSerif", Font.BOLD, Math.max(6, (int) (cell * 0.32))));
+            FontMetrics fm = g.getFontMetrics();
+            int[] number = moveNumbers(n, path); // a revisited square shows its last number, as in SVG
+            for (int sq = 0; sq < n * n; sq++) {
+                if (number[sq] == 0) continue;
+                String label = Integer.toString(number[sq]);
+                int x = (int) centreX(sq, n) - fm.stringWidth(label) / 2;
+                int y = (int) centreY(sq, n) + (fm.getAscent() - fm.getDescent()) / 2;
+                g.drawString(label, x, y);
+            }
+        } finally {
+            g.dispose();
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (!ImageIO.write(img, "png", out)) throw new IOException("No PNG writer available");
+        }
+    }
+
+    // =========================================================
+    // Batches
+    // =========================================================
+
+    /**
+     * A tour to export
+     */
+    public static final class Job {
+        final String name;
+        final int boardSize;
+        final int[] path;
+
+        public Job(String name, int boardSize, int[] path) {
+            this.name = name;
+            this.boardSize = boardSize;
+            this.path = path;
+        }
+    }
+
+    /**
+     * Source of jobs, pulled one at a time by {@link #exportAll}
+     */
+    public interface JobSource {
+        /** @return the next job, or null when there are no more */
+        Job next() throws IOException;
+    }
+
+    /**
+     * Export every job from a source on a pool of threads. The source is read on the
+     * calling thread and blocks while the queue is full, so only a few jobs are ever
+     * held in memory.
+     * @return the number of tours written
+     * @throws IOException the first failure (the remaining jobs are not started)
+     */
+    public int exportAll(JobSource source, int threads) throws IOException {
+        ArrayBlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(threads * 4);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, queue);
+        AtomicInteger written = new AtomicInteger();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        try {
+            Job job;
+            while (failure.get() == null && (job = source.next()) != null) {
+                Job j = job;
+                Runnable task = () -> {
+                    try {
+                        export(j.name, j.boardSize, j.path);
+                        written.incrementAndGet();
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, new IOException(j.name + ": " + e.getMessage(), e));
+                    }
+                };
+                queue.put(task); // blocks while the workers are behind
+                pool.prestartAllCoreThreads();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure.get() != null) throw failure.get();
+        return written.get();
+    }
+
+    /**
+     * Jobs read line by line from a tours file
+     */
+    public static JobSource fromFile(BufferedReader in) {
+        return () -> {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\\s+");
+                if (parts.length < 2) throw new IOException("Expected: name boardSize squares..., got " + line);
+                try {
+                    int[] path = new int[parts.length - 2];
+                    for (int i = 0; i < path.length; i++) path[i] = Integer.parseInt(parts[i + 2]);
+                    return new Job(parts[0], Integer.parseInt(parts[1]), path);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Bad number in: " + line, e);
+                }
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Solved tours generated on demand, from random start squares
+     */
+    public static JobSource solved(int boardSize, int count, long seed) {
+        TourSolver solver = TourSolver.forSize(boardSize);
+        Random rnd = new Random(seed);
+        int[] made = {0};
+        return () -> {
+            while (made[0] < count) {
+                int i = made[0]++;
+                int[] tour = solver.findTour(rnd.nextInt(boardSize * boardSize), rnd, 1_000_000);
+                if (tour != null) return new Job(String.format("tour-%dx%d-%05d", boardSize, boardSize, i), boardSize, tour);
+            }
+            return null;
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: TourExporter outDir [--format svg|png|both] [--cell px] [--threads N]"
+                    + " (toursFile | --solve boardSize count [seed])");
+            System.exit(2);
+        }
+        Path outDir = Paths.get(args[0]);
+        Format format = Format.BOTH;
+        int cell = 48;
+        int threads = Runtime.getRuntime().availableProcessors();
+        JobSource source = null;
+        BufferedReader file = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format": format = Format.valueOf(args[++i].toUpperCase()); break;
+                case "--cell": cell = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--solve": {
+                    int boardSize = Integer.parseInt(args[++i]);
+                    int count = Integer.parseInt(args[++i]);
+                    long seed = i + 1 < args.length && !args[i + 1].startsWith("--") ? Long.parseLong(args[++i]) : 1;
+                    source = solved(boardSize, count, seed);
+                    break;
+                }
+                default:
+                    if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i]);
+                    file = Files.newBufferedReader(Paths.get(args[i]), StandardCharsets.UTF_8);
+                    source = fromFile(file);
+            }
+        }
+        if (source == null) throw new IllegalArgumentException("Give a tours file or --solve");
+
+        long t0 = System.nanoTime();
+        int written;
+        try {
+            written = new TourExporter(outDir, format, cell).exportAll(source, threads);
+        } finally {
+            if (file != null) file.close();
+        }
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        System.out.println("Exported " + written + " tours to " + outDir + " in " + ms + " ms");
+    }
+}
@@ -0,0 +1,328 @@
+package knightstour.game;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Depth-first tour search with precomputed neighbour tables for a leaping piece (the
+ * knight unless given; see {@link Leaper}) on a board topology (square unless given;
+ * see {@link BoardTopology}). A tour visits every active square; blocked squares start
+ * out visited, so they cost the search nothing. Only pieces whose moves connect the
+ * whole board have tours.
+ * Squares are indexed row * boardSize + col, as in {@link MoveRecording}.
+ *
+ * A solver is immutable and can be shared; every search runs on a private
+ * {@link Search} so searches on different threads don't interfere.
+ * Searches are bounded by a node budget; when it runs out the answer is {@link #UNKNOWN}.
+ */
+public class TourSolver {
+    public static final int UNKNOWN = -1;
+
+    private static final ConcurrentHashMap<String, TourSolver> CACHE = new ConcurrentHashMap<>();
+
+    private final int boardSize;
+    private final int squares;
+    private final BoardTopology topology;
+    private final int activeSquares;  // squares a tour visits
+    private final int[][] neighbours; // piece targets of every square (shared with the topology)
+    private final int maxTargets;     // most targets any square has
+
+    public TourSolver(int boardSize) {
+        this(boardSize, Leaper.KNIGHT);
+    }
+
+    public TourSolver(int boardSize, Leaper piece) {
+        this(BoardTopology.plain(boardSize), piece);
+    }
+
+    public TourSolver(BoardTopology topology, Leaper piece) {
+        this.boardSize = topology.boardSize;
+        this.squares = boardSize * boardSize;
+        this.topology = topology;
+        this.activeSquares = topology.activeSquares();
+        this.neighbours = topology.moveTable(piece);
+        this.maxTargets = piece.maxTargets();
+    }
+
+    /**
+     * Shared knight solver for a board size
+     */
+    public static TourSolver forSize(int boardSize) {
+        return forPiece(boardSize, Leaper.KNIGHT);
+    }
+
+    /**
+     * Shared solver for a piece and board size
+     */
+    public static TourSolver forPiece(int boardSize, Leaper piece) {
+        return forTopology(BoardTopology.plain(boardSize), piece);
+    }
+
+    /**
+     * Shared solver for a piece on a board topology
+     */
+    public static TourSolver forTopology(BoardTopology topology, Leaper piece) {
+        return CACHE.computeIfAbsent(piece.key() + "/" + topology.key(), k -> new TourSolver(topology, piece));
+    }
+
+    public int getBoardSize() { return boardSize; }
+    public int getSquares() { return squares; }
+    public int getActiveSquares() { return activeSquares; }
+
+    /**
+     * Piece targets of a square (do not modify)
+     */
+    public int[] neighbours(int square) { return neighbours[square]; }
+
+    /**
+     * Find an open tour from a start square: Warnsdorff order with random tie-breaks,
+     * backtracking when it gets stuck
+     * @return the squares of the tour in order, or null if none was found within the budget
+     */
+    public int[] findTour(int start, Random rnd, long nodeBudget) {
+        Search s = new Search(nodeBudget, rnd);
+        s.visit(start);
+        return s.extend(start) ? s.path() : null;
+    }
+
+    /**
+     * Count the ways to finish a tour from a position, stopping once {@code limit} are found
+     * @param prefix squares visited so far, in order, without repeats (the last one holds the knight)
+     * @return completions found (at most limit), or {@link #UNKNOWN} if the budget ran out first
+     */
+    public int countCompletions(int[] prefix, int prefixLength, int limit, long nodeBudget) {
+        Search s = new Search(nodeBudget, null);
+        for (int i = 0; i < prefixLength; i++) s.visit(prefix[i]);
+        int found = s.count(prefix[prefixLength - 1], limit);
+        return s.exhausted ? UNKNOWN : found;
+    }
+
+    /**
+     * Whether a tour can still be finished from a position
+     * @return 1 if it can, 0 if it cannot, {@link #UNKNOWN} if the budget ran out
+     */
+    public int canComplete(int[] prefix, int prefixLength, long nodeBudget) {
+        return countCompletions(prefix, prefixLength, 1, nodeBudget);
+    }
+
+    /**
+     * One way to finish a tour from a position
+     * @return the remaining squares in order, or null if none was found within the budget
+     */
+    public int[] completion(int[] prefix, int prefixLength, long nodeBudget) {
+        Search s = new Search(nodeBudget, null);
+        for (int i = 0; i < prefixLength; i++) s.visit(prefix[i]);
+        if (!s.extend(prefix[prefixLength - 1])) return null;
+        return Arrays.copyOfRange(s.path(), prefixLength, activeSquares);
+    }
+
+    /**
+     * Incremental position for asking the same question about many prefixes of one game
+     */
+    public Position newPosition() {
+        return new Position();
+    }
+
+    /**
+     * A line of play that is moved along one move at a time, so neighbouring prefixes
+     * share their search state instead of rebuilding it. Moves onto visited squares
+     * (revisits) just move the knight. Not thread-safe; use one per thread.
+     */
+    public final class Position {
+        private final Search search = new Search(0, null);
+        private int[] line = new int[squares];
+        private boolean[] revisit = new boolean[squares];
+        private int length;
+
+        public int length() { return length; }
+
+        /**
+         * Nodes used by the last {@link #canComplete} call
+         */
+        public long nodesSearched() { return search.nodes; }
+
+        public void push(int square) {
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+                revisit = Arrays.copyOf(revisit, length * 2);
+            }
+            revisit[length] = search.visited[square];
+            if (!revisit[length]) search.visit(square);
+            line[length++] = square;
+        }
+
+        public void pop() {
+            length--;
+            if (!revisit[length]) search.unvisit(line[length]);
+        }
+
+        /**
+         * Move to the first targetLength moves of a line, keeping the common prefix
+         */
+        public void moveTo(int[] target, int targetLength) {
+            int common = 0;
+            while (common < length && common < targetLength && line[common] == target[common]) common++;
+            while (length > common) pop();
+            while (length < targetLength) push(target[length]);
+        }
+
+        /**
+         * Whether the unvisited squares can still all be visited from the knight's square
+         * @return 1 if they can, 0 if not, {@link #UNKNOWN} if the budget ran out
+         */
+        public int canComplete(long nodeBudget) {
+            if (length == 0) throw new IllegalStateException("No knight on the board");
+            search.budget = nodeBudget;
+            search.nodes = 0;
+            search.exhausted = false;
+            if (search.provablyStuck(line[length - 1])) return 0;
+            int found = search.count(line[length - 1], 1);
+            return search.exhausted ? UNKNOWN : found;
+        }
+    }
+
+    // =========================================================
+    // Search state (one per search, never shared between threads)
+    // =========================================================
+    private final class Search {
+        final boolean[] visited = new boolean[squares];
+        final int[] degree = new int[squares];   // unvisited neighbours of each square
+        final int[] path = new int[squares];
+        int depth = 0;
+        long nodes;
+        long budget;
+        boolean exhausted;
+        final Random rnd;                        // null = deterministic ordering
+
+        Search(long budget, Random rnd) {
+            this.budget = budget;
+            this.rnd = rnd;
+            for (int sq = 0; sq < squares; sq++) {
+                degree[sq] = neighbours[sq].length;
+                visited[sq] = !topology.isActive(sq); // no square leads to a blocked one
+            }
+        }
+
+        void visit(int sq) {
+            visited[sq] = true;
+            path[depth++] = sq;
+            for (int n : neighbours[sq]) degree[n]--;
+        }
+
+        void unvisit(int sq) {
+            visited[sq] = false;
+            depth--;
+            for (int n : neighbours[sq]) degree[n]++;
+        }
+
+        int[] path() {
+            return Arrays.copyOf(path, depth);
+        }
+
+        /**
+         * Cheap whole-board checks that no tour can finish from here: an unvisited square
+         * nothing can reach, two squares that could only be the last one, or unvisited
+         * squares cut off from the knight
+         */
+        boolean provablyStuck(int from) {
+            int remaining = activeSquares - depth;
+            if (remaining == 0) return false;
+            boolean[] nextToKnight = new boolean[squares];
+            for (int n : neighbours[from]) nextToKnight[n] = true;
+            int ends = 0;
+            for (int sq = 0; sq < squares; sq++) {
+                if (visited[sq]) continue;
+                int ways = degree[sq] + (nextToKnight[sq] ? 1 : 0);
+                if (ways == 0) return true;
+                if (ways == 1 && (++ends > 1 || (nextToKnight[sq] && remaining > 1))) return true;
+            }
+
+            // Everything left must be connected to the knight
+            boolean[] reached = new boolean[squares];
+            int[] queue = new int[remaining];
+            int head = 0, tail = 0;
+            for (int n : neighbours[from]) {
+                if (!visited[n]) {
+                    reached[n] = true;
+                    queue[tail++] = n;
+                }
+            }
+            while (head < tail) {
+                for (int n : neighbours[queue[head++]]) {
+                    if (!visited[n] && !reached[n]) {
+                        reached[n] = true;
+                        queue[tail++] = n;
+                    }
+                }
+            }
+            return tail != remaining;
+        }
+
+        /**
+         * Unvisited targets of a square, most constrained first (written into out)
+         * @return how many there are, or -1 if the position is provably dead
+         */
+        int candidates(int from, int[] out) {
+            int n = 0;
+            int remaining = activeSquares - depth;
+            for (int next : neighbours[from]) {
+                if (visited[next]) continue;
+                // A neighbour with no other way in must be the last square
+                if (degree[next] == 0) {
+                    if (remaining != 1) return -1;
+                }
+                out[n++] = next;
+            }
+            // Insertion sort by onward degree (Warnsdorff), random tie-break
+            int[] keys = new int[n];
+            for (int i = 0; i < n; i++) keys[i] = degree[out[i]] * 16 + (rnd != null ? rnd.nextInt(16) : 0);
+            for (int i = 1; i < n; i++) {
+                int k = keys[i], v = out[i], j = i - 1;
+                while (j >= 0 && keys[j] > k) {
+                    keys[j + 1] = keys[j];
+                    out[j + 1] = out[j];
+                    j--;
+                }
+                keys[j + 1] = k;
+                out[j + 1] = v;
+            }
+            return n;
+        }
+
+        boolean extend(int from) {
+            if (depth == activeSquares) return true;
+            if (++nodes > budget) {
+                exhausted = true;
+                return false;
+            }
+            int[] next = new int[maxTargets];
+            int n = candidates(from, next);
+            for (int i = 0; i < n; i++) {
+                visit(next[i]);
+                if (extend(next[i])) return true;
+                unvisit(next[i]);
+                if (exhausted) return false;
+            }
+            return false;
+        }
+
+        int count(int from, int limit) {
+            if (depth == activeSquares) return 1;
+            if (++nodes > budget) {
+                exhausted = true;
+                return 0;
+            }
+            int[] next = new int[maxTargets];
+            int n = candidates(from, next);
+            int found = 0;
+            for (int i = 0; i < n && found < limit; i++) {
+                visit(next[i]);
+                found += count(next[i], limit - found);
+                unvisit(next[i]);
+                if (exhausted) return found;
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package knightstour.server;
+
+import knightstour.game.Level;
+import knightstour.game.TourEngine;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * One connected player. Runs on its own virtual thread: reads a message,
+ * validates it against the player's {@link TourEngine}, answers, repeats.
+ */
+class GameSession implements Runnable {
+    private final TourServer server;
+    private final Socket socket;
+    private final int playerId;
+    private final byte[] out = new byte[Protocol.MAX_MESSAGE]; // only touched by this session's thread
+
+    private WebSocketConnection ws;
+    private Room room;
+    private TourEngine engine;
+    private boolean finished;
+
+    GameSession(TourServer server, Socket socket, int playerId) {
+        this.server = server;
+        this.socket = socket;
+        this.playerId = playerId;
+    }
+
+    @Override
+    public void run() {
+        server.sessionOpened();
+        try {
+            ws = WebSocketConnection.accept(socket);
+            byte[] msg;
+            while ((msg = ws.receive()) != null) {
+                handle(msg);
+            }
+        } catch (IOException e) {
+            // peer went away or spoke garbage; nothing to report to it
+        } finally {
+            if (room != null) server.leaveRoom(room, this);
+            if (ws != null) ws.close();
+            else closeSocket();
+            server.sessionClosed();
+        }
+    }
+
+    private void handle(byte[] msg) throws IOException {
+        if (msg.length == 0) {
+            sendError(Protocol.ERROR_BAD_MESSAGE);
+            return;
+        }
+        switch (msg[0] & 0xFF) {
+            case Protocol.JOIN:
+                if (msg.length < 6) { sendError(Protocol.ERROR_BAD_MESSAGE); return; }
+                join(msg[1] & 0xFF, Protocol.getInt(msg, 2));
+                break;
+            case Protocol.MOVE:
+                if (msg.length < 3) { sendError(Protocol.ERROR_BAD_MESSAGE); return; }
+                move(Protocol.getShort(msg, 1));
+                break;
+            case Protocol.UNDO:
+                undo();
+                break;
+            default:
+                sendError(Protocol.ERROR_BAD_MESSAGE);
+        }
+    }
+
+    private void join(int levelIndex, int roomId) throws IOException {
+        Level level = server.level(levelIndex);
+        if (level == null) {
+            sendError(Protocol.ERROR_BAD_LEVEL);
+            return;
+        }
+        if (room != null) {
+            server.leaveRoom(room, this);
+            room = null;
+            engine = null;
+        }
+        room = server.joinRoom(levelIndex, roomId, this);
+        if (room == null) {
+            sendError(Protocol.ERROR_ROOM_UNAVAILABLE);
+            return;
+        }
+        engine = new TourEngine(level);
+        finished = false;
+
+        int n = 0;
+        out[n++] = (byte) Protocol.WELCOME;
+        n = Protocol.putInt(out, n, playerId);
+        out[n++] = (byte) level.boardSize;
+        n = Protocol.putShort(out, n, room.players.size());
+        ws.send(out, n);
+    }
+
+    private void move(int square) throws IOException {
+        if (engine == null) {
+            sendError(Protocol.ERROR_NOT_JOINED);
+            return;
+        }
+        int size = engine.getBoardSize();
+        if (square >= size * size) {
+            sendError(Protocol.ERROR_BAD_SQUARE);
+            return;
+        }
+        if (engine.historySize() >= room.maxHistory) {
+            sendError(Protocol.ERROR_HISTORY_FULL);
+            return;
+        }
+        TourEngine.MoveResult result = engine.play(square / size, square % size);
+        server.moveApplied();
+        sendResult(result.ordinal());
+        if (result == TourEngine.MoveResult.ILLEGAL) return;
+
+        if (!finished && engine.isTourComplete()) {
+            finished = true;
+            int n = 0;
+            out[n++] = (byte) Protocol.FINISHED;
+            n = Protocol.putInt(out, n, playerId);
+            n = Protocol.putShort(out, n, room.finish());
+            n = Protocol.putShort(out, n, engine.getMoveCount());
+            n = Protocol.putInt(out, n, engine.getScore());
+            ws.send(out, n);
+            room.broadcast(this, out, n);
+        } else {
+            int n = 0;
+            out[n++] = (byte) Protocol.PROGRESS;
+            n = Protocol.putInt(out, n, playerId);
+            n = Protocol.putShort(out, n, engine.visitedCount());
+            n = Protocol.putInt(out, n, engine.getScore());
+            room.broadcast(this, out, n);
+        }
+    }
+
+    private void undo() throws IOException {
+        if (engine == null) {
+            sendError(Protocol.ERROR_NOT_JOINED);
+            return;
+        }
+        boolean undone = engine.undo();
+        server.moveApplied();
+        sendResult(undone ? Protocol.RESULT_UNDONE : Protocol.RESULT_NOTHING_TO_UNDO);
+    }
+
+    private void sendResult(int code) throws IOException {
+        int n = 0;
+        out[n++] = (byte) Protocol.RESULT;
+        out[n++] = (byte) code;
+        n = Protocol.putInt(out, n, engine.getScore());
+        n = Protocol.putShort(out, n, engine.getMoveCount());
+        n = Protocol.putShort(out, n, engine.visitedCount());
+        ws.send(out, n);
+    }
+
+    private void sendError(int code) throws IOException {
+        out[0] = (byte) Protocol.ERROR;
+        out[1] = (byte) code;
+        ws.send(out, 2);
+    }
+
+    /**
+     * Relay a message from another racer; a broken connection is cleaned up by its own thread
+     */
+    void sendQuietly(byte[] message, int length) {
+        try {
+            ws.send(message, length);
+        } catch (IOException ignored) { }
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException ignored) { }
+    }
+}
@@ -0,0 +1,187 @@
+package knightstour.server;
+
+import knightstour.game.Level;
+import knightstour.game.TourEngine;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load generator for {@link TourServer}: opens many concurrent sessions (one virtual
+ * thread each), holds them all open, then has every player race a tour and reports
+ * move round-trip latency.
+ *
+ * Usage: java -cp out knightstour.server.LoadTestClient [sessions] [host] [port] [level] [roomSize]
+ * Defaults: 1000 sessions on 127.0.0.1:8787, Classic level, 4 players per room.
+ * 10k sessions on one box needs a file descriptor limit above 20k (ulimit -n).
+ */
+public class LoadTestClient {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String host = args.length > 1 ? args[1] : "127.0.0.1";
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : TourServer.DEFAULT_PORT;
+        int levelIndex = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int roomSize = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        Level level = Level.defaults()[levelIndex];
+
+        int maxMoves = level.boardSize * level.boardSize;
+        long[][] latencies = new long[sessions][];
+        AtomicInteger connected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger completedTours = new AtomicInteger();
+        CountDownLatch allConnected = new CountDownLatch(sessions);
+        CountDownLatch done = new CountDownLatch(sessions);
+        Semaphore handshakes = new Semaphore(256); // don't overrun the server's accept backlog
+
+        long t0 = System.nanoTime();
+        try (ExecutorService players = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                int id = i;
+                players.execute(() -> {
+                    boolean countedConnect = false;
+                    try (Socket socket = new Socket()) {
+                        WebSocketConnection ws;
+                        handshakes.acquire();
+                        try {
+                            socket.connect(new InetSocketAddress(host, port), 30_000);
+                            socket.setTcpNoDelay(true);
+                            ws = WebSocketConnection.connect(socket, host, "/play");
+                            join(ws, levelIndex, id / roomSize);
+                        } finally {
+                            handshakes.release();
+                        }
+                        connected.incrementAndGet();
+                        allConnected.countDown();
+                        countedConnect = true;
+                        allConnected.await();
+
+                        latencies[id] = playTour(ws, level, new Random(id), maxMoves);
+                        if (latencies[id].length > 0 && latencies[id][latencies[id].length - 1] < 0) {
+                            completedTours.incrementAndGet();
+                            latencies[id] = Arrays.copyOf(latencies[id], latencies[id].length - 1);
+                        }
+                        ws.close();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        if (failed.get() <= 5) System.err.println("session " + id + ": " + e);
+                    } finally {
+                        if (!countedConnect) allConnected.countDown();
+                        done.countDown();
+                    }
+                });
+            }
+            allConnected.await();
+            System.out.printf("%d/%d sessions connected in %d ms%n",
+                    connected.get(), sessions, (System.nanoTime() - t0) / 1_000_000);
+            long raceStart = System.nanoTime();
+            done.await();
+            report(latencies, System.nanoTime() - raceStart, completedTours.get(), failed.get());
+        }
+    }
+
+    private static void join(WebSocketConnection ws, int levelIndex, int roomId) throws IOException {
+        byte[] msg = new byte[6];
+        msg[0] = Protocol.JOIN;
+        msg[1] = (byte) levelIndex;
+        Protocol.putInt(msg, 2, roomId);
+        ws.send(msg, msg.length);
+        byte[] reply = awaitType(ws, Protocol.WELCOME);
+        if (reply == null) throw new IOException("No WELCOME");
+    }
+
+    /**
+     * Play a Warnsdorff tour from a random square, timing each MOVE until its RESULT
+     * @return per-move latencies in nanoseconds, with a trailing -1 if the tour was completed
+     */
+    private static long[] playTour(WebSocketConnection ws, Level level, Random rnd, int maxMoves) throws IOException {
+        int size = level.boardSize;
+        TourEngine mirror = new TourEngine(level);
+        long[] lat = new long[maxMoves + 1];
+        int n = 0;
+        byte[] msg = new byte[3];
+        msg[0] = Protocol.MOVE;
+
+        int row = rnd.nextInt(size);
+        int col = rnd.nextInt(size);
+        while (true) {
+            mirror.play(row, col);
+            Protocol.putShort(msg, 1, row * size + col);
+            long t = System.nanoTime();
+            ws.send(msg, msg.length);
+            byte[] reply = awaitType(ws, Protocol.RESULT);
+            lat[n++] = System.nanoTime() - t;
+            if (reply == null) throw new IOException("Connection closed mid-game");
+            if (reply[1] == TourEngine.MoveResult.ILLEGAL.ordinal()) throw new IOException("Server rejected a legal move");
+
+            if (mirror.isTourComplete()) {
+                lat[n++] = -1;
+                return Arrays.copyOf(lat, n);
+            }
+            int next = warnsdorffMove(mirror);
+            if (next < 0) return Arrays.copyOf(lat, n); // dead end
+            row = next / size;
+            col = next % size;
+        }
+    }
+
+    /**
+     * Unvisited knight target with the fewest onward moves, or -1 if stuck
+     */
+    private static int warnsdorffMove(TourEngine e) {
+        int size = e.getBoardSize();
+        int best = -1, bestDegree = Integer.MAX_VALUE;
+        for (int[] d : TourEngine.KNIGHT_DELTAS) {
+            int r = e.getCurrentRow() + d[0], c = e.getCurrentCol() + d[1];
+            if (!e.inBounds(r, c) || e.isVisited(r, c)) continue;
+            int degree = 0;
+            for (int[] d2 : TourEngine.KNIGHT_DELTAS) {
+                int r2 = r + d2[0], c2 = c + d2[1];
+                if (e.inBounds(r2, c2) && !e.isVisited(r2, c2)) degree++;
+            }
+            if (degree < bestDegree) {
+                bestDegree = degree;
+                best = r * size + c;
+            }
+        }
+        return best;
+    }
+
+    private static byte[] awaitType(WebSocketConnection ws, int type) throws IOException {
+        byte[] msg;
+        while ((msg = ws.receive()) != null) {
+            if ((msg[0] & 0xFF) == type) return msg;
+            if ((msg[0] & 0xFF) == Protocol.ERROR) throw new IOException("Server error " + msg[1]);
+        }
+        return null;
+    }
+
+    private static void report(long[][] latencies, long elapsedNanos, int completed, int failed) {
+        int total = 0;
+        for (long[] l : latencies) if (l != null) total += l.length;
+        long[] all = new long[total];
+        int pos = 0;
+        for (long[] l : latencies) {
+            if (l == null) continue;
+            System.arraycopy(l, 0, all, pos, l.length);
+            pos += l.length;
+        }
+        Arrays.sort(all);
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%d moves in %.2f s (%.0f moves/s), %d tours completed, %d sessions failed%n",
+                total, seconds, total / seconds, completed, failed);
+        if (total > 0) {
+            System.out.printf("move round trip: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    all[total / 2] / 1e6, all[(int) Math.min(total - 1, Math.ceil(total * 0.99) - 1)] / 1e6,
+                    all[total - 1] / 1e6);
+        }
+    }
+}
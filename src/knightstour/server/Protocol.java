@@ -0,0 +1,67 @@
+package knightstour.server;
+
+/**
+ * Compact binary move protocol spoken over the WebSocket.
+ * Every message starts with a one-byte type; integers are big-endian.
+ *
+ * Client to server:
+ *   JOIN     [type, level:1, room:4]     join (or open) a race room on a level
+ *   MOVE     [type, square:2]            square = row * boardSize + col
+ *   UNDO     [type]
+ *
+ * Server to client:
+ *   WELCOME  [type, player:4, boardSize:1, racers:2]
+ *   RESULT   [type, result:1, score:4, moves:2, visited:2]   answer to MOVE/UNDO
+ *   PROGRESS [type, player:4, visited:2, score:4]            another racer moved
+ *   FINISHED [type, player:4, place:2, moves:2, score:4]     someone completed the tour
+ *   ERROR    [type, code:1]
+ */
+public final class Protocol {
+    public static final int JOIN = 1;
+    public static final int MOVE = 2;
+    public static final int UNDO = 3;
+
+    public static final int WELCOME = 0x81;
+    public static final int RESULT = 0x82;
+    public static final int PROGRESS = 0x83;
+    public static final int FINISHED = 0x84;
+    public static final int ERROR = 0x8F;
+
+    /** RESULT code sent for an undo (move results use TourEngine.MoveResult ordinals) */
+    public static final int RESULT_UNDONE = 0x10;
+    public static final int RESULT_NOTHING_TO_UNDO = 0x11;
+
+    public static final int ERROR_BAD_MESSAGE = 1;
+    public static final int ERROR_NOT_JOINED = 2;
+    public static final int ERROR_BAD_LEVEL = 3;
+    public static final int ERROR_BAD_SQUARE = 4;
+    public static final int ERROR_ROOM_UNAVAILABLE = 5; // room is full, or the server has too many rooms
+    public static final int ERROR_HISTORY_FULL = 6;     // too many moves on the board; undo some first
+
+    public static final int MAX_MESSAGE = 16; // no message is longer than this
+
+    private Protocol() { }
+
+    static int putShort(byte[] buf, int pos, int v) {
+        buf[pos] = (byte) (v >>> 8);
+        buf[pos + 1] = (byte) v;
+        return pos + 2;
+    }
+
+    static int putInt(byte[] buf, int pos, int v) {
+        buf[pos] = (byte) (v >>> 24);
+        buf[pos + 1] = (byte) (v >>> 16);
+        buf[pos + 2] = (byte) (v >>> 8);
+        buf[pos + 3] = (byte) v;
+        return pos + 4;
+    }
+
+    static int getShort(byte[] buf, int pos) {
+        return ((buf[pos] & 0xFF) << 8) | (buf[pos + 1] & 0xFF);
+    }
+
+    static int getInt(byte[] buf, int pos) {
+        return ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16)
+                | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,42 @@
+package knightstour.server;
+
+import knightstour.game.Level;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Players racing the same level. Each player has their own board;
+ * the room only relays progress and finishing order between them.
+ */
+class Room {
+    static final int MAX_PLAYERS = 64;
+
+    final long key;          // level and room id, as keyed by the server
+    final Level level;
+    final int maxHistory;    // moves a player may have on the board: a tour plus plenty of revisits
+    final CopyOnWriteArrayList<GameSession> players = new CopyOnWriteArrayList<>();
+    private final AtomicInteger finishers = new AtomicInteger();
+
+    Room(long key, Level level) {
+        this.key = key;
+        this.level = level;
+        this.maxHistory = level.boardSize * level.boardSize * 4;
+    }
+
+    /**
+     * @return the finishing place (1 = first) of a player who just completed the tour
+     */
+    int finish() {
+        return finishers.incrementAndGet();
+    }
+
+    /**
+     * Send a message to everyone in the room except the sender
+     */
+    void broadcast(GameSession from, byte[] message, int length) {
+        for (GameSession p : players) {
+            if (p != from) p.sendQuietly(message, length);
+        }
+    }
+}
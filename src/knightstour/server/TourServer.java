@@ -0,0 +1,129 @@
+package knightstour.server;
+
+import knightstour.game.Level;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multiplayer Knight's Tour server. Every connection gets its own virtual thread
+ * ({@link GameSession}); moves are validated with the same {@link knightstour.game.TourEngine}
+ * rules and scoring as the desktop game.
+ *
+ * Rooms are opened by the first player to join them and closed when the last one
+ * leaves; at most {@link #MAX_ROOMS} are open at once.
+ *
+ * Usage: java -cp out knightstour.server.TourServer [port] [bind-address]
+ * Clients connect to ws://host:port/play and speak {@link Protocol}.
+ */
+public class TourServer {
+    public static final int DEFAULT_PORT = 8787;
+    public static final int MAX_ROOMS = 10_000;
+
+    private final Level[] levels = Level.defaults();
+    private final Map<Long, Room> rooms = new HashMap<>(); // guarded by this
+    private final AtomicInteger nextPlayerId = new AtomicInteger(1);
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final LongAdder movesApplied = new LongAdder();
+
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * Accept connections until {@link #stop()} is called (blocks the calling thread)
+     */
+    public void serve(InetSocketAddress address) throws IOException {
+        try (ServerSocket ss = new ServerSocket();
+             ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            ss.setReuseAddress(true);
+            ss.bind(address, 4096);
+            serverSocket = ss;
+            while (!ss.isClosed()) {
+                Socket socket;
+                try {
+                    socket = ss.accept();
+                } catch (IOException e) {
+                    if (ss.isClosed()) break;
+                    throw e;
+                }
+                socket.setTcpNoDelay(true);
+                sessions.execute(new GameSession(this, socket, nextPlayerId.getAndIncrement()));
+            }
+        }
+    }
+
+    public void stop() throws IOException {
+        ServerSocket ss = serverSocket;
+        if (ss != null) ss.close();
+    }
+
+    Level level(int index) {
+        return index >= 0 && index < levels.length ? levels[index] : null;
+    }
+
+    /**
+     * Add a player to a room, opening it if needed
+     * @return the room, or null if it is full or no more rooms may be opened
+     */
+    synchronized Room joinRoom(int levelIndex, int roomId, GameSession player) {
+        long key = ((long) levelIndex << 32) | (roomId & 0xFFFFFFFFL);
+        Room room = rooms.get(key);
+        if (room == null) {
+            if (rooms.size() >= MAX_ROOMS) return null;
+            room = new Room(key, levels[levelIndex]);
+            rooms.put(key, room);
+        }
+        if (room.players.size() >= Room.MAX_PLAYERS) return null;
+        room.players.add(player);
+        return room;
+    }
+
+    /**
+     * Remove a player from a room, closing the room when it empties
+     */
+    synchronized void leaveRoom(Room room, GameSession player) {
+        room.players.remove(player);
+        if (room.players.isEmpty()) rooms.remove(room.key, room);
+    }
+
+    public synchronized int getRoomCount() { return rooms.size(); }
+
+    void sessionOpened() { activeSessions.incrementAndGet(); }
+    void sessionClosed() { activeSessions.decrementAndGet(); }
+    void moveApplied() { movesApplied.increment(); }
+
+    public int getActiveSessions() { return activeSessions.get(); }
+    public long getMovesApplied() { return movesApplied.sum(); }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        InetAddress bind = InetAddress.getByName(args.length > 1 ? args[1] : "127.0.0.1");
+
+        TourServer server = new TourServer();
+        Thread stats = Thread.ofPlatform().daemon().name("stats").start(() -> {
+            long lastMoves = 0;
+            while (true) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long moves = server.getMovesApplied();
+                System.out.printf("%d sessions, %.0f moves/s%n",
+                        server.getActiveSessions(), (moves - lastMoves) / 5.0);
+                lastMoves = moves;
+            }
+        });
+        System.out.println("Knight's Tour server on ws://" + bind.getHostAddress() + ":" + port + "/play");
+        server.serve(new InetSocketAddress(bind, port));
+        stats.interrupt();
+    }
+}
@@ -0,0 +1,245 @@
+package knightstour.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Minimal RFC 6455 WebSocket over a blocking socket, for both ends of the game protocol.
+ * Only binary messages are exchanged; pings are answered and text frames are ignored.
+ * Reads happen on the connection's own (virtual) thread, sends may come from any thread.
+ */
+public class WebSocketConnection implements Closeable {
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_MESSAGE = 64 * 1024;
+
+    private static final int OP_CONTINUATION = 0x0;
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_BINARY = 0x2;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final boolean client;  // clients mask their frames, servers must not
+    private final ReentrantLock sendLock = new ReentrantLock(); // a lock, not synchronized, so virtual threads don't pin
+    private volatile boolean closed;
+
+    private WebSocketConnection(Socket socket, InputStream in, boolean client) throws IOException {
+        this.socket = socket;
+        this.in = new DataInputStream(in);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 512);
+        this.client = client;
+    }
+
+    // =========================================================
+    // Handshakes
+    // =========================================================
+
+    /**
+     * Server side: read the HTTP upgrade request and accept it
+     */
+    public static WebSocketConnection accept(Socket socket) throws IOException {
+        InputStream in = new BufferedInputStream(socket.getInputStream(), 1024);
+        String key = null;
+        String line = readLine(in);
+        if (line == null || !line.startsWith("GET ")) throw new IOException("Not a WebSocket upgrade: " + line);
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        if (key == null) throw new IOException("Missing Sec-WebSocket-Key");
+
+        String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n";
+        OutputStream raw = socket.getOutputStream();
+        raw.write(response.getBytes(StandardCharsets.US_ASCII));
+        raw.flush();
+        return new WebSocketConnection(socket, in, false);
+    }
+
+    /**
+     * Client side: send the upgrade request and check the server's answer
+     */
+    public static WebSocketConnection connect(Socket socket, String host, String path) throws IOException {
+        byte[] nonce = new byte[16];
+        ThreadLocalRandom.current().nextBytes(nonce);
+        String key = Base64.getEncoder().encodeToString(nonce);
+
+        String request = "GET " + path + " HTTP/1.1\r\n"
+                + "Host: " + host + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + key + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n";
+        OutputStream raw = socket.getOutputStream();
+        raw.write(request.getBytes(StandardCharsets.US_ASCII));
+        raw.flush();
+
+        InputStream in = new BufferedInputStream(socket.getInputStream(), 1024);
+        String status = readLine(in);
+        if (status == null || !status.contains(" 101 ")) throw new IOException("Upgrade refused: " + status);
+        String expected = acceptKey(key);
+        boolean accepted = false;
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Accept")) {
+                accepted = line.substring(colon + 1).trim().equals(expected);
+            }
+        }
+        if (!accepted) throw new IOException("Bad Sec-WebSocket-Accept");
+        return new WebSocketConnection(socket, in, true);
+    }
+
+    private static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') break;
+            if (b != '\r') sb.append((char) b);
+            if (sb.length() > 8192) throw new IOException("Header line too long");
+        }
+        return b == -1 && sb.length() == 0 ? null : sb.toString();
+    }
+
+    // =========================================================
+    // Messages
+    // =========================================================
+
+    /**
+     * Block until the next binary message arrives
+     * @return the payload, or null once the peer has closed the connection
+     */
+    public byte[] receive() throws IOException {
+        ByteArrayOutputStream fragments = null;
+        while (true) {
+            int b0, b1;
+            try {
+                b0 = in.readUnsignedByte();
+                b1 = in.readUnsignedByte();
+            } catch (EOFException e) {
+                return null;
+            }
+            boolean fin = (b0 & 0x80) != 0;
+            int opcode = b0 & 0x0F;
+            boolean masked = (b1 & 0x80) != 0;
+            long len = b1 & 0x7F;
+            if (len == 126) len = in.readUnsignedShort();
+            else if (len == 127) len = in.readLong();
+            if (len < 0 || len > MAX_MESSAGE) throw new IOException("Frame too large: " + len);
+
+            byte[] mask = null;
+            if (masked) {
+                mask = new byte[4];
+                in.readFully(mask);
+            }
+            byte[] payload = new byte[(int) len];
+            in.readFully(payload);
+            if (mask != null) {
+                for (int i = 0; i < payload.length; i++) payload[i] ^= mask[i & 3];
+            }
+
+            switch (opcode) {
+                case OP_CLOSE:
+                    sendFrame(OP_CLOSE, payload, 0, Math.min(payload.length, 2));
+                    close();
+                    return null;
+                case OP_PING:
+                    sendFrame(OP_PONG, payload, 0, payload.length);
+                    continue;
+                case OP_PONG:
+                    continue;
+                case OP_TEXT:
+                case OP_BINARY:
+                case OP_CONTINUATION:
+                    if (fin && fragments == null) {
+                        if (opcode == OP_TEXT) continue;
+                        return payload;
+                    }
+                    if (fragments == null) fragments = new ByteArrayOutputStream();
+                    fragments.write(payload);
+                    if (fragments.size() > MAX_MESSAGE) throw new IOException("Message too large");
+                    if (fin) return fragments.toByteArray();
+                    continue;
+                default:
+                    throw new IOException("Unknown opcode " + opcode);
+            }
+        }
+    }
+
+    /**
+     * Send one binary message
+     */
+    public void send(byte[] message, int length) throws IOException {
+        sendFrame(OP_BINARY, message, 0, length);
+    }
+
+    private void sendFrame(int opcode, byte[] data, int off, int len) throws IOException {
+        sendLock.lock();
+        try {
+            if (closed) throw new IOException("Connection closed");
+            out.write(0x80 | opcode);
+            int maskBit = client ? 0x80 : 0;
+            if (len < 126) {
+                out.write(maskBit | len);
+            } else {
+                out.write(maskBit | 126);
+                out.write(len >>> 8);
+                out.write(len);
+            }
+            if (client) {
+                int key = ThreadLocalRandom.current().nextInt();
+                byte[] mask = {(byte) (key >>> 24), (byte) (key >>> 16), (byte) (key >>> 8), (byte) key};
+                out.write(mask);
+                for (int i = 0; i < len; i++) out.write(data[off + i] ^ mask[i & 3]);
+            } else {
+                out.write(data, off, len);
+            }
+            out.flush();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException ignored) { }
+    }
+}